@@ -0,0 +1,189 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.EncodeNullHandlingStrategy;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class for codecs generated by {@link de.bild.codec.processor.GeneratedCodecProcessor}.
+ * <p>
+ * The mapping (field names, codecs, strategies, id and lifecycle handling) is set up exactly as for any other
+ * {@link SpecializedReflectionCodec}. Generated sub classes read and write those fields directly, that are accessible from
+ * the package of the pojo. They address them by the index of the field within the field names handed to the constructor.
+ * All other fields (e.g. private fields) are accessed through the {@link MappedField}.
+ *
+ * @param <T> the value type
+ */
+public abstract class AbstractGeneratedCodec<T> extends SpecializedReflectionCodec<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractGeneratedCodec.class);
+
+    /**
+     * returned by {@link #decodeValue(int, BsonReader, DecoderContext)} if the field value must not be changed
+     */
+    protected static final Object SKIPPED = new Object();
+
+    private final MappedField<T, Object>[] generatedMappedFields;
+
+    /**
+     * @param type               the pojo type
+     * @param typeCodecRegistry  codec registry for any type
+     * @param codecConfiguration the codec configuration
+     * @param fieldNames         the java field names that are handled by the generated codec
+     */
+    @SuppressWarnings("unchecked")
+    protected AbstractGeneratedCodec(Type type, TypeCodecRegistry typeCodecRegistry, CodecConfiguration codecConfiguration, String... fieldNames) {
+        super(type, typeCodecRegistry, codecConfiguration);
+        Map<String, Integer> ordinalByFieldName = new HashMap<>();
+        for (int ordinal = 0; ordinal < fieldCodecs.length; ordinal++) {
+            ordinalByFieldName.put(fieldCodecs[ordinal].mappedField.getField().getName(), ordinal);
+        }
+
+        this.generatedMappedFields = new MappedField[fieldNames.length];
+        for (int index = 0; index < fieldNames.length; index++) {
+            Integer ordinal = ordinalByFieldName.get(fieldNames[index]);
+            if (ordinal == null) {
+                // the pojo class differs from the one the codec was generated for
+                throw new IllegalArgumentException("Generated codec " + getClass().getName() + " maps unknown field " + fieldNames[index] + " of " + type);
+            }
+            MappedField<T, Object> mappedField = fieldCodecs[ordinal].mappedField;
+            generatedMappedFields[index] = mappedField;
+            fieldCodecs[ordinal] = new GeneratedFieldCodec<>(mappedField, this, index);
+            // values are read by the generated code only
+            directBsonTypes[ordinal] = 0;
+        }
+    }
+
+    /**
+     * Writes the field with the given index including its name.
+     */
+    protected abstract void encodeField(int index, BsonWriter writer, T instance, EncoderContext encoderContext);
+
+    /**
+     * Reads the current value of the reader into the field with the given index.
+     */
+    protected abstract void decodeField(int index, BsonReader reader, T instance, DecoderContext decoderContext);
+
+    /**
+     * Writes name and value of a primitive field mapped to a bson int32 (int, short, byte, char and locking versions).
+     */
+    protected final void writeInt32(int index, BsonWriter writer, int value) {
+        generatedMappedFields[index].encodedName.writeInt32(writer, value);
+    }
+
+    /**
+     * Writes name and value of a long field.
+     */
+    protected final void writeInt64(int index, BsonWriter writer, long value) {
+        generatedMappedFields[index].encodedName.writeInt64(writer, value);
+    }
+
+    /**
+     * Writes name and value of a double or float field.
+     */
+    protected final void writeDouble(int index, BsonWriter writer, double value) {
+        generatedMappedFields[index].encodedName.writeDouble(writer, value);
+    }
+
+    /**
+     * Writes name and value of a boolean field.
+     */
+    protected final void writeBoolean(int index, BsonWriter writer, boolean value) {
+        generatedMappedFields[index].encodedName.writeBoolean(writer, value);
+    }
+
+    /**
+     * Checks the bson type of the current value for primitive fields. Null or undefined values and values of unexpected type are skipped.
+     *
+     * @return true, if the value can be read
+     */
+    protected final boolean isReadable(BsonReader reader, BsonType expectedBsonType) {
+        BsonType currentBsonType = reader.getCurrentBsonType();
+        if (currentBsonType == expectedBsonType) {
+            return true;
+        }
+        if (currentBsonType != BsonType.NULL && currentBsonType != BsonType.UNDEFINED) {
+            LOGGER.warn("Expected {} from reader but got {}. Skipping value.", expectedBsonType, currentBsonType);
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    /**
+     * Writes a non-primitive field value honoring the null handling of the field.
+     */
+    protected final void encodeValue(int index, BsonWriter writer, Object value, EncoderContext encoderContext) {
+        MappedField<T, Object> mappedField = generatedMappedFields[index];
+        Codec<Object> codec = mappedField.getCodec();
+        if (codec == null) {
+            return;
+        }
+        if (value == null && mappedField.encodeNullHandlingStrategy == EncodeNullHandlingStrategy.Strategy.CODEC && codec instanceof TypeCodec) {
+            value = mappedField.getNullReplacement();
+        }
+        if (value == null) {
+            if (mappedField.encodeNulls) {
+                mappedField.encodedName.writeNull(writer);
+            }
+        } else if (codec.getClass() == EnumCodec.class) {
+            ((EnumCodec) codec).encode(mappedField.encodedName, writer, (Enum) value);
+        } else {
+            mappedField.encodedName.writeName(writer);
+            codec.encode(writer, value, encoderContext);
+        }
+    }
+
+    /**
+     * Reads a non-primitive field value.
+     *
+     * @return the decoded value (may be null) or {@link #SKIPPED} if the field must not be changed
+     */
+    protected final Object decodeValue(int index, BsonReader reader, DecoderContext decoderContext) {
+        Codec<Object> codec = generatedMappedFields[index].getCodec();
+        if (codec == null) {
+            return SKIPPED;
+        }
+        BsonType currentBsonType = reader.getCurrentBsonType();
+        if (currentBsonType == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        } else if (currentBsonType == BsonType.UNDEFINED) {
+            reader.skipValue();
+            return SKIPPED;
+        }
+        return codec.decode(reader, decoderContext);
+    }
+
+    /**
+     * Delegates to the generated code
+     */
+    static final class GeneratedFieldCodec<T> extends FieldCodec<T> {
+        final AbstractGeneratedCodec<T> generatedCodec;
+        final int index;
+
+        GeneratedFieldCodec(MappedField<T, Object> mappedField, AbstractGeneratedCodec<T> generatedCodec, int index) {
+            super(mappedField);
+            this.generatedCodec = generatedCodec;
+            this.index = index;
+        }
+
+        @Override
+        void encode(BsonWriter writer, T instance, EncoderContext encoderContext) {
+            generatedCodec.encodeField(index, writer, instance, encoderContext);
+        }
+
+        @Override
+        void decodeValue(BsonReader reader, T instance, DecoderContext decoderContext) {
+            generatedCodec.decodeField(index, reader, instance, decoderContext);
+        }
+    }
+}
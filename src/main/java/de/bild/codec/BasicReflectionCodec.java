@@ -9,12 +9,14 @@ import org.bson.BsonWriter;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.io.BsonInput;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class BasicReflectionCodec<T> extends AbstractTypeCodec<T> implements ReflectionCodec<T> {
 
@@ -27,15 +29,50 @@ public class BasicReflectionCodec<T> extends AbstractTypeCodec<T> implements Ref
      * a list of the fields to map
      */
     final Map<String, MappedField> persistenceFields = new LinkedHashMap<>();
+    /**
+     * the mapped fields by ordinal (order of {@link #persistenceFields}) and the lookup of ordinals by mapped field name
+     */
+    final MappedField[] mappedFields;
+    final FieldNameIndex fieldNameIndex;
+    /**
+     * Documents written by polymorphia come back in encode order. Hence while decoding, the name of the field expected
+     * next is compared first and the {@link #fieldNameIndex} is only used on a mismatch. The ordinal expected after
+     * ordinal i is found at index i + 1 (index 0: first field) and is learned from the order observed while decoding.
+     */
+    final String[] fieldNamesByOrdinal;
+    private final int[] expectedSuccessors;
+    private final LongAdder inOrderFieldMatches = new LongAdder();
+    private final LongAdder outOfOrderFieldMatches = new LongAdder();
+    /**
+     * If the reader allows to read straight from its input (see {@link BinaryFieldReader}), primitive fields expected next
+     * are matched by type and name bytes and read without the reader. Holds the bson type of those fields by ordinal
+     * (0 for all other fields).
+     */
+    final byte[] directBsonTypes;
+    private final byte[][] utf8NamesByOrdinal;
+    /**
+     * decoded fields are tracked within a bit mask: the first 64 fields in a local variable, any further fields within
+     * an array reused per thread (null, if the pojo has no more than 64 fields)
+     */
+    private final ThreadLocal<long[]> decodedFieldsMasks;
+    // false, if initializeUndefinedValue() is a no-op for all fields
+    private final boolean initializesUndefinedValues;
     final List<Method> postLoadMethods = new ArrayList<>();
     final List<Method> preSaveMethods = new ArrayList<>();
     InstanceAwareIdGenerator idGenerator;
     boolean isCollectible;
 
     public BasicReflectionCodec(Type type, TypeCodecRegistry typeCodecRegistry, CodecConfiguration codecConfiguration) {
+        this(type, ReflectionHelper.getDeclaredAndInheritedFieldTypePairs(type, true), typeCodecRegistry, codecConfiguration);
+    }
+
+    /**
+     * @param fieldTypePairs all declared and inherited fields of the type, as cached by the {@link PojoContext}
+     */
+    BasicReflectionCodec(Type type, List<FieldTypePair> fieldTypePairs, TypeCodecRegistry typeCodecRegistry, CodecConfiguration codecConfiguration) {
         super(type, typeCodecRegistry);
         // resolve all persistable fields
-        for (final FieldTypePair fieldTypePair : ReflectionHelper.getDeclaredAndInheritedFieldTypePairs(type, true)) {
+        for (final FieldTypePair fieldTypePair : fieldTypePairs) {
             Field field = fieldTypePair.getField();
             if (!isIgnorable(field)) {
                 MappedField<T, Object> mappedField = null;
@@ -93,6 +130,28 @@ public class BasicReflectionCodec<T> extends AbstractTypeCodec<T> implements Ref
         DecodingPojoFailureStrategy decodingPojoFailureStrategy = encoderClass.getDeclaredAnnotation(DecodingPojoFailureStrategy.class);
         this.decodingPojoFailureStrategy = decodingPojoFailureStrategy != null ? decodingPojoFailureStrategy.value() : codecConfiguration.getDecodingPojoFailureStrategy();
 
+        this.mappedFields = persistenceFields.values().toArray(new MappedField[0]);
+        this.fieldNameIndex = new FieldNameIndex(new ArrayList<>(persistenceFields.keySet()));
+        this.fieldNamesByOrdinal = persistenceFields.keySet().toArray(new String[0]);
+        this.expectedSuccessors = new int[mappedFields.length + 1];
+        for (int i = 0; i < expectedSuccessors.length; i++) {
+            expectedSuccessors[i] = i;
+        }
+        this.directBsonTypes = new byte[mappedFields.length];
+        this.utf8NamesByOrdinal = new byte[mappedFields.length][];
+        for (int i = 0; i < mappedFields.length; i++) {
+            BsonType primitiveBsonType = mappedFields[i].getPrimitiveBsonType();
+            directBsonTypes[i] = primitiveBsonType != null ? (byte) primitiveBsonType.getValue() : 0;
+            utf8NamesByOrdinal[i] = mappedFields[i].encodedName.utf8;
+        }
+        this.decodedFieldsMasks = mappedFields.length > Long.SIZE ? new ThreadLocal<>() : null;
+        boolean initializesUndefinedValues = false;
+        for (MappedField mappedField : mappedFields) {
+            initializesUndefinedValues |= !mappedField.getField().getType().isPrimitive()
+                    && mappedField.decodeUndefinedHandlingStrategy != DecodeUndefinedHandlingStrategy.Strategy.KEEP_POJO_DEFAULT;
+        }
+        this.initializesUndefinedValues = initializesUndefinedValues;
+
     }
 
     @Override
@@ -111,29 +170,132 @@ public class BasicReflectionCodec<T> extends AbstractTypeCodec<T> implements Ref
                 || Modifier.isTransient(field.getModifiers());
     }
 
+    /**
+     * Decodes the fields of the current document. Once every mapped field has been decoded from a binary input, the
+     * remaining elements are skipped without reading their names, hence later duplicates of mapped fields are ignored.
+     */
     @Override
     public T decodeFields(BsonReader reader, DecoderContext decoderContext, T instance) {
-        Set<String> fieldNames = new HashSet<>(persistenceFields.keySet());
-
-        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-            String fieldName = reader.readName();
-            MappedField mappedField = persistenceFields.get(fieldName);
-            if (mappedField != null) {
-                fieldNames.remove(fieldName);
-                mappedField.decode(reader, instance, decoderContext);
-            } else {
-                reader.skipValue();
+        long decodedFields = 0L;
+        long[] moreDecodedFields = decodedFieldsMasks != null ? borrowDecodedFieldsMask() : null;
+        int remainingFields = mappedFields.length;
+        int previousOrdinal = -1;
+        int inOrderMatches = 0;
+        int outOfOrderMatches = 0;
+        BsonInput input = BinaryFieldReader.inputOf(reader);
+        try {
+            while (true) {
+                int ordinal = expectedSuccessors[previousOrdinal + 1];
+                boolean readDirectly = false;
+                if (input != null) {
+                    if (remainingFields == 0) {
+                        BinaryFieldReader.skipElements(input);
+                    } else if (ordinal < directBsonTypes.length && directBsonTypes[ordinal] != 0) {
+                        readDirectly = BinaryFieldReader.readHeader(input, directBsonTypes[ordinal], utf8NamesByOrdinal[ordinal]);
+                    }
+                }
+                if (readDirectly) {
+                    inOrderMatches++;
+                } else {
+                    if (reader.readBsonType() == BsonType.END_OF_DOCUMENT) {
+                        break;
+                    }
+                    String fieldName = reader.readName();
+                    if (ordinal < fieldNamesByOrdinal.length && fieldNamesByOrdinal[ordinal].equals(fieldName)) {
+                        inOrderMatches++;
+                    } else {
+                        outOfOrderMatches++;
+                        ordinal = fieldNameIndex.indexOf(fieldName);
+                        if (ordinal >= 0) {
+                            // racy updates are harmless, the worst case is another miss
+                            expectedSuccessors[previousOrdinal + 1] = ordinal;
+                        }
+                    }
+                }
+                if (ordinal >= 0) {
+                    previousOrdinal = ordinal;
+                    if (ordinal < Long.SIZE) {
+                        if ((decodedFields & (1L << ordinal)) == 0) {
+                            decodedFields |= 1L << ordinal;
+                            remainingFields--;
+                        }
+                    } else if ((moreDecodedFields[(ordinal >>> 6) - 1] & (1L << ordinal)) == 0) {
+                        moreDecodedFields[(ordinal >>> 6) - 1] |= 1L << ordinal;
+                        remainingFields--;
+                    }
+                    if (readDirectly) {
+                        decodeMappedField(ordinal, input, instance);
+                    } else {
+                        decodeMappedField(ordinal, reader, instance, decoderContext);
+                    }
+                } else {
+                    reader.skipValue();
+                }
             }
-        }
 
-        // for all non-found (undefined) fields, run initialization
-        for (String fieldName : fieldNames) {
-            persistenceFields.get(fieldName).initializeUndefinedValue(instance);
+            // for all non-found (undefined) fields, run initialization
+            if (initializesUndefinedValues && remainingFields > 0) {
+                for (int i = 0; i < mappedFields.length; i++) {
+                    long mask = i < Long.SIZE ? decodedFields : moreDecodedFields[(i >>> 6) - 1];
+                    if ((mask & (1L << i)) == 0) {
+                        mappedFields[i].initializeUndefinedValue(instance);
+                    }
+                }
+            }
+        } finally {
+            if (moreDecodedFields != null) {
+                releaseDecodedFieldsMask(moreDecodedFields);
+            }
+            inOrderFieldMatches.add(inOrderMatches);
+            outOfOrderFieldMatches.add(outOfOrderMatches);
         }
         postDecode(instance);
         return instance;
     }
 
+    /**
+     * @return the number of decoded field names, that matched the field expected next in encode (or learned) order
+     */
+    public long getInOrderFieldMatches() {
+        return inOrderFieldMatches.sum();
+    }
+
+    /**
+     * @return the number of decoded field names, that needed to be looked up (including names of unmapped fields)
+     */
+    public long getOutOfOrderFieldMatches() {
+        return outOfOrderFieldMatches.sum();
+    }
+
+    /**
+     * Decodes the current value of the reader into the field with the given ordinal
+     */
+    void decodeMappedField(int ordinal, BsonReader reader, T instance, DecoderContext decoderContext) {
+        mappedFields[ordinal].decode(reader, instance, decoderContext);
+    }
+
+    /**
+     * Reads the value of the primitive field with the given ordinal straight from the input, see {@link #directBsonTypes}
+     */
+    void decodeMappedField(int ordinal, BsonInput input, T instance) {
+        mappedFields[ordinal].decode(input, instance);
+    }
+
+    private long[] borrowDecodedFieldsMask() {
+        long[] mask = decodedFieldsMasks.get();
+        if (mask == null) {
+            // first use within this thread or nested decoding of the same type
+            return new long[(mappedFields.length - 1) >>> 6];
+        }
+        decodedFieldsMasks.set(null);
+        return mask;
+    }
+
+    private void releaseDecodedFieldsMask(long[] mask) {
+        Arrays.fill(mask, 0L);
+        decodedFieldsMasks.set(mask);
+    }
+
     @Override
     public void postDecode(T instance) {
         for (Method postLoadMethod : postLoadMethods) {
@@ -0,0 +1,166 @@
+package de.bild.codec;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonSerializationException;
+import org.bson.BsonType;
+import org.bson.ByteBufNIO;
+import org.bson.io.BsonInput;
+import org.bson.io.ByteBufferBsonInput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads elements of a document straight from the {@link BsonInput} of a {@link BsonBinaryReader}, e.g. a reader
+ * created by {@link org.bson.RawBsonDocument#decode(org.bson.codecs.Codec)} or by the driver for a server reply.
+ * <p>
+ * Element names are compared against pre-encoded name bytes without creating {@link String}s and values are skipped
+ * by their length prefixes. The reader does not notice any of this: all methods are only called while the reader
+ * expects the type of the next element and they either consume complete elements or leave the input untouched.
+ * Rewinding the input is done by skipping a negative number of bytes, which is only supported by
+ * {@link ByteBufferBsonInput}, hence any other reader or input is left to the {@link BsonReader} API.
+ */
+final class BinaryFieldReader {
+
+    private BinaryFieldReader() {
+    }
+
+    /**
+     * @return the input of the reader, if elements can be read straight from it, null otherwise
+     */
+    static BsonInput inputOf(BsonReader reader) {
+        if (reader.getClass() == BsonBinaryReader.class) {
+            BsonInput input = ((BsonBinaryReader) reader).getBsonInput();
+            if (input.getClass() == ByteBufferBsonInput.class || input.getClass() == SharedBufferBsonInput.class) {
+                return input;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An input of a buffer, that outlives the decoding and is not modified afterwards, e.g. the bytes of a
+     * {@link org.bson.RawBsonDocument}. Pooled buffers of the driver are released after decoding, so values must not
+     * reference them.
+     */
+    static final class SharedBufferBsonInput extends ByteBufferBsonInput {
+        final ByteBuffer buffer;
+
+        SharedBufferBsonInput(ByteBuffer buffer) {
+            super(new ByteBufNIO(buffer));
+            this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * @return the buffer positions of the input refer to, if values may reference it instead of copying it, null otherwise
+     */
+    static ByteBuffer sharedBufferOf(BsonInput input) {
+        return input instanceof SharedBufferBsonInput ? ((SharedBufferBsonInput) input).buffer : null;
+    }
+
+    /**
+     * Consumes type and name of the next element, if they are equal to the given ones. Otherwise the input is left
+     * unchanged.
+     *
+     * @param input    the input
+     * @param bsonType the expected bson type
+     * @param utf8Name the expected name as UTF-8 bytes
+     * @return true, if the value of the element is to be read next
+     */
+    static boolean readHeader(BsonInput input, byte bsonType, byte[] utf8Name) {
+        int start = input.getPosition();
+        if (input.readByte() == bsonType) {
+            int i = 0;
+            while (i < utf8Name.length && input.readByte() == utf8Name[i]) {
+                i++;
+            }
+            if (i == utf8Name.length && input.readByte() == 0) {
+                return true;
+            }
+        }
+        input.skip(start - input.getPosition());
+        return false;
+    }
+
+    /**
+     * Must only be called right after {@link BsonReader#readStartArray()} or {@link BsonReader#readStartDocument()},
+     * when the length prefix of the array or document has just been consumed.
+     *
+     * @return the length in bytes of the array or document including length prefix and terminating zero
+     */
+    static int readPrecedingLength(BsonInput input) {
+        input.skip(-4);
+        return input.readInt32();
+    }
+
+    /**
+     * Skips all remaining elements of the current document without reading their names. The terminating zero is left
+     * to the reader.
+     */
+    static void skipElements(BsonInput input) {
+        byte bsonType;
+        while ((bsonType = input.readByte()) != 0) {
+            input.skipCString();
+            skipValue(input, bsonType);
+        }
+        input.skip(-1);
+    }
+
+    private static void skipValue(BsonInput input, byte bsonTypeValue) {
+        BsonType bsonType = BsonType.findByValue(bsonTypeValue);
+        if (bsonType == null) {
+            throw new BsonSerializationException("Unknown bson type " + bsonTypeValue + " while skipping elements.");
+        }
+        switch (bsonType) {
+            case BOOLEAN:
+                input.skip(1);
+                break;
+            case INT32:
+                input.skip(4);
+                break;
+            case DOUBLE:
+            case INT64:
+            case DATE_TIME:
+            case TIMESTAMP:
+                input.skip(8);
+                break;
+            case OBJECT_ID:
+                input.skip(12);
+                break;
+            case DECIMAL128:
+                input.skip(16);
+                break;
+            case STRING:
+            case JAVASCRIPT:
+            case SYMBOL:
+                input.skip(input.readInt32());
+                break;
+            case DOCUMENT:
+            case ARRAY:
+            case JAVASCRIPT_WITH_SCOPE:
+                // the size includes the size itself
+                input.skip(input.readInt32() - 4);
+                break;
+            case BINARY:
+                // the size excludes the sub type
+                input.skip(input.readInt32() + 1);
+                break;
+            case DB_POINTER:
+                input.skip(input.readInt32() + 12);
+                break;
+            case REGULAR_EXPRESSION:
+                input.skipCString();
+                input.skipCString();
+                break;
+            case NULL:
+            case UNDEFINED:
+            case MIN_KEY:
+            case MAX_KEY:
+                break;
+            default:
+                throw new BsonSerializationException("Unexpected bson type " + bsonType + " while skipping elements.");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.bild.codec;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinarySubType;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Decoder;
+import org.bson.codecs.DecoderContext;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view of binary data, that can be used as pojo field type instead of byte[] for large binaries like
+ * images or PDFs.
+ * <p>
+ * Pojos decoded with {@link #decode(RawBsonDocument, Decoder)} reference the bytes of the raw document instead of
+ * copies, otherwise a view holds the copy created by the reader. Bytes are only copied on demand with
+ * {@link #toByteArray()}.
+ */
+public final class BinaryView {
+    private final byte type;
+    // read-only, starting at position 0
+    private final ByteBuffer buffer;
+    // the array, if the view covers a complete array
+    private final byte[] array;
+
+    private BinaryView(byte type, ByteBuffer buffer, byte[] array) {
+        this.type = type;
+        this.buffer = buffer;
+        this.array = array;
+    }
+
+    /**
+     * @param data the binary data, that is not copied and must not be modified afterwards
+     * @return a view of binary sub type {@link BsonBinarySubType#BINARY}
+     */
+    public static BinaryView of(byte[] data) {
+        return of(BsonBinarySubType.BINARY.getValue(), data);
+    }
+
+    /**
+     * @param type the binary sub type
+     * @param data the binary data, that is not copied and must not be modified afterwards
+     * @return the view
+     */
+    public static BinaryView of(byte type, byte[] data) {
+        return new BinaryView(type, ByteBuffer.wrap(data).asReadOnlyBuffer(), data);
+    }
+
+    static BinaryView slice(byte type, ByteBuffer source, int offset, int length) {
+        ByteBuffer duplicate = source.duplicate();
+        ((Buffer) duplicate).position(offset);
+        ((Buffer) duplicate).limit(offset + length);
+        return new BinaryView(type, duplicate.slice().asReadOnlyBuffer(), null);
+    }
+
+    /**
+     * Decodes the raw document, so that all {@link BinaryView} and {@link ByteBuffer} values within the result
+     * reference the bytes of the document instead of copies. The bytes of the document must not be modified afterwards.
+     *
+     * @param document the raw document
+     * @param decoder  the decoder, e.g. the codec of a pojo
+     * @param <T>      the type of the result
+     * @return the decoded value
+     */
+    public static <T> T decode(RawBsonDocument document, Decoder<T> decoder) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(new BinaryFieldReader.SharedBufferBsonInput(document.getByteBuffer().asNIO()))) {
+            return decoder.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int length() {
+        return buffer.limit();
+    }
+
+    public byte get(int index) {
+        return buffer.get(index);
+    }
+
+    /**
+     * @return a read-only buffer of the data, that is not copied
+     */
+    public ByteBuffer asByteBuffer() {
+        return buffer.duplicate();
+    }
+
+    /**
+     * @return a copy of the data
+     */
+    public byte[] toByteArray() {
+        byte[] copy = new byte[length()];
+        buffer.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * @return the data as array, copied only if the view does not cover a complete array
+     */
+    byte[] getData() {
+        return array != null ? array : toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BinaryView that = (BinaryView) o;
+        return type == that.type && buffer.equals(that.buffer);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type + buffer.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryView{type=" + type + ", length=" + length() + '}';
+    }
+}
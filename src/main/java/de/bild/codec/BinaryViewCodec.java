@@ -0,0 +1,65 @@
+package de.bild.codec;
+
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BsonInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec for {@link BinaryView}s. Binaries are sliced out of the buffer of a reader created by
+ * {@link BinaryView#decode(org.bson.RawBsonDocument, org.bson.codecs.Decoder)}, all other readers copy them once.
+ */
+public class BinaryViewCodec implements TypeCodec<BinaryView> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryViewCodec.class);
+
+    @Override
+    public void encode(BsonWriter writer, BinaryView value, EncoderContext encoderContext) {
+        writer.writeBinaryData(new BsonBinary(value.getType(), value.getData()));
+    }
+
+    @Override
+    public BinaryView decode(BsonReader reader, DecoderContext decoderContext) {
+        if (BsonType.BINARY.equals(reader.getCurrentBsonType())) {
+            return readBinaryView(reader);
+        }
+        LOGGER.warn("Expected {} from reader but got {}. Skipping value.", BsonType.BINARY, reader.getCurrentBsonType());
+        reader.skipValue();
+        return null;
+    }
+
+    /**
+     * Must only be called if the current bson type of the reader is {@link BsonType#BINARY}.
+     */
+    static BinaryView readBinaryView(BsonReader reader) {
+        BsonInput input = BinaryFieldReader.inputOf(reader);
+        ByteBuffer sharedBuffer = BinaryFieldReader.sharedBufferOf(input);
+        if (sharedBuffer == null) {
+            BsonBinary binary = reader.readBinaryData();
+            return BinaryView.of(binary.getType(), binary.getData());
+        }
+        int start = input.getPosition();
+        byte type = reader.peekBinarySubType();
+        reader.skipValue();
+        // size, sub type and data, old binaries repeat the size of the data
+        int length = sharedBuffer.getInt(start);
+        int offset = start + 5;
+        if (type == BsonBinarySubType.OLD_BINARY.getValue()) {
+            length = sharedBuffer.getInt(offset);
+            offset += 4;
+        }
+        return BinaryView.slice(type, sharedBuffer, offset, length);
+    }
+
+    @Override
+    public Class<BinaryView> getEncoderClass() {
+        return BinaryView.class;
+    }
+}
@@ -0,0 +1,47 @@
+package de.bild.codec;
+
+import org.bson.BsonBinary;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec for {@link ByteBuffer}s, that are written as binary of their remaining bytes and decoded as read-only
+ * buffers, see {@link BinaryViewCodec} for when binaries are copied.
+ */
+public class ByteBufferCodec implements TypeCodec<ByteBuffer> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ByteBufferCodec.class);
+
+    @Override
+    public void encode(BsonWriter writer, ByteBuffer value, EncoderContext encoderContext) {
+        byte[] data;
+        if (value.hasArray() && value.arrayOffset() == 0 && value.position() == 0 && value.remaining() == value.array().length) {
+            data = value.array();
+        } else {
+            data = new byte[value.remaining()];
+            value.duplicate().get(data);
+        }
+        writer.writeBinaryData(new BsonBinary(data));
+    }
+
+    @Override
+    public ByteBuffer decode(BsonReader reader, DecoderContext decoderContext) {
+        if (BsonType.BINARY.equals(reader.getCurrentBsonType())) {
+            return BinaryViewCodec.readBinaryView(reader).asByteBuffer();
+        }
+        LOGGER.warn("Expected {} from reader but got {}. Skipping value.", BsonType.BINARY, reader.getCurrentBsonType());
+        reader.skipValue();
+        return null;
+    }
+
+    @Override
+    public Class<ByteBuffer> getEncoderClass() {
+        return ByteBuffer.class;
+    }
+}
@@ -15,17 +15,37 @@ public class CodecConfiguration {
     private DecodeUndefinedHandlingStrategy.Strategy decodeUndefinedHandlingStrategy;
     private DecodingFieldFailureStrategy.Strategy decodingFieldFailureStrategy;
     private DecodingPojoFailureStrategy.Strategy decodingPojoFailureStrategy;
+    private boolean specializedCodecs;
+    private boolean hierarchicalDiscriminators;
+    private boolean packedArrays;
 
     public CodecConfiguration(boolean encodeNulls,
                               EncodeNullHandlingStrategy.Strategy encodeNullHandlingStrategy,
                               DecodeUndefinedHandlingStrategy.Strategy decodeUndefinedHandlingStrategy,
                               DecodingFieldFailureStrategy.Strategy decodingFieldFailureStrategy,
                               DecodingPojoFailureStrategy.Strategy decodingPojoFailureStrategy) {
+        this(encodeNulls, encodeNullHandlingStrategy, decodeUndefinedHandlingStrategy, decodingFieldFailureStrategy, decodingPojoFailureStrategy, false, false, false);
+    }
+
+    /**
+     * Used by {@link PojoCodecProvider.Builder}, which names the further options
+     */
+    CodecConfiguration(boolean encodeNulls,
+                       EncodeNullHandlingStrategy.Strategy encodeNullHandlingStrategy,
+                       DecodeUndefinedHandlingStrategy.Strategy decodeUndefinedHandlingStrategy,
+                       DecodingFieldFailureStrategy.Strategy decodingFieldFailureStrategy,
+                       DecodingPojoFailureStrategy.Strategy decodingPojoFailureStrategy,
+                       boolean specializedCodecs,
+                       boolean hierarchicalDiscriminators,
+                       boolean packedArrays) {
         this.encodeNulls = encodeNulls;
         this.encodeNullHandlingStrategy = encodeNullHandlingStrategy;
         this.decodeUndefinedHandlingStrategy = decodeUndefinedHandlingStrategy;
         this.decodingFieldFailureStrategy = decodingFieldFailureStrategy;
         this.decodingPojoFailureStrategy = decodingPojoFailureStrategy;
+        this.specializedCodecs = specializedCodecs;
+        this.hierarchicalDiscriminators = hierarchicalDiscriminators;
+        this.packedArrays = packedArrays;
     }
 
     public boolean isEncodeNulls() {
@@ -47,4 +67,16 @@ public class CodecConfiguration {
     public DecodingPojoFailureStrategy.Strategy getDecodingPojoFailureStrategy() {
         return decodingPojoFailureStrategy;
     }
+
+    public boolean isSpecializedCodecs() {
+        return specializedCodecs;
+    }
+
+    public boolean isHierarchicalDiscriminators() {
+        return hierarchicalDiscriminators;
+    }
+
+    public boolean isPackedArrays() {
+        return packedArrays;
+    }
 }
@@ -0,0 +1,162 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.DecodingPojoFailureStrategy;
+import org.bson.BsonReader;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds {@link CollectibleCodec} functionality to a collectible {@link TypeCodec}.
+ * <p>
+ * All calls are plain delegations to the wrapped codec. Use {@link #wrap(TypeCodec)} to retrieve a wrapper that also
+ * implements {@link PolymorphicCodec} or {@link ReflectionCodec} if the wrapped codec does.
+ * The wrapped codec can be retrieved via {@link DelegatingCodec#getDelegate()}.
+ *
+ * @param <T> the value type
+ */
+class CollectibleTypeCodec<T> implements TypeCodec<T>, CollectibleCodec<T>, DelegatingCodec<T> {
+    final TypeCodec<T> delegate;
+
+    CollectibleTypeCodec(TypeCodec<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    static <T> CollectibleTypeCodec<T> wrap(TypeCodec<T> typeCodec) {
+        if (typeCodec instanceof ReflectionCodec) {
+            return new CollectibleReflectionCodec<>((ReflectionCodec<T>) typeCodec);
+        } else if (typeCodec instanceof PolymorphicCodec) {
+            return new CollectiblePolymorphicCodec<>((PolymorphicCodec<T>) typeCodec);
+        }
+        return new CollectibleTypeCodec<>(typeCodec);
+    }
+
+    @Override
+    public TypeCodec<T> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        return delegate.decode(reader, decoderContext);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+        delegate.encode(writer, value, encoderContext);
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return delegate.getEncoderClass();
+    }
+
+    @Override
+    public T generateIdIfAbsentFromDocument(T document) {
+        return delegate.generateIdIfAbsentFromDocument(document);
+    }
+
+    @Override
+    public boolean documentHasId(T document) {
+        return delegate.documentHasId(document);
+    }
+
+    @Override
+    public BsonValue getDocumentId(T document) {
+        return delegate.getDocumentId(document);
+    }
+
+    @Override
+    public T defaultInstance() {
+        return delegate.defaultInstance();
+    }
+
+    @Override
+    public boolean isCollectible() {
+        return delegate.isCollectible();
+    }
+
+    @Override
+    public Bson getTypeFilter() {
+        return delegate.getTypeFilter();
+    }
+
+    @Override
+    public DecodingPojoFailureStrategy.Strategy getDecodingPojoFailureStrategy() {
+        return delegate.getDecodingPojoFailureStrategy();
+    }
+
+    @Override
+    public String toString() {
+        return "CollectibleTypeCodec{delegate=" + delegate + '}';
+    }
+
+    static class CollectiblePolymorphicCodec<T> extends CollectibleTypeCodec<T> implements PolymorphicCodec<T> {
+        final PolymorphicCodec<T> polymorphicCodec;
+
+        CollectiblePolymorphicCodec(PolymorphicCodec<T> delegate) {
+            super(delegate);
+            this.polymorphicCodec = delegate;
+        }
+
+        @Override
+        public T decodeFields(BsonReader reader, DecoderContext decoderContext, T instance) {
+            return polymorphicCodec.decodeFields(reader, decoderContext, instance);
+        }
+
+        @Override
+        public void encodeFields(BsonWriter writer, T instance, EncoderContext encoderContext) {
+            polymorphicCodec.encodeFields(writer, instance, encoderContext);
+        }
+
+        @Override
+        public T newInstance() {
+            return polymorphicCodec.newInstance();
+        }
+
+        @Override
+        public void verifyFieldsNotNamedLikeAnyDiscriminatorKey(Set<String> discriminatorKeys) throws IllegalArgumentException {
+            polymorphicCodec.verifyFieldsNotNamedLikeAnyDiscriminatorKey(discriminatorKeys);
+        }
+    }
+
+    static class CollectibleReflectionCodec<T> extends CollectiblePolymorphicCodec<T> implements ReflectionCodec<T> {
+        final ReflectionCodec<T> reflectionCodec;
+
+        CollectibleReflectionCodec(ReflectionCodec<T> delegate) {
+            super(delegate);
+            this.reflectionCodec = delegate;
+        }
+
+        @Override
+        public Map<String, MappedField> getPersistenceFields() {
+            return reflectionCodec.getPersistenceFields();
+        }
+
+        @Override
+        public MappedField getMappedField(String mappedFieldName) {
+            return reflectionCodec.getMappedField(mappedFieldName);
+        }
+
+        @Override
+        public void postDecode(T instance) {
+            reflectionCodec.postDecode(instance);
+        }
+
+        @Override
+        public void preEncode(T instance) {
+            reflectionCodec.preEncode(instance);
+        }
+
+        @Override
+        public void verifyFieldsNotNamedLikeAnyDiscriminatorKey(Set<String> discriminatorKeys) throws IllegalArgumentException {
+            reflectionCodec.verifyFieldsNotNamedLikeAnyDiscriminatorKey(discriminatorKeys);
+        }
+    }
+}
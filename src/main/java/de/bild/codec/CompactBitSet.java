@@ -0,0 +1,62 @@
+package de.bild.codec;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable bit set, that only stores the words from its lowest to its highest set bit. Class ids within the
+ * {@link TypesModel} are assigned in hierarchy order, so the sub types of a class occupy few words.
+ */
+final class CompactBitSet {
+    static final CompactBitSet EMPTY = new CompactBitSet(0, new long[0]);
+
+    private final int firstWord;
+    private final long[] words;
+    private final int cardinality;
+
+    private CompactBitSet(int firstWord, long[] words) {
+        this.firstWord = firstWord;
+        this.words = words;
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        this.cardinality = cardinality;
+    }
+
+    static CompactBitSet of(BitSet bitSet) {
+        if (bitSet.isEmpty()) {
+            return EMPTY;
+        }
+        int firstWord = bitSet.nextSetBit(0) >>> 6;
+        long[] words = bitSet.toLongArray();
+        return new CompactBitSet(firstWord, Arrays.copyOfRange(words, firstWord, words.length));
+    }
+
+    boolean get(int bit) {
+        int word = (bit >>> 6) - firstWord;
+        return word >= 0 && word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return the number of words stored
+     */
+    int wordCount() {
+        return words.length;
+    }
+
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                consumer.accept(((firstWord + i) << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package de.bild.codec;
+
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonSerializationException;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Codec for sequences of longs, that writes the differences between consecutive values as zig-zag encoded variable
+ * length integers (7 bits per byte, least significant group first) into a single binary
+ * (sub type {@link BsonBinarySubType#USER_DEFINED}):
+ * <pre>
+ * byte       format (16, to be distinguished from the element types of {@link PackedArrayCodec})
+ * varint     number of values
+ * varint...  zig-zag encoded difference to the preceding value (the first value is the difference to 0)
+ * </pre>
+ * Sorted and densely spaced values like time stamps or ids need one or two bytes per value.
+ * Values stored as bson arrays are decoded by the legacy codec, which also writes lists containing nulls.
+ * <p>
+ * Fields are annotated with {@link de.bild.codec.annotations.DeltaEncoded} or with
+ * {@link de.bild.codec.annotations.CodecToBeUsed} and one of the sub classes {@link LongArrayCodec} or
+ * {@link LongListCodec}.
+ *
+ * @param <T> long[] or a list of longs
+ */
+public abstract class DeltaVarintCodec<T> implements TypeCodec<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeltaVarintCodec.class);
+    static final byte SUB_TYPE = BsonBinarySubType.USER_DEFINED.getValue();
+    static final byte FORMAT = 16;
+
+    final Class<T> encoderClass;
+    final Codec<T> legacyCodec;
+
+    protected DeltaVarintCodec(Class<T> encoderClass, Codec<T> legacyCodec) {
+        this.encoderClass = encoderClass;
+        this.legacyCodec = legacyCodec;
+    }
+
+    /**
+     * @return a codec for the field type or null, if the type is neither long[] nor a list type
+     * {@link LongArrayList} can be assigned to
+     */
+    @SuppressWarnings("unchecked")
+    static <F> Codec<F> forType(Type type, Codec<F> legacyCodec) {
+        Class<?> rawClass = ReflectionHelper.extractRawClass(type);
+        if (rawClass == long[].class) {
+            return (Codec<F>) new LongArrayCodec((Codec<long[]>) legacyCodec);
+        }
+        if (rawClass != null && Collection.class.isAssignableFrom(rawClass) && rawClass.isAssignableFrom(LongArrayList.class)) {
+            Type valueType = TypeUtils.getTypeArguments(type, Collection.class).get(Collection.class.getTypeParameters()[0]);
+            if (Long.class.equals(valueType)) {
+                return (Codec<F>) new LongListCodec((Codec<List<Long>>) legacyCodec);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the values (the array may be longer than {@link #size(Object)}) or null, if they cannot be delta encoded
+     */
+    protected abstract long[] values(T value);
+
+    protected abstract int size(T value);
+
+    protected abstract T fromValues(long[] values);
+
+    @Override
+    public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+        long[] values = values(value);
+        if (values == null) {
+            legacyCodec.encode(writer, value, encoderContext);
+            return;
+        }
+        int size = size(value);
+        int length = 1 + varintSize(size);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            length += varintSize(zigZag(values[i] - previous));
+            previous = values[i];
+        }
+        byte[] data = new byte[length];
+        data[0] = FORMAT;
+        int position = writeVarint(data, 1, size);
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            position = writeVarint(data, position, zigZag(values[i] - previous));
+            previous = values[i];
+        }
+        writer.writeBinaryData(new BsonBinary(SUB_TYPE, data));
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        if (!BsonType.BINARY.equals(reader.getCurrentBsonType())) {
+            return legacyCodec.decode(reader, decoderContext);
+        }
+        if (reader.peekBinarySubType() != SUB_TYPE) {
+            LOGGER.warn("Expected binary sub type {} for {} but got {}. Skipping value.", SUB_TYPE, encoderClass, reader.peekBinarySubType());
+            reader.skipValue();
+            return null;
+        }
+        byte[] data = reader.readBinaryData().getData();
+        if (data.length == 0 || data[0] != FORMAT) {
+            LOGGER.warn("Binary is not delta encoded. Skipping value.");
+            return null;
+        }
+        VarintReader varintReader = new VarintReader(data, 1);
+        long size = varintReader.read();
+        // every value takes at least one byte, which also bounds the size by Integer.MAX_VALUE
+        if (size < 0 || size > data.length - varintReader.position) {
+            throw new BsonSerializationException("Delta encoded binary of " + data.length + " bytes can not hold " + size + " values.");
+        }
+        long[] values = new long[(int) size];
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            previous += unZigZag(varintReader.read());
+            values[i] = previous;
+        }
+        if (varintReader.position != data.length) {
+            throw new BsonSerializationException("Delta encoded binary has " + (data.length - varintReader.position) + " trailing bytes.");
+        }
+        return fromValues(values);
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return encoderClass;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varintSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    static int writeVarint(byte[] data, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+
+    private static final class VarintReader {
+        final byte[] data;
+        int position;
+
+        VarintReader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        long read() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position == data.length) {
+                    throw new BsonSerializationException("Delta encoded binary ends within a value.");
+                }
+                byte b = data[position++];
+                // the 10th byte holds the most significant bit only and ends the value
+                if (shift == 63 && (b & 0xFF) > 1) {
+                    throw new BsonSerializationException("Delta encoded value exceeds 64 bits.");
+                }
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new BsonSerializationException("Delta encoded value exceeds 64 bits.");
+        }
+    }
+
+    /**
+     * Codec for long[], that can be used with {@link de.bild.codec.annotations.CodecToBeUsed}
+     */
+    public static class LongArrayCodec extends DeltaVarintCodec<long[]> {
+        public LongArrayCodec(TypeCodecRegistry typeCodecRegistry) {
+            this(typeCodecRegistry.getCodec(long[].class));
+        }
+
+        public LongArrayCodec(Codec<long[]> legacyCodec) {
+            super(long[].class, legacyCodec);
+        }
+
+        @Override
+        protected long[] values(long[] value) {
+            return value;
+        }
+
+        @Override
+        protected int size(long[] value) {
+            return value.length;
+        }
+
+        @Override
+        protected long[] fromValues(long[] values) {
+            return values;
+        }
+    }
+
+    /**
+     * Codec for lists of longs, that can be used with {@link de.bild.codec.annotations.CodecToBeUsed}.
+     * Lists are decoded as {@link LongArrayList}.
+     */
+    public static class LongListCodec extends DeltaVarintCodec<List<Long>> {
+        public LongListCodec(TypeCodecRegistry typeCodecRegistry) {
+            this(typeCodecRegistry.getCodec(TypeUtils.parameterize(List.class, Long.class)));
+        }
+
+        @SuppressWarnings("unchecked")
+        public LongListCodec(Codec<List<Long>> legacyCodec) {
+            super((Class<List<Long>>) (Class<?>) List.class, legacyCodec);
+        }
+
+        @Override
+        protected long[] values(List<Long> value) {
+            if (value instanceof LongArrayList) {
+                return ((LongArrayList) value).elements;
+            }
+            long[] values = new long[value.size()];
+            int i = 0;
+            for (Long aLong : value) {
+                if (aLong == null) {
+                    return null;
+                }
+                values[i++] = aLong;
+            }
+            return values;
+        }
+
+        @Override
+        protected int size(List<Long> value) {
+            return value.size();
+        }
+
+        @Override
+        protected List<Long> fromValues(long[] values) {
+            return LongArrayList.wrap(values);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.bild.codec;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of doubles backed by a primitive double[]. Values are only boxed when accessed via the {@link java.util.List}
+ * methods, use {@link #getDouble(int)}, {@link #addDouble(double)} and {@link #setDouble(int, double)} to avoid boxing.
+ * Null elements are not supported.
+ */
+public class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+    private static final double[] EMPTY = new double[0];
+
+    double[] elements;
+    int size;
+
+    public DoubleArrayList() {
+        this.elements = EMPTY;
+    }
+
+    public DoubleArrayList(int initialCapacity) {
+        this.elements = new double[initialCapacity];
+    }
+
+    /**
+     * @param values the values, that are copied
+     * @return a list of the values
+     */
+    public static DoubleArrayList of(double... values) {
+        return wrap(values.clone());
+    }
+
+    /**
+     * Uses the given array without copying.
+     */
+    static DoubleArrayList wrap(double[] elements) {
+        DoubleArrayList list = new DoubleArrayList();
+        list.elements = elements;
+        list.size = elements.length;
+        return list;
+    }
+
+    public double getDouble(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public double setDouble(int index, double value) {
+        checkIndex(index);
+        double previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    public void addDouble(double value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    public void addDouble(int index, double value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == elements.length) {
+            grow();
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    public double removeDouble(int index) {
+        checkIndex(index);
+        double previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, Double value) {
+        return setDouble(index, value);
+    }
+
+    @Override
+    public void add(int index, Double value) {
+        addDouble(index, value);
+    }
+
+    @Override
+    public boolean add(Double value) {
+        addDouble(value);
+        return true;
+    }
+
+    @Override
+    public Double remove(int index) {
+        return removeDouble(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof Double) {
+            // equal like Double.equals(), hence NaN is found and 0.0 and -0.0 are different
+            long bits = Double.doubleToLongBits((Double) o);
+            for (int i = 0; i < size; i++) {
+                if (Double.doubleToLongBits(elements[i]) == bits) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private void grow() {
+        elements = Arrays.copyOf(elements, Math.max(10, elements.length + (elements.length >> 1)));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
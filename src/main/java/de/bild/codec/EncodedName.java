@@ -0,0 +1,135 @@
+package de.bild.codec;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.io.BsonOutput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The name of a bson element encoded once as CString.
+ * <p>
+ * If the writer is a plain {@link BsonBinaryWriter}, elements are written straight into its {@link BsonOutput}: type,
+ * pre-encoded name and value. This bypasses the state checks and the field name validation of the writer, so it is only
+ * done for names that pass any field name validator (no '$' prefix, no '.') and only for complete elements written
+ * while the writer expects a name, e.g. within {@link PolymorphicCodec#encodeFields}. For any other writer the
+ * element is written through the {@link BsonWriter} API.
+ */
+final class EncodedName {
+    final String name;
+    // the UTF-8 bytes of the name (without terminating zero), used to match names while decoding
+    final byte[] utf8;
+    // null, if the name needs to be validated by the writer
+    private final byte[] cString;
+
+    EncodedName(String name) {
+        this.name = name;
+        this.utf8 = name.getBytes(StandardCharsets.UTF_8);
+        this.cString = isSafe(name) ? toCString(utf8) : null;
+    }
+
+    private static boolean isSafe(String name) {
+        return !name.isEmpty() && !name.startsWith("$") && name.indexOf('.') < 0 && name.indexOf('\0') < 0;
+    }
+
+    private static byte[] toCString(byte[] utf8) {
+        byte[] cString = new byte[utf8.length + 1];
+        System.arraycopy(utf8, 0, cString, 0, utf8.length);
+        return cString;
+    }
+
+    /**
+     * Encodes a string value as it is written by {@link BsonOutput#writeString(String)}: length, UTF-8 bytes and
+     * terminating zero. Use with {@link #writeString(BsonWriter, String, byte[])}.
+     */
+    static byte[] encodeStringValue(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + utf8.length + 1).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(utf8.length + 1);
+        buffer.put(utf8);
+        buffer.put((byte) 0);
+        return buffer.array();
+    }
+
+    /**
+     * Writes type and name of the next element.
+     *
+     * @return the output to write the value to or null, if the name has been written through
+     * {@link BsonWriter#writeName(String)} and the value needs to be written by the writer as well
+     */
+    private BsonOutput writeName(BsonWriter writer, BsonType bsonType) {
+        if (cString != null && writer.getClass() == BsonBinaryWriter.class) {
+            BsonOutput output = ((BsonBinaryWriter) writer).getBsonOutput();
+            output.writeByte(bsonType.getValue());
+            output.writeBytes(cString);
+            return output;
+        }
+        writer.writeName(name);
+        return null;
+    }
+
+    /**
+     * Writes just the name, the value is written by a codec
+     */
+    void writeName(BsonWriter writer) {
+        writer.writeName(name);
+    }
+
+    void writeInt32(BsonWriter writer, int value) {
+        BsonOutput output = writeName(writer, BsonType.INT32);
+        if (output != null) {
+            output.writeInt32(value);
+        } else {
+            writer.writeInt32(value);
+        }
+    }
+
+    void writeInt64(BsonWriter writer, long value) {
+        BsonOutput output = writeName(writer, BsonType.INT64);
+        if (output != null) {
+            output.writeInt64(value);
+        } else {
+            writer.writeInt64(value);
+        }
+    }
+
+    void writeDouble(BsonWriter writer, double value) {
+        BsonOutput output = writeName(writer, BsonType.DOUBLE);
+        if (output != null) {
+            output.writeDouble(value);
+        } else {
+            writer.writeDouble(value);
+        }
+    }
+
+    void writeBoolean(BsonWriter writer, boolean value) {
+        BsonOutput output = writeName(writer, BsonType.BOOLEAN);
+        if (output != null) {
+            output.writeByte(value ? 1 : 0);
+        } else {
+            writer.writeBoolean(value);
+        }
+    }
+
+    void writeNull(BsonWriter writer) {
+        if (writeName(writer, BsonType.NULL) == null) {
+            writer.writeNull();
+        }
+    }
+
+    /**
+     * @param value        the string value
+     * @param encodedValue the value encoded by {@link #encodeStringValue(String)}
+     */
+    void writeString(BsonWriter writer, String value, byte[] encodedValue) {
+        BsonOutput output = writeName(writer, BsonType.STRING);
+        if (output != null) {
+            output.writeBytes(encodedValue);
+        } else {
+            writer.writeString(value);
+        }
+    }
+}
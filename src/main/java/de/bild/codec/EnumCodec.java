@@ -18,10 +18,16 @@ public class EnumCodec<T extends Enum<T>> implements Codec<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(EnumCodec.class);
 
     final Class<T> clazz;
+    // the names of the enum constants by ordinal, encoded as string values
+    private final byte[][] encodedNames;
 
     public EnumCodec(Class<T> clazz) {
         this.clazz = clazz;
-
+        T[] enumConstants = clazz.getEnumConstants();
+        this.encodedNames = new byte[enumConstants != null ? enumConstants.length : 0][];
+        for (int i = 0; i < encodedNames.length; i++) {
+            encodedNames[i] = EncodedName.encodeStringValue(enumConstants[i].name());
+        }
     }
 
     @Override
@@ -47,6 +53,19 @@ public class EnumCodec<T extends Enum<T>> implements Codec<T> {
         writer.writeString(value.name());
     }
 
+    /**
+     * Writes the enum value as element with the given name, using the pre-encoded name of the enum constant.
+     */
+    void encode(EncodedName encodedName, BsonWriter writer, T value) {
+        int ordinal = value.ordinal();
+        if (ordinal < encodedNames.length && value.getDeclaringClass() == clazz) {
+            encodedName.writeString(writer, value.name(), encodedNames[ordinal]);
+        } else {
+            encodedName.writeName(writer);
+            writer.writeString(value.name());
+        }
+    }
+
     @Override
     public Class<T> getEncoderClass() {
         return clazz;
@@ -0,0 +1,393 @@
+package de.bild.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes the value of a single pojo field.
+ * <p>
+ * Accessors are bound once per {@link MappedField}. The default implementation uses {@link MethodHandle}s adapted to
+ * an exact (erased) signature, with one specialized getter/setter pair for each primitive type, so primitive values are
+ * never boxed. If a field cannot be bound to a method handle (e.g. final fields or a restricting security manager),
+ * the accessor falls back to plain {@link Field} reflection.
+ * <p>
+ * Only the getter/setter matching the declared field type must be used. Calling e.g. {@link #getInt(Object)} on an accessor
+ * for a long field is a programming error.
+ */
+abstract class FieldAccessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FieldAccessor.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    final Field field;
+
+    FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * @param field the field to access, accessibility will be set to true
+     * @return a method handle based accessor or a reflection based accessor if the field cannot be bound
+     */
+    static FieldAccessor of(Field field) {
+        field.setAccessible(true);
+        try {
+            return new MethodHandleFieldAccessor(field);
+        } catch (IllegalAccessException | SecurityException e) {
+            LOGGER.debug("Could not bind method handles for field {}. Falling back to reflection.", field, e);
+            return new ReflectionFieldAccessor(field);
+        }
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    abstract Object get(Object instance) throws IllegalAccessException;
+
+    abstract void set(Object instance, Object value) throws IllegalAccessException;
+
+    abstract byte getByte(Object instance) throws IllegalAccessException;
+
+    abstract void setByte(Object instance, byte value) throws IllegalAccessException;
+
+    abstract boolean getBoolean(Object instance) throws IllegalAccessException;
+
+    abstract void setBoolean(Object instance, boolean value) throws IllegalAccessException;
+
+    abstract char getChar(Object instance) throws IllegalAccessException;
+
+    abstract void setChar(Object instance, char value) throws IllegalAccessException;
+
+    abstract short getShort(Object instance) throws IllegalAccessException;
+
+    abstract void setShort(Object instance, short value) throws IllegalAccessException;
+
+    abstract int getInt(Object instance) throws IllegalAccessException;
+
+    abstract void setInt(Object instance, int value) throws IllegalAccessException;
+
+    abstract long getLong(Object instance) throws IllegalAccessException;
+
+    abstract void setLong(Object instance, long value) throws IllegalAccessException;
+
+    abstract float getFloat(Object instance) throws IllegalAccessException;
+
+    abstract void setFloat(Object instance, float value) throws IllegalAccessException;
+
+    abstract double getDouble(Object instance) throws IllegalAccessException;
+
+    abstract void setDouble(Object instance, double value) throws IllegalAccessException;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{field=" + field + '}';
+    }
+
+    /**
+     * Accessor based on method handles. The handles are adapted to (Object)X and (Object,X)void where X is the primitive
+     * field type or Object, so every call site can use {@link MethodHandle#invokeExact}. {@link #get(Object)} and
+     * {@link #set(Object, Object)} use a second pair adapted to (Object)Object and (Object,Object)void, which boxes and
+     * unboxes primitive values within the handle.
+     */
+    static final class MethodHandleFieldAccessor extends FieldAccessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final MethodHandle objectGetter;
+        private final MethodHandle objectSetter;
+
+        MethodHandleFieldAccessor(Field field) throws IllegalAccessException {
+            super(field);
+            Class<?> valueType = field.getType().isPrimitive() ? field.getType() : Object.class;
+            MethodHandle fieldGetter = LOOKUP.unreflectGetter(field);
+            MethodHandle fieldSetter = LOOKUP.unreflectSetter(field);
+            this.getter = fieldGetter.asType(MethodType.methodType(valueType, Object.class));
+            this.setter = fieldSetter.asType(MethodType.methodType(void.class, Object.class, valueType));
+            this.objectGetter = fieldGetter.asType(MethodType.methodType(Object.class, Object.class));
+            this.objectSetter = fieldSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        }
+
+        @Override
+        Object get(Object instance) {
+            try {
+                return (Object) objectGetter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void set(Object instance, Object value) {
+            try {
+                objectSetter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        byte getByte(Object instance) {
+            try {
+                return (byte) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setByte(Object instance, byte value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        boolean getBoolean(Object instance) {
+            try {
+                return (boolean) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setBoolean(Object instance, boolean value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        char getChar(Object instance) {
+            try {
+                return (char) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setChar(Object instance, char value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        short getShort(Object instance) {
+            try {
+                return (short) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setShort(Object instance, short value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        int getInt(Object instance) {
+            try {
+                return (int) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setInt(Object instance, int value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        long getLong(Object instance) {
+            try {
+                return (long) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setLong(Object instance, long value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        float getFloat(Object instance) {
+            try {
+                return (float) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setFloat(Object instance, float value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        @Override
+        double getDouble(Object instance) {
+            try {
+                return (double) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, null);
+            }
+        }
+
+        @Override
+        void setDouble(Object instance, double value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t, instance, value);
+            }
+        }
+
+        /**
+         * Translates failures into the exceptions {@link Field} would have thrown, so callers can keep their error handling.
+         */
+        private RuntimeException rethrow(Throwable t, Object instance, Object value) {
+            // values of the wrong type, or null for a primitive field
+            if (t instanceof ClassCastException || (t instanceof NullPointerException && instance != null && value == null && field.getType().isPrimitive())) {
+                return new IllegalArgumentException("Can not access field " + field + " on " + instance + " with value " + value, t);
+            }
+            if (t instanceof RuntimeException) {
+                return (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            return new IllegalStateException("Unexpected exception while accessing field " + field, t);
+        }
+    }
+
+    /**
+     * Fallback accessor based on {@link Field}
+     */
+    static final class ReflectionFieldAccessor extends FieldAccessor {
+
+        ReflectionFieldAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        Object get(Object instance) throws IllegalAccessException {
+            return field.get(instance);
+        }
+
+        @Override
+        void set(Object instance, Object value) throws IllegalAccessException {
+            field.set(instance, value);
+        }
+
+        @Override
+        byte getByte(Object instance) throws IllegalAccessException {
+            return field.getByte(instance);
+        }
+
+        @Override
+        void setByte(Object instance, byte value) throws IllegalAccessException {
+            field.setByte(instance, value);
+        }
+
+        @Override
+        boolean getBoolean(Object instance) throws IllegalAccessException {
+            return field.getBoolean(instance);
+        }
+
+        @Override
+        void setBoolean(Object instance, boolean value) throws IllegalAccessException {
+            field.setBoolean(instance, value);
+        }
+
+        @Override
+        char getChar(Object instance) throws IllegalAccessException {
+            return field.getChar(instance);
+        }
+
+        @Override
+        void setChar(Object instance, char value) throws IllegalAccessException {
+            field.setChar(instance, value);
+        }
+
+        @Override
+        short getShort(Object instance) throws IllegalAccessException {
+            return field.getShort(instance);
+        }
+
+        @Override
+        void setShort(Object instance, short value) throws IllegalAccessException {
+            field.setShort(instance, value);
+        }
+
+        @Override
+        int getInt(Object instance) throws IllegalAccessException {
+            return field.getInt(instance);
+        }
+
+        @Override
+        void setInt(Object instance, int value) throws IllegalAccessException {
+            field.setInt(instance, value);
+        }
+
+        @Override
+        long getLong(Object instance) throws IllegalAccessException {
+            return field.getLong(instance);
+        }
+
+        @Override
+        void setLong(Object instance, long value) throws IllegalAccessException {
+            field.setLong(instance, value);
+        }
+
+        @Override
+        float getFloat(Object instance) throws IllegalAccessException {
+            return field.getFloat(instance);
+        }
+
+        @Override
+        void setFloat(Object instance, float value) throws IllegalAccessException {
+            field.setFloat(instance, value);
+        }
+
+        @Override
+        double getDouble(Object instance) throws IllegalAccessException {
+            return field.getDouble(instance);
+        }
+
+        @Override
+        void setDouble(Object instance, double value) throws IllegalAccessException {
+            field.setDouble(instance, value);
+        }
+    }
+}
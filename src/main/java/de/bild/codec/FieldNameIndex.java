@@ -0,0 +1,127 @@
+package de.bild.codec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup of field ordinals by mapped field name, built once per codec.
+ * <p>
+ * Names are bucketed by their length. Within a bucket, the names are dispatched by the character at the position that
+ * distinguishes most names of that length. So a lookup reads the length and one character of the incoming name and
+ * compares it with (usually) a single candidate. The incoming name is never hashed.
+ */
+final class FieldNameIndex {
+    private final Bucket[] bucketsByLength;
+
+    /**
+     * @param names the mapped field names, the position within the list is the ordinal of the field
+     */
+    FieldNameIndex(List<String> names) {
+        int maxLength = -1;
+        for (String name : names) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+        List<List<Integer>> ordinalsByLength = new ArrayList<>();
+        for (int i = 0; i <= maxLength; i++) {
+            ordinalsByLength.add(new ArrayList<>());
+        }
+        for (int ordinal = 0; ordinal < names.size(); ordinal++) {
+            ordinalsByLength.get(names.get(ordinal).length()).add(ordinal);
+        }
+
+        this.bucketsByLength = new Bucket[maxLength + 1];
+        for (int length = 0; length <= maxLength; length++) {
+            List<Integer> ordinals = ordinalsByLength.get(length);
+            if (!ordinals.isEmpty()) {
+                bucketsByLength[length] = new Bucket(names, ordinals, length);
+            }
+        }
+    }
+
+    /**
+     * @param name a field name as read from the database
+     * @return the ordinal of the mapped field or -1 if the name is not mapped
+     */
+    int indexOf(String name) {
+        int length = name.length();
+        if (length >= bucketsByLength.length) {
+            return -1;
+        }
+        Bucket bucket = bucketsByLength[length];
+        return bucket != null ? bucket.indexOf(name) : -1;
+    }
+
+    /**
+     * All names of one length, grouped by the character at {@link #position}
+     */
+    private static final class Bucket {
+        private final int position;
+        private final char[] keys;
+        private final String[][] names;
+        private final int[][] ordinals;
+
+        Bucket(List<String> allNames, List<Integer> bucketOrdinals, int length) {
+            this.position = distinguishingPosition(allNames, bucketOrdinals, length);
+            Map<Character, List<Integer>> ordinalsByKey = new LinkedHashMap<>();
+            for (Integer ordinal : bucketOrdinals) {
+                char key = position < length ? allNames.get(ordinal).charAt(position) : 0;
+                ordinalsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(ordinal);
+            }
+            this.keys = new char[ordinalsByKey.size()];
+            this.names = new String[ordinalsByKey.size()][];
+            this.ordinals = new int[ordinalsByKey.size()][];
+            int i = 0;
+            for (Map.Entry<Character, List<Integer>> entry : ordinalsByKey.entrySet()) {
+                keys[i] = entry.getKey();
+                List<Integer> group = entry.getValue();
+                names[i] = new String[group.size()];
+                ordinals[i] = new int[group.size()];
+                for (int j = 0; j < group.size(); j++) {
+                    names[i][j] = allNames.get(group.get(j));
+                    ordinals[i][j] = group.get(j);
+                }
+                i++;
+            }
+        }
+
+        /**
+         * @return the position with the most distinct characters among the names of the bucket
+         */
+        private static int distinguishingPosition(List<String> allNames, List<Integer> bucketOrdinals, int length) {
+            int bestPosition = 0;
+            int bestDistinctCount = 0;
+            for (int position = 0; position < length && bestDistinctCount < bucketOrdinals.size(); position++) {
+                StringBuilder distinct = new StringBuilder();
+                for (Integer ordinal : bucketOrdinals) {
+                    char c = allNames.get(ordinal).charAt(position);
+                    if (distinct.indexOf(String.valueOf(c)) < 0) {
+                        distinct.append(c);
+                    }
+                }
+                if (distinct.length() > bestDistinctCount) {
+                    bestDistinctCount = distinct.length();
+                    bestPosition = position;
+                }
+            }
+            return bestPosition;
+        }
+
+        int indexOf(String name) {
+            char key = position < name.length() ? name.charAt(position) : 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    String[] candidates = names[i];
+                    for (int j = 0; j < candidates.length; j++) {
+                        if (candidates[j].equals(name)) {
+                            return ordinals[i][j];
+                        }
+                    }
+                    return -1;
+                }
+            }
+            return -1;
+        }
+    }
+}
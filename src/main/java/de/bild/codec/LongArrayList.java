@@ -0,0 +1,154 @@
+package de.bild.codec;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of longs backed by a primitive long[]. Values are only boxed when accessed via the {@link java.util.List}
+ * methods, use {@link #getLong(int)}, {@link #addLong(long)} and {@link #setLong(int, long)} to avoid boxing.
+ * Null elements are not supported.
+ */
+public class LongArrayList extends AbstractList<Long> implements RandomAccess {
+    private static final long[] EMPTY = new long[0];
+
+    long[] elements;
+    int size;
+
+    public LongArrayList() {
+        this.elements = EMPTY;
+    }
+
+    public LongArrayList(int initialCapacity) {
+        this.elements = new long[initialCapacity];
+    }
+
+    /**
+     * @param values the values, that are copied
+     * @return a list of the values
+     */
+    public static LongArrayList of(long... values) {
+        return wrap(values.clone());
+    }
+
+    /**
+     * Uses the given array without copying.
+     */
+    static LongArrayList wrap(long[] elements) {
+        LongArrayList list = new LongArrayList();
+        list.elements = elements;
+        list.size = elements.length;
+        return list;
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public long setLong(int index, long value) {
+        checkIndex(index);
+        long previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    public void addLong(long value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    public void addLong(int index, long value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == elements.length) {
+            grow();
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+        modCount++;
+    }
+
+    public long removeLong(int index) {
+        checkIndex(index);
+        long previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        return setLong(index, value);
+    }
+
+    @Override
+    public void add(int index, Long value) {
+        addLong(index, value);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        addLong(value);
+        return true;
+    }
+
+    @Override
+    public Long remove(int index) {
+        return removeLong(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof Long) {
+            long value = (Long) o;
+            for (int i = 0; i < size; i++) {
+                if (elements[i] == value) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private void grow() {
+        elements = Arrays.copyOf(elements, Math.max(10, elements.length + (elements.length >> 1)));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
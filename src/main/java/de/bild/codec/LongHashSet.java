@@ -0,0 +1,200 @@
+package de.bild.codec;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of longs backed by primitive arrays: the values are kept densely in a long[] and an open addressing table
+ * holds their indices. Values are only boxed when accessed via the {@link java.util.Set} methods, use
+ * {@link #addLong(long)}, {@link #containsLong(long)} and {@link #removeLong(long)} to avoid boxing.
+ * Iteration follows insertion order as long as no value is removed. Null elements are not supported.
+ */
+public class LongHashSet extends AbstractSet<Long> {
+    long[] values;
+    int size;
+    // index + 1 of the value within values, 0 for empty slots; the length is a power of two
+    private int[] table;
+
+    public LongHashSet() {
+        this(8);
+    }
+
+    public LongHashSet(int expectedSize) {
+        this.values = new long[Math.max(expectedSize, 1)];
+        this.table = new int[tableLength(expectedSize)];
+    }
+
+    /**
+     * @param values the values, that are copied
+     * @return a set of the values
+     */
+    public static LongHashSet of(long... values) {
+        LongHashSet set = new LongHashSet(values.length);
+        for (long value : values) {
+            set.addLong(value);
+        }
+        return set;
+    }
+
+    /**
+     * @return a power of two, so that at most half of the slots are used
+     */
+    private static int tableLength(int expectedSize) {
+        return Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+    }
+
+    private int home(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (table.length - 1);
+    }
+
+    /**
+     * @return the slot of the value or (-1 - the empty slot the value would be inserted into)
+     */
+    private int find(long value) {
+        int mask = table.length - 1;
+        int slot = home(value);
+        int index;
+        while ((index = table[slot]) != 0) {
+            if (values[index - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1 - slot;
+    }
+
+    public boolean containsLong(long value) {
+        return find(value) >= 0;
+    }
+
+    public boolean addLong(long value) {
+        int slot = find(value);
+        if (slot >= 0) {
+            return false;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        values[size++] = value;
+        table[-1 - slot] = size;
+        if (size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean removeLong(long value) {
+        int slot = find(value);
+        if (slot < 0) {
+            return false;
+        }
+        int index = table[slot] - 1;
+        deleteSlot(slot);
+        int last = size - 1;
+        if (index != last) {
+            // keep the values dense
+            long moved = values[last];
+            values[index] = moved;
+            table[find(moved)] = index + 1;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Shifts following entries back into the freed slot, so that no entry becomes unreachable from its home slot.
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        table[slot] = 0;
+        int next = slot;
+        while (table[next = (next + 1) & mask] != 0) {
+            int home = home(values[table[next] - 1]);
+            // move the entry, unless its home lies cyclically within (slot, next]
+            boolean homeBetween = slot <= next ? (slot < home && home <= next) : (slot < home || home <= next);
+            if (!homeBetween) {
+                table[slot] = table[next];
+                table[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private void rehash(int tableLength) {
+        table = new int[tableLength];
+        int mask = tableLength - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = home(values[i]);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return addLong(value);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && containsLong((Long) o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && removeLong((Long) o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            int next;
+            int current = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Long next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                current = next++;
+                return values[current];
+            }
+
+            @Override
+            public void remove() {
+                if (current < 0) {
+                    throw new IllegalStateException();
+                }
+                // the last value is moved to the current index and is visited next
+                removeLong(values[current]);
+                next = current;
+                current = -1;
+            }
+        };
+    }
+}
@@ -8,6 +8,7 @@ import org.bson.BsonWriter;
 import org.bson.codecs.Codec;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
+import org.bson.io.BsonInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,10 +36,14 @@ public class MappedField<T, F> {
         ANNOTATIONS_TO_BE_HANDLED.add(DecodeUndefinedHandlingStrategy.class);
         ANNOTATIONS_TO_BE_HANDLED.add(DecodingFieldFailureStrategy.class);
         ANNOTATIONS_TO_BE_HANDLED.add(EncodeNulls.class);
+        ANNOTATIONS_TO_BE_HANDLED.add(PackedArray.class);
+        ANNOTATIONS_TO_BE_HANDLED.add(DeltaEncoded.class);
+        ANNOTATIONS_TO_BE_HANDLED.add(PrimitiveCollection.class);
     }
 
 
     final Field field;
+    final FieldAccessor fieldAccessor;
     final Class<T> persistedClass;
 
     private Codec<F> codec;
@@ -51,6 +56,12 @@ public class MappedField<T, F> {
     final boolean encodeNulls;
 
     final CodecConfiguration codecConfiguration;
+    private volatile F sharedNullReplacement;
+
+    // resolved once, as they are needed for every encoded field
+    private final String mappedFieldName;
+    final EncodedName encodedName;
+    private final boolean lockingVersionField;
 
 
     // Annotations that have been found relevant to mapping
@@ -61,7 +72,7 @@ public class MappedField<T, F> {
                        TypeCodecRegistry typeCodecRegistry,
                        CodecConfiguration codecConfiguration) {
         this.field = fieldTypePair.getField();
-        this.field.setAccessible(true);
+        this.fieldAccessor = FieldAccessor.of(field);
         this.fieldTypePair = fieldTypePair;
         this.persistedClass = persistedClass;
         this.foundAnnotations = buildAnnotationMap(field);
@@ -92,6 +103,29 @@ public class MappedField<T, F> {
                 }
             } else {
                 this.codec = typeCodecRegistry.getCodec(fieldTypePair.getRealType());
+                Class<F> fieldClass = ReflectionHelper.extractRawClass(fieldTypePair.getRealType());
+                if (this.codec != null && hasAnnotation(DeltaEncoded.class)) {
+                    Codec<F> deltaVarintCodec = DeltaVarintCodec.forType(fieldTypePair.getRealType(), this.codec);
+                    if (deltaVarintCodec != null) {
+                        this.codec = deltaVarintCodec;
+                    } else {
+                        LOGGER.warn("Field {} of type {} can not be delta encoded, only long[] and lists of longs can.", field, fieldTypePair.getRealType());
+                    }
+                } else if (this.codec != null && PackedArrayCodec.isPackable(fieldClass)) {
+                    PackedArray classPackedArray = persistedClass.getDeclaredAnnotation(PackedArray.class);
+                    PackedArray fieldPackedArray = getAnnotation(PackedArray.class);
+                    boolean packedArray = (fieldPackedArray != null) ? fieldPackedArray.value() : (classPackedArray != null) ? classPackedArray.value() : codecConfiguration.isPackedArrays();
+                    if (packedArray) {
+                        this.codec = new PackedArrayCodec<>(fieldClass, this.codec);
+                    }
+                } else if (this.codec != null && PrimitiveCollectionCodec.forType(fieldTypePair.getRealType()) != null) {
+                    PrimitiveCollection classPrimitiveCollection = persistedClass.getDeclaredAnnotation(PrimitiveCollection.class);
+                    PrimitiveCollection fieldPrimitiveCollection = getAnnotation(PrimitiveCollection.class);
+                    boolean primitiveCollection = (fieldPrimitiveCollection != null) ? fieldPrimitiveCollection.value() : (classPrimitiveCollection != null) && classPrimitiveCollection.value();
+                    if (primitiveCollection) {
+                        this.codec = PrimitiveCollectionCodec.forType(fieldTypePair.getRealType());
+                    }
+                }
             }
         }
 
@@ -114,6 +148,10 @@ public class MappedField<T, F> {
         EncodeNulls classEncodeNulls = persistedClass.getDeclaredAnnotation(EncodeNulls.class);
         EncodeNulls fieldEncodeNulls = getAnnotation(EncodeNulls.class);
         this.encodeNulls = (fieldEncodeNulls != null) ? fieldEncodeNulls.value() : (classEncodeNulls != null) ? classEncodeNulls.value() : codecConfiguration.isEncodeNulls();
+
+        this.mappedFieldName = isIdField() ? ID_KEY : field.getName();
+        this.encodedName = new EncodedName(mappedFieldName);
+        this.lockingVersionField = hasAnnotation(LockingVersion.class) && Integer.TYPE.equals(field.getType());
     }
 
 
@@ -155,10 +193,7 @@ public class MappedField<T, F> {
     }
 
     public String getMappedFieldName() {
-        if (isIdField()) {
-            return ID_KEY;
-        }
-        return field.getName();
+        return mappedFieldName;
     }
 
     /**
@@ -190,7 +225,7 @@ public class MappedField<T, F> {
 
     public boolean setFieldValue(T instance, F value) {
         try {
-            field.set(instance, value);
+            fieldAccessor.set(instance, value);
             return true;
         } catch (IllegalArgumentException | IllegalAccessException e) {
             Type valueType = value != null ? value.getClass() : null;
@@ -201,7 +236,7 @@ public class MappedField<T, F> {
 
     public F getFieldValue(T instance) {
         try {
-            return (F) field.get(instance);
+            return (F) fieldAccessor.get(instance);
         } catch (IllegalAccessException e) {
             LOGGER.warn("Could not get field value.", field, instance, e);
         }
@@ -224,8 +259,7 @@ public class MappedField<T, F> {
                 switch (encodeNullHandlingStrategy) {
                     case CODEC: {
                         if (codec instanceof TypeCodec) {
-                            TypeCodec<F> typeCodec = (TypeCodec) codec;
-                            fieldValue = typeCodec.defaultInstance();
+                            fieldValue = getNullReplacement();
                         }
                         break;
                     }
@@ -235,22 +269,42 @@ public class MappedField<T, F> {
                 }
             }
 
-            if (encodeNulls || fieldValue != null) {
-                writer.writeName(getMappedFieldName());
-                if (fieldValue == null) {
-                    writer.writeNull();
-                } else {
-                    codec.encode(writer, fieldValue, encoderContext);
+            if (fieldValue == null) {
+                if (encodeNulls) {
+                    encodedName.writeNull(writer);
                 }
+            } else if (codec.getClass() == EnumCodec.class) {
+                ((EnumCodec) codec).encode(encodedName, writer, (Enum) fieldValue);
+            } else {
+                encodedName.writeName(writer);
+                codec.encode(writer, fieldValue, encoderContext);
+            }
+        }
+    }
+
+    /**
+     * The value to be encoded instead of null if {@link EncodeNullHandlingStrategy.Strategy#CODEC} applies.
+     * Default instances of collection and map codecs are only ever read while encoding, hence they are created once and
+     * shared. Any other codec is asked for a new default instance.
+     *
+     * @return the default instance of the codec of this field, may be null
+     */
+    @SuppressWarnings("unchecked")
+    F getNullReplacement() {
+        F nullReplacement = sharedNullReplacement;
+        if (nullReplacement == null) {
+            nullReplacement = ((TypeCodec<F>) codec).defaultInstance();
+            if (codec instanceof CollectionTypeCodec || codec instanceof MapTypeCodec) {
+                sharedNullReplacement = nullReplacement;
             }
         }
+        return nullReplacement;
     }
 
     private void writeLockingVersion(BsonWriter writer, T instance) {
         try {
-            writer.writeName(getMappedFieldName());
-            int lockingVersion = field.getInt(instance) + 1;
-            writer.writeInt32(lockingVersion);
+            int lockingVersion = fieldAccessor.getInt(instance) + 1;
+            encodedName.writeInt32(writer, lockingVersion);
         } catch (IllegalAccessException e) {
             LOGGER.warn("IllegalAccessException while writeLockingVersion field " + field.getName(), e);
         }
@@ -263,7 +317,10 @@ public class MappedField<T, F> {
 
         BsonReaderMark mark = null;
         try {
-            mark = reader.getMark();
+            // a mark is only needed to skip the value after a failure
+            if (decodingFieldFailureStrategy != DecodingFieldFailureStrategy.Strategy.RETHROW_EXCEPTION) {
+                mark = reader.getMark();
+            }
             if (field.getType().isPrimitive()) {
                 if (reader.getCurrentBsonType() == BsonType.NULL || reader.getCurrentBsonType() == BsonType.UNDEFINED) {
                     reader.skipValue();
@@ -281,23 +338,54 @@ public class MappedField<T, F> {
                     setFieldValue(instance, decoded);
                 }
             }
-        } catch (Exception e) {
-            LOGGER.error("Exception while reading field {} from reader.",this, e);
-            switch (decodingFieldFailureStrategy) {
-                case RETHROW_EXCEPTION:
-                    throw e;
-                case SET_TO_NULL:
-                    if (field.getType().isPrimitive()) {
-                        primitiveType.setToDefault(instance, decoderContext, this);
-                    } else {
-                        setFieldValue(instance, null);
-                    }
-                case SKIP:
-                default: {
-                    if (mark != null) {
-                        mark.reset();
-                        reader.skipValue();
-                    }
+        } catch (RuntimeException e) {
+            handleDecodingFailure(reader, mark, instance, decoderContext, e);
+        }
+    }
+
+    /**
+     * Reads the value of a primitive field straight from the input, see {@link BinaryFieldReader}. The bson type of the
+     * value has been checked to be {@link #getPrimitiveBsonType()}.
+     *
+     * @param input    the input positioned at the value
+     * @param instance the instance being decoded
+     */
+    void decode(BsonInput input, T instance) {
+        primitiveType.decode(input, instance, this);
+    }
+
+    /**
+     * @return the bson type of a primitive field, null for any other field
+     */
+    BsonType getPrimitiveBsonType() {
+        return primitiveType != null ? primitiveType.getBsonType() : null;
+    }
+
+    /**
+     * Applies the {@link DecodingFieldFailureStrategy} of this field after decoding failed
+     *
+     * @param reader         the reader
+     * @param mark           the mark taken before the field value was read, may be null
+     * @param instance       the instance being decoded
+     * @param decoderContext the decoder context
+     * @param e              the exception caught while decoding the field value
+     */
+    void handleDecodingFailure(BsonReader reader, BsonReaderMark mark, T instance, DecoderContext decoderContext, RuntimeException e) {
+        LOGGER.error("Exception while reading field {} from reader.", this, e);
+        switch (decodingFieldFailureStrategy) {
+            case RETHROW_EXCEPTION:
+                throw e;
+            case SET_TO_NULL:
+                if (field.getType().isPrimitive()) {
+                    primitiveType.setToDefault(instance, decoderContext, this);
+                } else {
+                    setFieldValue(instance, null);
+                }
+            case SKIP:
+            default: {
+                if (mark != null) {
+                    mark.reset();
+                    reader.skipValue();
                 }
             }
         }
@@ -312,7 +400,7 @@ public class MappedField<T, F> {
     }
 
     public boolean isLockingVersionField() {
-        return hasAnnotation(LockingVersion.class) && Integer.TYPE.equals(field.getType());
+        return lockingVersionField;
     }
 
     public Codec getCodec() {
@@ -320,8 +408,10 @@ public class MappedField<T, F> {
     }
 
     /**
+     * Default instances set by {@link DecodeUndefinedHandlingStrategy.Strategy#CODEC} are owned by the pojo and may be
+     * modified, hence they are never shared (in contrast to {@link #getNullReplacement()}).
+     *
      * @param instance to initialize
-     * @return true, if the codec initialized (potentially changed) the field
      */
     public void initializeUndefinedValue(T instance) {
         if (field.getType().isPrimitive()) {
@@ -352,17 +442,18 @@ public class MappedField<T, F> {
 
 
     private interface DefaultPrimitiveType {
-        <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException;
+        <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException;
+
+        <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException;
 
-        <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException;
+        <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException;
 
-        <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException;
+        <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException;
 
 
         default <T> void encode(BsonWriter writer, T instance, EncoderContext encoderContext, MappedField mappedField) {
             try {
-                writer.writeName(mappedField.getMappedFieldName());
-                encodeInternal(writer, instance, mappedField.getField());
+                encodeInternal(mappedField.encodedName, writer, instance, mappedField.fieldAccessor);
             } catch (IllegalAccessException e) {
                 LOGGER.warn("Cannot access mappedField. ", mappedField, e);
             }
@@ -371,16 +462,24 @@ public class MappedField<T, F> {
         default <T> void decode(BsonReader reader, T instance, DecoderContext decoderContext, MappedField mappedField) {
             try {
                 if (checkBsonTypeAndSkipOnMisMatch(reader)) {
-                    decodeInternal(reader, instance, mappedField.getField());
+                    decodeInternal(reader, instance, mappedField.fieldAccessor);
                 }
             } catch (IllegalAccessException e) {
                 LOGGER.warn("Could not decode mappedField.", mappedField, e);
             }
         }
 
+        default <T> void decode(BsonInput input, T instance, MappedField mappedField) {
+            try {
+                decodeInternal(input, instance, mappedField.fieldAccessor);
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Could not decode mappedField.", mappedField, e);
+            }
+        }
+
         default <T> void setToDefault(T instance, DecoderContext decoderContext, MappedField mappedField) {
             try {
-                setToDefaultInternal(instance, mappedField.getField());
+                setToDefaultInternal(instance, mappedField.fieldAccessor);
             } catch (IllegalAccessException e) {
                 LOGGER.warn("Could not decode mappedField.", mappedField, e);
             }
@@ -405,137 +504,177 @@ public class MappedField<T, F> {
             byte defaultByte;
 
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setByte(instance, (byte) reader.readInt32());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setByte(instance, (byte) reader.readInt32());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeInt32(field.getByte(instance));
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setByte(instance, (byte) input.readInt32());
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setByte(instance, defaultByte);
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeInt32(writer, fieldAccessor.getByte(instance));
+            }
+
+            @Override
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setByte(instance, defaultByte);
             }
         },
         BOOLEAN(boolean.class, BsonType.BOOLEAN) {
             boolean defaultBoolean;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setBoolean(instance, reader.readBoolean());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setBoolean(instance, reader.readBoolean());
+            }
+
+            @Override
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setBoolean(instance, input.readByte() != 0);
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeBoolean(field.getBoolean(instance));
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeBoolean(writer, fieldAccessor.getBoolean(instance));
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setBoolean(instance, defaultBoolean);
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setBoolean(instance, defaultBoolean);
             }
         },
         CHARACTER(char.class, BsonType.INT32) {
             char defaultChar;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setChar(instance, (char) reader.readInt32());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setChar(instance, (char) reader.readInt32());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeInt32(field.getChar(instance));
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setChar(instance, (char) input.readInt32());
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setChar(instance, defaultChar);
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeInt32(writer, fieldAccessor.getChar(instance));
+            }
+
+            @Override
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setChar(instance, defaultChar);
             }
         },
         FLOAT(float.class, BsonType.DOUBLE) {
             float defaultFloat;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setFloat(instance, (float) reader.readDouble());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setFloat(instance, (float) reader.readDouble());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeDouble(field.getFloat(instance));
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setFloat(instance, (float) input.readDouble());
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setFloat(instance, defaultFloat);
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeDouble(writer, fieldAccessor.getFloat(instance));
+            }
+
+            @Override
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setFloat(instance, defaultFloat);
             }
         },
         INTEGER(int.class, BsonType.INT32) {
             int defaultInt;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setInt(instance, reader.readInt32());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setInt(instance, reader.readInt32());
+            }
+
+            @Override
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setInt(instance, input.readInt32());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeInt32(field.getInt(instance));
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeInt32(writer, fieldAccessor.getInt(instance));
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setInt(instance, defaultInt);
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setInt(instance, defaultInt);
             }
         },
         LONG(long.class, BsonType.INT64) {
             long defaultLong;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setLong(instance, reader.readInt64());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setLong(instance, reader.readInt64());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeInt64(field.getLong(instance));
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setLong(instance, input.readInt64());
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setLong(instance, defaultLong);
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeInt64(writer, fieldAccessor.getLong(instance));
+            }
+
+            @Override
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setLong(instance, defaultLong);
             }
         },
         SHORT(short.class, BsonType.INT32) {
             short defaultShort;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setShort(instance, (short) reader.readInt32());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setShort(instance, (short) reader.readInt32());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeInt32(field.getShort(instance));
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setShort(instance, (short) input.readInt32());
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setShort(instance, defaultShort);
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeInt32(writer, fieldAccessor.getShort(instance));
+            }
+
+            @Override
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setShort(instance, defaultShort);
             }
         },
         DOUBLE(double.class, BsonType.DOUBLE) {
             double defaultDouble;
             @Override
-            public <T> void decodeInternal(BsonReader reader, T instance, Field field) throws IllegalAccessException {
-                field.setDouble(instance, reader.readDouble());
+            public <T> void decodeInternal(BsonReader reader, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setDouble(instance, reader.readDouble());
+            }
+
+            @Override
+            public <T> void decodeInternal(BsonInput input, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setDouble(instance, input.readDouble());
             }
 
             @Override
-            public <T> void encodeInternal(BsonWriter writer, T instance, Field field) throws IllegalAccessException {
-                writer.writeDouble(field.getDouble(instance));
+            public <T> void encodeInternal(EncodedName encodedName, BsonWriter writer, T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                encodedName.writeDouble(writer, fieldAccessor.getDouble(instance));
             }
 
             @Override
-            public <T> void setToDefaultInternal(T instance, Field field) throws IllegalAccessException {
-                field.setDouble(instance, defaultDouble);
+            public <T> void setToDefaultInternal(T instance, FieldAccessor fieldAccessor) throws IllegalAccessException {
+                fieldAccessor.setDouble(instance, defaultDouble);
             }
         };
         final Class<?> primitiveClass;
@@ -0,0 +1,260 @@
+package de.bild.codec;
+
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Codec for int[], long[], float[] and double[] arrays of any dimension, that writes an array as a single binary
+ * (sub type {@link BsonBinarySubType#USER_DEFINED}) consisting of a shape header and the values in little endian
+ * byte order:
+ * <pre>
+ * byte       element type (1: int32, 2: int64, 3: float32, 4: float64)
+ * byte       number of dimensions
+ * int32...   length of each dimension
+ * values...  innermost arrays one after another
+ * </pre>
+ * Jagged arrays and arrays containing null arrays have no shape, they are written by the legacy codec as bson arrays.
+ * Arrays written as bson arrays are decoded by the legacy codec as well.
+ *
+ * @see de.bild.codec.annotations.PackedArray
+ */
+public class PackedArrayCodec<T> implements TypeCodec<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedArrayCodec.class);
+    static final byte SUB_TYPE = BsonBinarySubType.USER_DEFINED.getValue();
+
+    enum ElementType {
+        INT32(int.class, 1, 4) {
+            @Override
+            void put(ByteBuffer buffer, Object values) {
+                buffer.asIntBuffer().put((int[]) values);
+            }
+
+            @Override
+            void get(ByteBuffer buffer, Object values) {
+                buffer.asIntBuffer().get((int[]) values);
+            }
+        },
+        INT64(long.class, 2, 8) {
+            @Override
+            void put(ByteBuffer buffer, Object values) {
+                buffer.asLongBuffer().put((long[]) values);
+            }
+
+            @Override
+            void get(ByteBuffer buffer, Object values) {
+                buffer.asLongBuffer().get((long[]) values);
+            }
+        },
+        FLOAT32(float.class, 3, 4) {
+            @Override
+            void put(ByteBuffer buffer, Object values) {
+                buffer.asFloatBuffer().put((float[]) values);
+            }
+
+            @Override
+            void get(ByteBuffer buffer, Object values) {
+                buffer.asFloatBuffer().get((float[]) values);
+            }
+        },
+        FLOAT64(double.class, 4, 8) {
+            @Override
+            void put(ByteBuffer buffer, Object values) {
+                buffer.asDoubleBuffer().put((double[]) values);
+            }
+
+            @Override
+            void get(ByteBuffer buffer, Object values) {
+                buffer.asDoubleBuffer().get((double[]) values);
+            }
+        };
+
+        final Class<?> primitiveClass;
+        final byte code;
+        final int size;
+
+        ElementType(Class<?> primitiveClass, int code, int size) {
+            this.primitiveClass = primitiveClass;
+            this.code = (byte) code;
+            this.size = size;
+        }
+
+        /**
+         * Bulk transfers do not change the position of the buffer.
+         */
+        abstract void put(ByteBuffer buffer, Object values);
+
+        abstract void get(ByteBuffer buffer, Object values);
+
+        static ElementType of(Class<?> primitiveClass) {
+            for (ElementType elementType : values()) {
+                if (elementType.primitiveClass == primitiveClass) {
+                    return elementType;
+                }
+            }
+            return null;
+        }
+    }
+
+    final Class<T> arrayClazz;
+    final Codec<T> legacyCodec;
+    final ElementType elementType;
+    final int dimensions;
+
+    /**
+     * @param arrayClazz  an int[], long[], float[] or double[] array class of any dimension
+     * @param legacyCodec the codec for arrays that are (or need to be) stored as bson arrays
+     */
+    public PackedArrayCodec(Class<T> arrayClazz, Codec<T> legacyCodec) {
+        if (!isPackable(arrayClazz)) {
+            throw new IllegalArgumentException("Arrays of type " + arrayClazz + " can not be packed.");
+        }
+        this.arrayClazz = arrayClazz;
+        this.legacyCodec = legacyCodec;
+        int dimensions = 0;
+        Class<?> componentClass = arrayClazz;
+        while (componentClass.isArray()) {
+            componentClass = componentClass.getComponentType();
+            dimensions++;
+        }
+        this.elementType = ElementType.of(componentClass);
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * @return true, if the class is an int[], long[], float[] or double[] array class of any dimension
+     */
+    public static boolean isPackable(Class<?> clazz) {
+        if (clazz == null || !clazz.isArray()) {
+            return false;
+        }
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        return ElementType.of(clazz) != null;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, T array, EncoderContext encoderContext) {
+        int[] shape = new int[dimensions];
+        Arrays.fill(shape, -1);
+        if (!collectShape(array, 0, shape)) {
+            legacyCodec.encode(writer, array, encoderContext);
+            return;
+        }
+        int headerSize = 2 + 4 * dimensions;
+        int count = 1;
+        for (int length : shape) {
+            count = Math.multiplyExact(count, Math.max(length, 0));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.addExact(headerSize, Math.multiplyExact(count, elementType.size)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(elementType.code);
+        buffer.put((byte) dimensions);
+        for (int length : shape) {
+            buffer.putInt(Math.max(length, 0));
+        }
+        putValues(buffer, array, 1);
+        writer.writeBinaryData(new BsonBinary(SUB_TYPE, buffer.array()));
+    }
+
+    /**
+     * @return false, if the array is jagged or contains null arrays
+     */
+    private boolean collectShape(Object array, int dimension, int[] shape) {
+        if (array == null) {
+            return false;
+        }
+        int length = Array.getLength(array);
+        if (shape[dimension] == -1) {
+            shape[dimension] = length;
+        } else if (shape[dimension] != length) {
+            return false;
+        }
+        if (dimension < dimensions - 1) {
+            for (int i = 0; i < length; i++) {
+                if (!collectShape(Array.get(array, i), dimension + 1, shape)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The position is moved by {@link Buffer#position(int)}, as {@code ByteBuffer.position(int)} does not exist
+     * prior to Java 9. The same holds for {@link #getValues(ByteBuffer, Object, int)}.
+     */
+    private void putValues(ByteBuffer buffer, Object array, int dimension) {
+        int length = Array.getLength(array);
+        if (dimension == dimensions) {
+            elementType.put(buffer, array);
+            ((Buffer) buffer).position(buffer.position() + length * elementType.size);
+        } else {
+            for (int i = 0; i < length; i++) {
+                putValues(buffer, Array.get(array, i), dimension + 1);
+            }
+        }
+    }
+
+    private void getValues(ByteBuffer buffer, Object array, int dimension) {
+        int length = Array.getLength(array);
+        if (dimension == dimensions) {
+            elementType.get(buffer, array);
+            ((Buffer) buffer).position(buffer.position() + length * elementType.size);
+        } else {
+            for (int i = 0; i < length; i++) {
+                getValues(buffer, Array.get(array, i), dimension + 1);
+            }
+        }
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        if (!BsonType.BINARY.equals(reader.getCurrentBsonType())) {
+            return legacyCodec.decode(reader, decoderContext);
+        }
+        if (reader.peekBinarySubType() != SUB_TYPE) {
+            LOGGER.warn("Expected binary sub type {} for {} but got {}. Skipping value.", SUB_TYPE, arrayClazz, reader.peekBinarySubType());
+            reader.skipValue();
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(reader.readBinaryData().getData()).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 2 + 4 * dimensions || buffer.get() != elementType.code || buffer.get() != dimensions) {
+            LOGGER.warn("Packed array does not match {}. Skipping value.", arrayClazz);
+            return null;
+        }
+        int[] shape = new int[dimensions];
+        long count = 1;
+        for (int i = 0; i < dimensions; i++) {
+            shape[i] = buffer.getInt();
+            // negative lengths or too many elements are caught by the size check
+            count = count < 0 || shape[i] < 0 || count > Integer.MAX_VALUE ? -1 : count * shape[i];
+        }
+        if (count < 0 || count * elementType.size != buffer.remaining()) {
+            LOGGER.warn("Packed array of shape {} does not match its size of {} bytes. Skipping value.", Arrays.toString(shape), buffer.remaining());
+            return null;
+        }
+        T array = (T) Array.newInstance(elementType.primitiveClass, shape);
+        getValues(buffer, array, 1);
+        return array;
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return arrayClazz;
+    }
+}
@@ -5,26 +5,28 @@ import de.bild.codec.annotations.DecodeUndefinedHandlingStrategy;
 import de.bild.codec.annotations.DecodingFieldFailureStrategy;
 import de.bild.codec.annotations.DecodingPojoFailureStrategy;
 import de.bild.codec.annotations.EncodeNullHandlingStrategy;
-import org.bson.BsonReader;
-import org.bson.BsonValue;
-import org.bson.BsonWriter;
+import de.bild.codec.annotations.GeneratedCodec;
 import org.bson.codecs.Codec;
-import org.bson.codecs.CollectibleCodec;
-import org.bson.codecs.DecoderContext;
-import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecProvider;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Provides a codec for Pojos
@@ -34,16 +36,14 @@ public class PojoCodecProvider implements CodecProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(PojoCodecProvider.class);
     private final TypesModel typesModel;
     private final PojoContext pojoContext;
+    private WarmUpReport warmUpReport;
 
 
-    PojoCodecProvider(final Set<Class<?>> classes,
-                      final Set<String> packages,
-                      final Set<Class<? extends Annotation>> ignoreAnnotations,
-                      Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates,
-                      Set<Class<?>> ignoreClasses, List<TypeCodecProvider> typeCodecProviders,
+    PojoCodecProvider(final TypesModel typesModel,
+                      List<TypeCodecProvider> typeCodecProviders,
                       final List<CodecResolver> codecResolvers,
-                      CodecConfiguration codecConfiguration, ClassResolver classResolver) {
-        this.typesModel = new TypesModel(classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+                      CodecConfiguration codecConfiguration) {
+        this.typesModel = typesModel;
         this.pojoContext = new PojoContext(typesModel, codecResolvers, typeCodecProviders, codecConfiguration);
     }
 
@@ -62,93 +62,90 @@ public class PojoCodecProvider implements CodecProvider {
                         "but then user would loose flexibility when subclassing such classes. Class: {}", clazz.toGenericString());
             }
             TypeCodec typeCodec = (TypeCodec) codec;
-            // generate dynamic proxy to add CollectibleCodec functionality
+            // wrap codec to add CollectibleCodec functionality
             if (typeCodec.isCollectible()) {
                 LOGGER.debug("Enhancing {} to be collectible codec.", typeCodec);
-                // For easy of use, adding all implemented interfaces to the proxy, so the proxy can be used for most use cases
-                // Unfortunately the functionalities of the underlying concrete codec class will be missing.
-                ArrayList<Class<?>> proxyInterfaceList = new ArrayList<>(Arrays.asList(typeCodec.getClass().getInterfaces()));
-                proxyInterfaceList.add(CollectibleCodec.class);
-                proxyInterfaceList.add(DelegatingCodec.class); // so users can retrieve the delegating codec form the proxy.
-
-                return (CollectibleCodec) Proxy.newProxyInstance(
-                        PojoCodecProvider.class.getClassLoader(),
-                        proxyInterfaceList.toArray(new Class<?>[1]),
-                        new CollectibleCodecDelegator(typeCodec));
+                return CollectibleTypeCodec.wrap(typeCodec);
             }
         }
         return codec;
     }
 
-    public Bson getTypeFilter(Class<?> clazz, CodecRegistry registry) {
-        Codec<?> codec = get(clazz, registry);
-        if (codec instanceof TypeCodec) {
-            return ((TypeCodec) codec).getTypeFilter();
-        }
-        return null;
-    }
-
     /**
-     * delegator for CollectibleCodec
+     * Resolves the codecs for all classes known to the types model in parallel. Resolving a pojo codec resolves the codecs
+     * for its fields as well, resolving a polymorphic codec resolves the codecs of all its sub types. The given registry should be the registry that is used later on, as resolved codecs
+     * keep a reference to it.
+     *
+     * @param registry the registry containing this provider
+     * @param pool     the pool to resolve the codecs in
+     * @return a report telling which classes failed and how long each resolution took
      */
-    private static class CollectibleCodecDelegator<T> implements InvocationHandler, CollectibleCodec<T>, DelegatingCodec<T> {
-        private final TypeCodec<T> delegatingCodec;
-
-        public CollectibleCodecDelegator(TypeCodec<T> delegatingCodec) {
-            this.delegatingCodec = delegatingCodec;
-        }
-
-        @Override
-        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            try {
-                if (method.getDeclaringClass() == CollectibleCodec.class || method.getDeclaringClass() == DelegatingCodec.class) {
-                    return method.invoke(this, args);
-                } else {
-                    return method.invoke(delegatingCodec, args);
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                LOGGER.warn("An exception was caught while invoking the delegate {} with args {}", method, args);
-                LOGGER.debug("Original exception when invoking target.", e);
-                // rethrowing cause instead of invocationexception
-                throw e.getCause();
-            }
-
+    public WarmUpReport warmUp(CodecRegistry registry, ForkJoinPool pool) {
+        List<Class<?>> classes = new ArrayList<>(typesModel.allClasses);
+        classes.sort(Comparator.comparing(Class::getName));
+        long start = System.nanoTime();
+        List<WarmUpReport.Entry> entries;
+        try {
+            // a parallel stream executed within a pool task runs within that pool
+            entries = pool.submit(() -> classes.parallelStream()
+                    .map(clazz -> warmUp(clazz, registry))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up codecs.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not warm up codecs.", e.getCause());
         }
-
-        @Override
-        public T generateIdIfAbsentFromDocument(T document) {
-            return delegatingCodec.generateIdIfAbsentFromDocument(document);
-        }
-
-        @Override
-        public boolean documentHasId(T document) {
-            return delegatingCodec.documentHasId(document);
-        }
-
-        @Override
-        public BsonValue getDocumentId(T document) {
-            return delegatingCodec.getDocumentId(document);
+        WarmUpReport report = new WarmUpReport(entries, Duration.ofNanos(System.nanoTime() - start));
+        LOGGER.info("Warmed up codecs: {}", report);
+        for (WarmUpReport.Entry failure : report.getFailures()) {
+            LOGGER.warn("Could not warm up codec for {}", failure.getClazz(), failure.getFailure());
         }
+        return report;
+    }
 
-        @Override
-        public T decode(BsonReader reader, DecoderContext decoderContext) {
-            return delegatingCodec.decode(reader, decoderContext);
+    private static WarmUpReport.Entry warmUp(Class<?> clazz, CodecRegistry registry) {
+        long start = System.nanoTime();
+        Codec<?> codec = null;
+        Throwable failure = null;
+        try {
+            codec = registry.get(clazz);
+            // sub type codecs are resolved on first use otherwise
+            Codec<?> resolvedCodec = codec;
+            while (resolvedCodec instanceof DelegatingCodec) {
+                resolvedCodec = ((DelegatingCodec<?>) resolvedCodec).getDelegate();
+            }
+            if (resolvedCodec instanceof PolymorphicReflectionCodec) {
+                ((PolymorphicReflectionCodec<?>) resolvedCodec).resolveAll();
+            }
+        } catch (Exception e) {
+            failure = e;
         }
+        return new WarmUpReport.Entry(clazz, codec, failure, Duration.ofNanos(System.nanoTime() - start));
+    }
 
-        @Override
-        public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
-            delegatingCodec.encode(writer, value, encoderContext);
-        }
+    /**
+     * Releases the reflection metadata cached by the types model of this provider, see {@link TypesModel#clearCaches()},
+     * and forgets the types known not to be handled by this provider. Codecs already built are not affected.
+     */
+    public void clearCaches() {
+        typesModel.clearCaches();
+        pojoContext.clearUnhandledTypes();
+    }
 
-        @Override
-        public Class<T> getEncoderClass() {
-            return delegatingCodec.getEncoderClass();
-        }
+    /**
+     * @return the report of the warm up during {@link Builder#build()} or null, if no warm up was configured
+     */
+    public WarmUpReport getWarmUpReport() {
+        return warmUpReport;
+    }
 
-        @Override
-        public TypeCodec<T> getDelegate() {
-            return delegatingCodec;
+    public Bson getTypeFilter(Class<?> clazz, CodecRegistry registry) {
+        Codec<?> codec = get(clazz, registry);
+        if (codec instanceof TypeCodec) {
+            return ((TypeCodec) codec).getTypeFilter();
         }
+        return null;
     }
 
     /**
@@ -169,6 +166,13 @@ public class PojoCodecProvider implements CodecProvider {
         private DecodingPojoFailureStrategy.Strategy decodingPojoFailureStrategy = DecodingPojoFailureStrategy.Strategy.RETHROW_EXCEPTION;
 
         private boolean encodeNulls = false;
+        private boolean specializedCodecs = false;
+        private boolean hierarchicalDiscriminators = false;
+        private boolean packedArrays = false;
+        private Function<PojoCodecProvider, CodecRegistry> warmUpRegistryFactory;
+        private ForkJoinPool warmUpPool;
+        private Path typesModelIndexFile;
+        private String typesModelIndexResource;
 
         public Builder setPackages(Set<String> packages) {
             this.packages = packages;
@@ -185,6 +189,40 @@ public class PojoCodecProvider implements CodecProvider {
             return this;
         }
 
+        /**
+         * Registers all classes, for which codecs were generated at compile time by
+         * {@link de.bild.codec.processor.GeneratedCodecProcessor}. The classes are read from
+         * {@link GeneratedCodec#INDEX_RESOURCE} within the class path, hence no package scanning is needed for these classes.
+         *
+         * @return the Builder
+         */
+        public Builder registerGeneratedCodecs() {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = PojoCodecProvider.class.getClassLoader();
+            }
+            try {
+                Enumeration<URL> resources = classLoader.getResources(GeneratedCodec.INDEX_RESOURCE);
+                while (resources.hasMoreElements()) {
+                    URL resource = resources.nextElement();
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                        String className;
+                        while ((className = reader.readLine()) != null) {
+                            className = className.trim();
+                            if (!className.isEmpty()) {
+                                this.classes.add(Class.forName(className, false, classLoader));
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + GeneratedCodec.INDEX_RESOURCE, e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Class listed in " + GeneratedCodec.INDEX_RESOURCE + " not found.", e);
+            }
+            return this;
+        }
+
         /**
          * If you need to provide a mechanism to scan packages for model classes, register a {@link ClassResolver}
          *
@@ -266,6 +304,116 @@ public class PojoCodecProvider implements CodecProvider {
             return this;
         }
 
+        /**
+         * If enabled, pojos without a codec of their own are handled by a {@link SpecializedReflectionCodec}, that binds
+         * every field to a specialized field codec once, instead of interpreting the field mapping for each document.
+         * No code is generated at runtime, straight-line codecs are generated at compile time by
+         * {@link de.bild.codec.processor.GeneratedCodecProcessor}, see {@link #registerGeneratedCodecs()}.
+         *
+         * @param specializedCodecs true, to bind specialized field codecs per class
+         * @return the builder
+         */
+        public Builder specializedCodecs(boolean specializedCodecs) {
+            this.specializedCodecs = specializedCodecs;
+            return this;
+        }
+
+        /**
+         * If enabled, polymorphic pojos are written with the discriminators of all their super classes, e.g.
+         * {@code _t: ["Animal", "Mammal", "Dog"]}. Type filters then select all sub types of a class with a single
+         * (indexable) equality instead of an $or over all sub types. Aliases of the selected class are part of the filter.
+         * <p>
+         * Documents written without hierarchical discriminators (e.g. {@code _t: "Dog"}) can still be decoded, but are not
+         * matched by type filters of their super classes anymore. Existing documents need to be migrated to discriminator
+         * arrays (e.g. by decoding and writing them again) before enabling this option, otherwise queries using
+         * {@link PojoCodecProvider#getTypeFilter(Class, CodecRegistry)} silently miss them.
+         *
+         * @param hierarchicalDiscriminators true, to write discriminator arrays
+         * @return the builder
+         */
+        public Builder hierarchicalDiscriminators(boolean hierarchicalDiscriminators) {
+            this.hierarchicalDiscriminators = hierarchicalDiscriminators;
+            return this;
+        }
+
+        /**
+         * If enabled, int[], long[], float[] and double[] pojo fields (and multi dimensional arrays of those) are
+         * written as binary, see {@link de.bild.codec.annotations.PackedArray}. The annotation overrides this setting.
+         *
+         * @param packedArrays true, to write primitive arrays as binary
+         * @return the builder
+         */
+        public Builder packedArrays(boolean packedArrays) {
+            this.packedArrays = packedArrays;
+            return this;
+        }
+
+        /**
+         * Stores the scanned classes and their hierarchy within the given file. On the next start the file is read instead
+         * of scanning packages, as long as the configuration, the class path and the indexed classes did not change.
+         * Otherwise packages are scanned and the file is rewritten.
+         *
+         * @param typesModelIndexFile the index file
+         * @return the builder
+         */
+        public Builder typesModelIndex(Path typesModelIndexFile) {
+            this.typesModelIndexFile = typesModelIndexFile;
+            return this;
+        }
+
+        /**
+         * Reads the scanned classes and their hierarchy from a class path resource (e.g. META-INF/polymorphia/types.idx),
+         * that has been created with {@link #typesModelIndex(Path)} during the build of the application.
+         * The class path is not checked for resources, only the configuration and the bytes of the indexed classes.
+         * Classes added to the registered packages later on are not found, so the resource needs to be recreated with
+         * every build and should be checked with {@link #verifyTypesModelIndexResource()}. Loading the resource for
+         * registered packages is logged as warning. If the resource is missing or stale, packages are scanned.
+         *
+         * @param typesModelIndexResource the name of the resource
+         * @return the builder
+         */
+        public Builder typesModelIndexResource(String typesModelIndexResource) {
+            this.typesModelIndexResource = typesModelIndexResource;
+            return this;
+        }
+
+        /**
+         * Scans the registered packages and checks, that the resource of {@link #typesModelIndexResource(String)} lists all
+         * classes found. Meant to run during the build (e.g. within a test) after the resource has been created.
+         *
+         * @throws IllegalStateException if the resource is missing, stale or does not list all classes
+         */
+        public void verifyTypesModelIndexResource() {
+            if (typesModelIndexResource == null) {
+                throw new IllegalStateException("No types model index resource configured");
+            }
+            TypesModelIndex.verifyResource(typesModelIndexResource, classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+        }
+
+        /**
+         * Resolves all codecs in parallel within {@link #build()} instead of lazily on first use.
+         * The outcome can be retrieved with {@link PojoCodecProvider#getWarmUpReport()}.
+         *
+         * @param registryFactory creates the registry the built provider will be used in, e.g.
+         *                        {@code provider -> CodecRegistries.fromRegistries(CodecRegistries.fromProviders(provider), MongoClientSettings.getDefaultCodecRegistry())}
+         * @return the builder
+         */
+        public Builder warmUp(Function<PojoCodecProvider, CodecRegistry> registryFactory) {
+            return warmUp(registryFactory, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * @param registryFactory creates the registry the built provider will be used in
+         * @param pool            the pool to resolve the codecs in
+         * @return the builder
+         * @see #warmUp(Function)
+         */
+        public Builder warmUp(Function<PojoCodecProvider, CodecRegistry> registryFactory, ForkJoinPool pool) {
+            this.warmUpRegistryFactory = registryFactory;
+            this.warmUpPool = pool;
+            return this;
+        }
+
         /**
          * A CodecResolver is supposed to provide specialized codecs in case the default implementation
          * {@link BasicReflectionCodec} is not sufficient
@@ -279,8 +427,20 @@ public class PojoCodecProvider implements CodecProvider {
         }
 
         public PojoCodecProvider build() {
-            CodecConfiguration codecConfiguration = new CodecConfiguration(encodeNulls, encodeNullHandlingStrategy, decodeUndefinedHandlingStrategy, decodingFieldFailureStrategy, decodingPojoFailureStrategy);
-            return new PojoCodecProvider(classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, typeCodecProviders, codecResolvers, codecConfiguration, classResolver);
+            CodecConfiguration codecConfiguration = new CodecConfiguration(encodeNulls, encodeNullHandlingStrategy, decodeUndefinedHandlingStrategy, decodingFieldFailureStrategy, decodingPojoFailureStrategy, specializedCodecs, hierarchicalDiscriminators, packedArrays);
+            TypesModel typesModel;
+            if (typesModelIndexFile != null) {
+                typesModel = TypesModelIndex.loadOrScan(typesModelIndexFile, classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+            } else if (typesModelIndexResource != null) {
+                typesModel = TypesModelIndex.loadOrScan(typesModelIndexResource, classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+            } else {
+                typesModel = new TypesModel(classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+            }
+            PojoCodecProvider pojoCodecProvider = new PojoCodecProvider(typesModel, typeCodecProviders, codecResolvers, codecConfiguration);
+            if (warmUpRegistryFactory != null) {
+                pojoCodecProvider.warmUpReport = pojoCodecProvider.warmUp(warmUpRegistryFactory.apply(pojoCodecProvider), warmUpPool);
+            }
+            return pojoCodecProvider;
         }
     }
 }
@@ -2,6 +2,7 @@ package de.bild.codec;
 
 
 import de.bild.codec.annotations.Discriminator;
+import de.bild.codec.annotations.GeneratedCodec;
 import de.bild.codec.annotations.Polymorphic;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.reflect.TypeUtils;
@@ -17,19 +18,39 @@ import org.bson.codecs.configuration.CodecRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class PojoContext {
     private static final Logger LOGGER = LoggerFactory.getLogger(PojoContext.class);
 
+    private static final long DEADLOCK_CHECK_INTERVAL_MS = 10;
+    /**
+     * upper bound of types remembered as not being handled by this context
+     */
+    static final int MAX_UNHANDLED_TYPES = 1024;
+
     private final Map<Type, Codec<?>> codecMap = new ConcurrentHashMap<>();
+    // types that are not handled by this context independent of the codec registry, these are not calculated again
+    private final Set<Type> unhandledTypes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Type, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Thread, Resolution> awaitedResolutions = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<Type>> resolvingTypes = ThreadLocal.withInitial(HashSet::new);
     private final TypesModel typesModel;
     private final List<CodecResolver> codecResolvers;
     private final List<TypeCodecProvider> typeCodecProviders;
@@ -50,6 +71,8 @@ public class PojoContext {
                 } else {
                     return new ArrayCodec<>(type, typeCodecRegistry);
                 }
+            } else if (type instanceof Class && PrimitiveCollectionCodec.get((Class<?>) type) != null) {
+                return PrimitiveCollectionCodec.get((Class<?>) type);
             } else if (type instanceof TypeVariable) {
                 throw new IllegalArgumentException("This registry (and probably no other one as well) can not handle generic type variables.");
             } else if (type instanceof WildcardType) {
@@ -61,6 +84,10 @@ public class PojoContext {
             // default enum Codec if user did not register any
             else if (TypeUtils.isAssignable(type, Enum.class)) {
                 return new EnumCodec(ReflectionHelper.extractRawClass(type));
+            } else if (ByteBuffer.class.equals(type)) {
+                return (Codec<T>) new ByteBufferCodec();
+            } else if (BinaryView.class.equals(type)) {
+                return (Codec<T>) new BinaryViewCodec();
             }
 
             return null;
@@ -78,6 +105,34 @@ public class PojoContext {
         this.codecConfiguration = codecConfiguration;
     }
 
+    /**
+     * Thrown, if the codec for a pojo could not be created. The type is answered with null, but not remembered as unhandled.
+     */
+    private static class PojoCodecCreationException extends RuntimeException {
+        PojoCodecCreationException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    CodecConfiguration getCodecConfiguration() {
+        return codecConfiguration;
+    }
+
+    /**
+     * @param type the value type
+     * @return all declared and all inherited declared fields of given type (unmodifiable), cached per type
+     */
+    List<FieldTypePair> getDeclaredAndInheritedFieldTypePairs(Type type) {
+        return typesModel.typeMetadataCache.getDeclaredAndInheritedFieldTypePairs(type, true);
+    }
+
+    /**
+     * @return true, if custom {@link CodecResolver}s are registered, that may provide codecs of any shape
+     */
+    boolean hasCodecResolvers() {
+        return !codecResolvers.isEmpty();
+    }
+
     /**
      * First the pojoContext is requested to return a valid codec, if this fails, the mongo codecregistry will be asked
      */
@@ -107,6 +162,15 @@ public class PojoContext {
             return codec;
         }
 
+        @Override
+        public <T> Codec<T> findCodec(Type type) {
+            if (type instanceof Class) {
+                // as a CodecProvider the registry returns null instead of throwing a CodecConfigurationException
+                return codecRegistry.get(ReflectionHelper.extractRawClass(type), codecRegistry);
+            }
+            return pojoContext.getCodec(type, this);
+        }
+
         @Override
         public CodecRegistry getRegistry() {
             return codecRegistry;
@@ -114,39 +178,178 @@ public class PojoContext {
     }
 
 
-    public synchronized <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
         return getCodec(clazz, new AnyTypeCodecRegistry(registry, this));
     }
 
     /**
      * Calculates and returns a codec for the given type, null otherwise
+     * <p>
+     * Resolution does not lock. Codecs that are already calculated are returned with a single map read. Otherwise the
+     * calling thread registers a {@link Resolution} for the type and calculates the codec. Other threads asking for the
+     * same type wait for that resolution. If waiting would close a cycle of threads waiting for each other, the type is
+     * resolved within the calling thread as well. Cycles within one thread are handled with a {@link LazyCodec}.
+     * Types this context is not able to handle are remembered (up to {@link #MAX_UNHANDLED_TYPES}) and answered with null.
+     * Generic lists, sets and maps as well as types, whose codec could not be created due to a failure, are answered with null
+     * but calculated again on next request.
      *
      * @param type              type for which a codec is requested
      * @param typeCodecRegistry codec registry that can handle any type including parameterizd types, generic arrays, etc
      * @param <T>               the value type
      * @return the codec responsible for the given type or null
      */
-    public synchronized <T> Codec<T> getCodec(Type type, TypeCodecRegistry typeCodecRegistry) {
+    public <T> Codec<T> getCodec(Type type, TypeCodecRegistry typeCodecRegistry) {
+        // equal parameterized types of different implementations share their codec
+        type = typesModel.typeMetadataCache.intern(type);
         Codec codec = codecMap.get(type);
-        if (codec != null) {
+        if (codec != null || unhandledTypes.contains(type)) {
             return codec;
         }
 
-        // we register within codecMap as LazyCodec for recursion detection
-        LazyCodec lazyCodec = new LazyCodec(type, typeCodecRegistry);
-        codecMap.put(type, lazyCodec);
+        Set<Type> typesInResolution = resolvingTypes.get();
+        if (typesInResolution.contains(type)) {
+            // recursion detected, the codec will be looked up when first used
+            return new LazyCodec(type, typeCodecRegistry);
+        }
 
-        // calculate the codec for given type
-        codec = calculateCodec(type, typeCodecRegistry);
-        if (codec == null) {
-            codecMap.remove(type);
-        } else {
-            codecMap.put(type, codec);
+        Resolution resolution = new Resolution();
+        Resolution runningResolution = resolutions.putIfAbsent(type, resolution);
+        if (runningResolution != null) {
+            if (typesInResolution.isEmpty()) {
+                // this thread does not resolve any codec, so no other thread can wait for it
+                resolvingTypes.remove();
+                return (Codec<T>) runningResolution.join();
+            } else if (awaitResolution(runningResolution)) {
+                return (Codec<T>) runningResolution.join();
+            }
+            // other thread is waiting for this thread, so resolve the type (again) within this thread
+            resolution = null;
+        }
+
+        typesInResolution.add(type);
+        try {
+            // another thread might have finished resolution before this thread registered its resolution
+            codec = codecMap.get(type);
+            if (codec == null) {
+                // calculate the codec for given type
+                try {
+                    codec = calculateCodec(type, typeCodecRegistry);
+                    if (codec != null) {
+                        Codec resolvedCodec = codecMap.putIfAbsent(type, codec);
+                        if (resolvedCodec != null) {
+                            codec = resolvedCodec;
+                        }
+                    } else if (!isCollectionType(type) && unhandledTypes.size() < MAX_UNHANDLED_TYPES) {
+                        unhandledTypes.add(type);
+                    }
+                } catch (PojoCodecCreationException e) {
+                    // the failure might be transient, so the type is calculated again on next request
+                    LOGGER.warn("Could not create codec for type {} reason {}", type, e.getCause().getMessage());
+                }
+            }
+            if (resolution != null) {
+                resolution.complete(codec);
+            }
+        } catch (RuntimeException e) {
+            if (resolution != null) {
+                resolution.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            if (resolution != null) {
+                resolutions.remove(type, resolution);
+            }
+            typesInResolution.remove(type);
+            if (typesInResolution.isEmpty()) {
+                resolvingTypes.remove();
+            }
         }
 
         return codec;
     }
 
+    /**
+     * Whether generic lists, sets and maps are handled depends on the codecs for their element types, which the codec
+     * registry might provide later (e.g. another registry with further codecs). So these are never remembered as unhandled.
+     */
+    private static boolean isCollectionType(Type type) {
+        Class<?> rawClass = ReflectionHelper.extractRawClass(type);
+        return rawClass != null && (List.class.isAssignableFrom(rawClass) || Set.class.isAssignableFrom(rawClass) || Map.class.isAssignableFrom(rawClass));
+    }
+
+    /**
+     * Forgets the types known not to be handled by this context, so they are calculated again on next request.
+     */
+    void clearUnhandledTypes() {
+        unhandledTypes.clear();
+    }
+
+    /**
+     * Waits for a resolution of another thread, as long as that thread does not (transitively) wait for the current thread.
+     *
+     * @param resolution the resolution to wait for
+     * @return true, if the resolution is done, false if waiting would dead lock
+     */
+    private boolean awaitResolution(Resolution resolution) {
+        Thread currentThread = Thread.currentThread();
+        awaitedResolutions.put(currentThread, resolution);
+        try {
+            while (!isWaitingForCurrentThread(resolution)) {
+                try {
+                    resolution.get(DEADLOCK_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    return true;
+                } catch (ExecutionException e) {
+                    return true;
+                } catch (TimeoutException e) {
+                    // check again, the thread owning the resolution might wait for this thread by now
+                } catch (InterruptedException e) {
+                    currentThread.interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for codec resolution.", e);
+                }
+            }
+            return false;
+        } finally {
+            awaitedResolutions.remove(currentThread);
+        }
+    }
+
+    private boolean isWaitingForCurrentThread(Resolution resolution) {
+        Resolution next = resolution;
+        // each thread waits for at most one resolution, so any cycle is shorter than the number of waiting threads
+        for (int i = 0; next != null && i <= awaitedResolutions.size(); i++) {
+            if (next.owner == Thread.currentThread()) {
+                return true;
+            }
+            next = awaitedResolutions.get(next.owner);
+        }
+        return false;
+    }
+
+    private boolean isResolvedWithinCurrentThread(Type type) {
+        Set<Type> typesInResolution = resolvingTypes.get();
+        if (typesInResolution.isEmpty()) {
+            resolvingTypes.remove();
+            return false;
+        }
+        return typesInResolution.contains(type);
+    }
+
+    /**
+     * A codec calculation in progress, owned by the thread calculating the codec
+     */
+    private static class Resolution extends CompletableFuture<Codec<?>> {
+        final Thread owner = Thread.currentThread();
+
+        @Override
+        public Codec<?> join() {
+            try {
+                return super.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+    }
+
 
     /**
      * Iterates over the list of codecResolvers and returns a PolymorphicCodec if match is found.
@@ -157,7 +360,7 @@ public class PojoContext {
      * @param typeCodecRegistry codec registry that can handle any type including parameterizd types, generic arrays, etc
      * @return PolymorphicCodec if responsible resolver is found
      */
-    public synchronized <T> PolymorphicCodec<T> resolve(Type type, TypeCodecRegistry typeCodecRegistry) {
+    public <T> PolymorphicCodec<T> resolve(Type type, TypeCodecRegistry typeCodecRegistry) {
         PolymorphicCodec<T> codec;
         for (CodecResolver codecResolver : codecResolvers) {
             codec = codecResolver.getCodec(type, typeCodecRegistry, codecConfiguration);
@@ -172,9 +375,10 @@ public class PojoContext {
          * Additionally a user can register a {@link PolymorphicCodec} within teh CodecRegistry chain.
          * That codec can be used to encode/decode a type in polymorphic contexts as well as non-polymorphic contexts
          * For an example: {@link AnyThingTest} **/
-        // if codecMap contains a mapping for type (may be LazyCodec), this means, that within the chain of registered codecs,
+        // if codecMap contains a mapping for type or the type is currently being resolved by this thread, this means, that within the chain of registered codecs,
         // there is no codec able to handle the type -> so we need to skip this part and create a reflection based codec
-        if (!codecMap.containsKey(type)) {
+        // resolutions of other threads must not be taken into account, otherwise the outcome would depend on thread timing
+        if (!codecMap.containsKey(type) && !isResolvedWithinCurrentThread(type)) {
             Codec<T> standardCodec = typeCodecRegistry.getCodec(type);
             if (standardCodec instanceof PolymorphicCodec) {
                 return (PolymorphicCodec) standardCodec; // lovely, user provided a PolymorphicCodec
@@ -189,8 +393,46 @@ public class PojoContext {
         }
 
 
-        // fallback is BasicReflectionCodec
-        return new BasicReflectionCodec(type, typeCodecRegistry, codecConfiguration);
+        // codecs generated at compile time by the GeneratedCodecProcessor are preferred
+        ReflectionCodec<T> generatedCodec = getCompileTimeGeneratedCodec(type, typeCodecRegistry);
+        if (generatedCodec != null) {
+            return generatedCodec;
+        }
+
+        // fallback is BasicReflectionCodec or its generated counterpart
+        if (codecConfiguration.isSpecializedCodecs()) {
+            return new SpecializedReflectionCodec(type, getDeclaredAndInheritedFieldTypePairs(type), typeCodecRegistry, codecConfiguration);
+        }
+        return new BasicReflectionCodec(type, getDeclaredAndInheritedFieldTypePairs(type), typeCodecRegistry, codecConfiguration);
+    }
+
+    /**
+     * @return the codec generated by {@link de.bild.codec.processor.GeneratedCodecProcessor} for the given type or null,
+     * if the type is not annotated with {@link GeneratedCodec} or the codec is not available
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ReflectionCodec<T> getCompileTimeGeneratedCodec(Type type, TypeCodecRegistry typeCodecRegistry) {
+        if (!(type instanceof Class) || !((Class<?>) type).isAnnotationPresent(GeneratedCodec.class)) {
+            return null;
+        }
+        Class<?> clazz = (Class<?>) type;
+        String packagePrefix = clazz.getPackage() != null && !clazz.getPackage().getName().isEmpty() ? clazz.getPackage().getName() + "." : "";
+        String codecClassName = packagePrefix + clazz.getName().substring(packagePrefix.length()).replace('$', '_') + GeneratedCodec.CODEC_CLASS_SUFFIX;
+        Class<?> codecClass;
+        try {
+            codecClass = Class.forName(codecClassName, true, clazz.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            LOGGER.debug("No generated codec {} found for {}. Using reflection based codec.", codecClassName, clazz);
+            return null;
+        }
+        try {
+            return (ReflectionCodec<T>) codecClass.getConstructor(Type.class, TypeCodecRegistry.class, CodecConfiguration.class)
+                    .newInstance(type, typeCodecRegistry, codecConfiguration);
+        } catch (InvocationTargetException e) {
+            throw new CodecConfigurationException("Could not instantiate generated codec " + codecClassName, e.getCause());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CodecConfigurationException("Could not instantiate generated codec " + codecClassName, e);
+        }
     }
 
     private static class PolymorphicCodecWrapper<T> implements PolymorphicCodec<T> {
@@ -275,12 +517,12 @@ public class PojoContext {
             Type listInterface = ReflectionHelper.findInterface(type, List.class);
             if (listInterface instanceof ParameterizedType && !TypeUtils.containsTypeVariables(listInterface)) {
                 ParameterizedType parameterizedType = (ParameterizedType) listInterface;
-                try {
-                    codec = new ListTypeCodec(rawClass, parameterizedType.getActualTypeArguments()[0], typeCodecRegistry);
-                } catch (CodecConfigurationException cce) {
-                    // unfortunately there is no elegant way to figure out, if a codec for the valueType can be build within the codecRegistry
-                    // if all codecs have been tested an exception will be raised, this then indicates, that the mongo java driver codecs for lists need to be chosen
-                    LOGGER.debug("Can't create advanced (generic list) codec for {}. Fall back to mongo db driver defaults.", parameterizedType, cce.getMessage());
+                Type valueType = parameterizedType.getActualTypeArguments()[0];
+                // if there is no codec for the valueType, the mongo java driver codecs for lists need to be chosen
+                if (typeCodecRegistry.findCodec(valueType) != null) {
+                    codec = new ListTypeCodec(rawClass, valueType, typeCodecRegistry);
+                } else {
+                    LOGGER.debug("Can't create advanced (generic list) codec for {}. Fall back to mongo db driver defaults.", parameterizedType);
                 }
             }
         } else if (rawClass != null && Set.class.isAssignableFrom(rawClass)) {
@@ -288,12 +530,12 @@ public class PojoContext {
             Type setInterface = ReflectionHelper.findInterface(type, Set.class);
             if (setInterface instanceof ParameterizedType && !TypeUtils.containsTypeVariables(setInterface)) {
                 ParameterizedType parameterizedType = (ParameterizedType) setInterface;
-                try {
-                    codec = new SetTypeCodec(rawClass, parameterizedType.getActualTypeArguments()[0], typeCodecRegistry);
-                } catch (CodecConfigurationException cce) {
-                    // unfortunately there is no elegant way to figure out, if a codec for the valueType can be build within the codecRegistry
-                    // if all codecs have been tested an exception will be raised, this then indicates, that the mongo java driver codecs for sets need to be chosen
-                    LOGGER.debug("Can't create advanced (generic set) codec for {}. Fall back to mongo db driver defaults.", parameterizedType, cce.getMessage());
+                Type valueType = parameterizedType.getActualTypeArguments()[0];
+                // if there is no codec for the valueType, the mongo java driver codecs for sets need to be chosen
+                if (typeCodecRegistry.findCodec(valueType) != null) {
+                    codec = new SetTypeCodec(rawClass, valueType, typeCodecRegistry);
+                } else {
+                    LOGGER.debug("Can't create advanced (generic set) codec for {}. Fall back to mongo db driver defaults.", parameterizedType);
                 }
             }
         } else if (Document.class.isAssignableFrom(rawClass)) {
@@ -306,16 +548,15 @@ public class PojoContext {
                 ParameterizedType parameterizedType = (ParameterizedType) mapInterface;
                 Type keyType = parameterizedType.getActualTypeArguments()[0];
                 Type valueType = parameterizedType.getActualTypeArguments()[1];
-                try {
-                    if (keyType.equals(String.class)) {
-                        codec = new SimpleMapTypeCodec(rawClass, valueType, typeCodecRegistry);
-                    } else {
-                        codec = new ComplexMapTypeCodec(rawClass, keyType, valueType, typeCodecRegistry);
-                    }
-                } catch (CodecConfigurationException cce) {
-                    // unfortunately there is no elegant way to figure out, if a codec for the valueType can be build within the codecRegistry
-                    // if all codecs have been tested an exception will be raised, this then indicates, that the mongo java driver codecs for maps need to be chosen
-                    LOGGER.debug("Can't create advanced (generic map) codec for {}. Fall back to mongo db driver defaults.", parameterizedType, cce.getMessage());
+                // if there is no codec for the keyType or valueType, the mongo java driver codecs for maps need to be chosen
+                if (typeCodecRegistry.findCodec(valueType) == null) {
+                    LOGGER.debug("Can't create advanced (generic map) codec for {}. Fall back to mongo db driver defaults.", parameterizedType);
+                } else if (keyType.equals(String.class)) {
+                    codec = new SimpleMapTypeCodec(rawClass, valueType, typeCodecRegistry);
+                } else if (typeCodecRegistry.findCodec(keyType) != null) {
+                    codec = new ComplexMapTypeCodec(rawClass, keyType, valueType, typeCodecRegistry);
+                } else {
+                    LOGGER.debug("Can't create advanced (generic map) codec for {}. Fall back to mongo db driver defaults.", parameterizedType);
                 }
             }
         } else {
@@ -337,8 +578,7 @@ public class PojoContext {
                     codec = resolve(singleType, typeCodecRegistry);
                 }
             } catch (Exception e) {
-                LOGGER.warn("Could not create codec for type {} reason {}", type, e.getMessage());
-                return null;
+                throw new PojoCodecCreationException(e);
             }
         }
         return codec;
@@ -360,20 +600,10 @@ public class PojoContext {
     }
 
     private boolean isClassPartOfPolymorphicStructureWithinTypesModel(Class clazz) {
-        Class superclass = clazz.getSuperclass();
-        // first check if superclass is part of typesModel, if so return true
+        // if superclass or any interface is part of typesModel, return true
         // Reason: for the current field, since only one valid type exists, non-polymorphic structure could be assumed, but since
         // there might be pojos, that declare its type further up the type hierarchy and want to decode the same data from the database, discriminators are needed
-        if (typesModel.getClassHierarchyNodeForType(superclass) != null) {
-            return true;
-        }
-        // now check if any interface is part of the typesModel, if so, return true
-        for (Class anInterface : clazz.getInterfaces()) {
-            if (typesModel.getClassHierarchyNodeForType(anInterface) != null) {
-                return true;
-            }
-        }
-        return false;
+        return typesModel.hasSuperTypeWithinModel(clazz);
     }
 
     /**
@@ -417,4 +647,4 @@ public class PojoContext {
             return getWrapped();
         }
     }
-}
\ No newline at end of file
+}
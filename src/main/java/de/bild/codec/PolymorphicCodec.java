@@ -1,5 +1,6 @@
 package de.bild.codec;
 
+import de.bild.codec.annotations.DecodingPojoFailureStrategy;
 import org.bson.BsonReader;
 import org.bson.BsonReaderMark;
 import org.bson.BsonType;
@@ -44,39 +45,52 @@ public interface PolymorphicCodec<T> extends TypeCodec<T> {
 
     @Override
     default T decode(BsonReader reader, DecoderContext decoderContext) {
+        if (reader.getCurrentBsonType() == null || reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+            // a mark is only needed to skip the value after a failure
+            BsonReaderMark mark = getDecodingPojoFailureStrategy() != DecodingPojoFailureStrategy.Strategy.RETHROW_EXCEPTION ? reader.getMark() : null;
+            return decodeDocument(reader, decoderContext, mark, true);
+        } else {
+            LOGGER.error("Expected to read document but reader is in state {}. Skipping value!", reader.getCurrentBsonType());
+            reader.skipValue();
+            return null;
+        }
+    }
 
-            T newInstance;
-            if (reader.getCurrentBsonType() == null || reader.getCurrentBsonType() == BsonType.DOCUMENT) {
-
-                BsonReaderMark mark = null;
-                try {
-                    mark = reader.getMark();
-                    reader.readStartDocument();
-                    newInstance = decodeFields(reader, decoderContext, newInstance());
-                    reader.readEndDocument();
-                } catch (Exception e) {
-                    LOGGER.error("Exception while reading pojo from reader. Skipping value.", e);
-                    switch (getDecodingPojoFailureStrategy()) {
-                        case RETHROW_EXCEPTION:
-                            throw e;
-                        case NULL:
-                        default: {
-                            if (mark != null) {
-                                mark.reset();
-                                reader.skipValue();
-                            }
-                        }
-                        return null;
+    /**
+     * Decodes a document including its end. {@link PolymorphicReflectionCodec} reads the start of the document and the
+     * discriminator itself and hands over the reader to decode the remaining fields within the same pass.
+     *
+     * @param reader            the reader
+     * @param decoderContext    the decoder context
+     * @param mark              a mark taken before the start of the document to skip the document after a failure, may be null
+     * @param readStartDocument false, if the start of the document (and possibly some elements) has been read already
+     * @return the decoded instance or null if decoding failed and the {@link DecodingPojoFailureStrategy} says so
+     */
+    default T decodeDocument(BsonReader reader, DecoderContext decoderContext, BsonReaderMark mark, boolean readStartDocument) {
+        T newInstance;
+        try {
+            if (readStartDocument) {
+                reader.readStartDocument();
+            }
+            newInstance = decodeFields(reader, decoderContext, newInstance());
+            reader.readEndDocument();
+        } catch (Exception e) {
+            LOGGER.error("Exception while reading pojo from reader. Skipping value.", e);
+            switch (getDecodingPojoFailureStrategy()) {
+                case RETHROW_EXCEPTION:
+                    throw e;
+                case NULL:
+                default: {
+                    if (mark != null) {
+                        mark.reset();
+                        reader.skipValue();
                     }
                 }
-
-                return newInstance;
-            } else {
-                LOGGER.error("Expected to read document but reader is in state {}. Skipping value!", reader.getCurrentBsonType());
-                reader.skipValue();
                 return null;
             }
+        }
 
+        return newInstance;
     }
 
     @Override
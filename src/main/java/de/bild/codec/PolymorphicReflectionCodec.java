@@ -4,35 +4,54 @@ import com.mongodb.client.model.Filters;
 import de.bild.codec.annotations.Discriminator;
 import de.bild.codec.annotations.DiscriminatorFallback;
 import de.bild.codec.annotations.DiscriminatorKey;
+import de.bild.codec.annotations.Id;
+import de.bild.codec.annotations.Transient;
 import org.bson.*;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(PolymorphicReflectionCodec.class);
     final Class<T> clazz;
-    final Map<String, PolymorphicCodec<T>> discriminatorToCodec = new HashMap<>();
-    final Map<Class<?>, PolymorphicCodec<T>> classToCodec = new HashMap<>();
-    final Map<Class<?>, String> mainDiscriminators = new HashMap<>();
-    final Map<Class<?>, String> discriminatorKeys = new HashMap<>();
+    final Map<String, SubType<T>> discriminatorToSubType = new HashMap<>();
+    final Map<Class<?>, SubType<T>> classToSubType = new HashMap<>();
     final Set<String> allDiscriminatorKeys = new HashSet<>();
+    final FieldNameIndex discriminatorKeyIndex;
+    /**
+     * sub types by {@link Discriminator#code()}, null if no class declares a code
+     */
+    final SubType<T>[] subTypesByDiscriminatorCode;
     final Bson typeFilter;
+    /**
+     * the sub type resolved once per runtime class, including sub classes that are not registered
+     * owned by this codec, so the classes do not keep the codec (and the codec registry) reachable
+     */
+    private final Map<Class<?>, SubType<T>> subTypeByClass = new ConcurrentHashMap<>();
 
-    PolymorphicCodec<T> fallBackCodec;
+    SubType<T> fallBackSubType;
     final boolean isCollectible;
+    // false, if a sub class overrides decodeWithType(), which expects the reader at the start of the document
+    private final boolean isSinglePassDecoding;
 
     public PolymorphicReflectionCodec(Type type, Set<Type> validTypes, TypeCodecRegistry typeCodecRegistry, PojoContext pojoContext) {
         this.clazz = AbstractTypeCodec.extractClass(type);
         boolean isAnyCodecCollectible = false;
         List<Bson> allDiscriminatorKeyValueFilters = new ArrayList<>();
+        Map<Integer, SubType<T>> subTypesByCode = new HashMap<>();
+        boolean hierarchicalDiscriminators = pojoContext.getCodecConfiguration().isHierarchicalDiscriminators();
+        // hierarchical discriminators: the discriminators of the least specific classes assignable to the type by key
+        Map<String, Set<Object>> typeDiscriminators = new LinkedHashMap<>();
         for (Type validType : validTypes) {
             try {
                 Class<T> clazz = AbstractTypeCodec.extractClass(validType);
@@ -41,49 +60,66 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
                     String discriminatorKey = getDiscriminatorKeyForClass(clazz);
                     boolean isFallBack = clazz.getDeclaredAnnotation(DiscriminatorFallback.class) != null;
 
-                    discriminatorKeys.putIfAbsent(clazz, discriminatorKey);
                     allDiscriminatorKeys.add(discriminatorKey);
 
-                    PolymorphicCodec codecFor = pojoContext.resolve(validType, typeCodecRegistry);
+                    Discriminator discriminatorAnnotation = clazz.getDeclaredAnnotation(Discriminator.class);
+                    String mainDiscriminator = getMainDiscriminator(clazz);
+                    List<String> allDiscriminators = new ArrayList<>();
+                    allDiscriminators.add(mainDiscriminator);
+                    int discriminatorCode = Discriminator.NO_CODE;
+                    if (discriminatorAnnotation != null) {
+                        discriminatorCode = discriminatorAnnotation.code();
+                        Collections.addAll(allDiscriminators, discriminatorAnnotation.aliases());
+                    }
+                    List<Object> hierarchy = null;
+                    if (hierarchicalDiscriminators) {
+                        List<Class<?>> classHierarchy = getClassHierarchy(clazz);
+                        hierarchy = new ArrayList<>();
+                        for (Class<?> hierarchyClass : classHierarchy) {
+                            hierarchy.add(getWrittenDiscriminator(hierarchyClass));
+                        }
+                        for (Class<?> hierarchyClass : classHierarchy) {
+                            if (this.clazz.isAssignableFrom(hierarchyClass)) {
+                                typeDiscriminators.computeIfAbsent(discriminatorKey, key -> new LinkedHashSet<>()).addAll(getAcceptedDiscriminators(hierarchyClass));
+                                break;
+                            }
+                        }
+                    }
+                    SubType<T> subType = new SubType<>(clazz, validType, discriminatorKey,
+                            new EncodedDiscriminator(discriminatorKey, mainDiscriminator, discriminatorCode, hierarchy),
+                            typeCodecRegistry, pojoContext, allDiscriminatorKeys);
 
                     if (isFallBack) {
-                        if (fallBackCodec != null) {
-                            LOGGER.error("It is not allowed to declare more han one class within hierarchy as fallback. {} found already {}", clazz, codecFor.getEncoderClass());
+                        if (fallBackSubType != null) {
+                            LOGGER.error("It is not allowed to declare more han one class within hierarchy as fallback. {} found already {}", clazz, fallBackSubType.clazz);
                             throw new IllegalArgumentException("It is not allowed to declare more han one class within hierarchy as fallback." + clazz);
                         } else {
-                            fallBackCodec = codecFor;
+                            fallBackSubType = subType;
                             LOGGER.debug("Found fallback discriminator at class {}", clazz);
                         }
                     }
 
-                    isAnyCodecCollectible |= codecFor.isCollectible();
-
-                    classToCodec.put(clazz, codecFor);
-
-                    Discriminator discriminatorAnnotation = clazz.getDeclaredAnnotation(Discriminator.class);
-                    String mainDiscriminator = clazz.getSimpleName();
-                    List<String> allDiscriminators = new ArrayList<>();
-                    if (discriminatorAnnotation != null) {
-                        if (discriminatorAnnotation.value() != null) {
-                            mainDiscriminator = discriminatorAnnotation.value();
-                        }
-                        allDiscriminators.add(mainDiscriminator);
-                        for (String alias : discriminatorAnnotation.aliases()) {
-                            allDiscriminators.add(alias);
-                        }
-                    } else {
-                        allDiscriminators.add(mainDiscriminator);
-                    }
+                    classToSubType.put(clazz, subType);
 
                     for (String discriminator : allDiscriminators) {
                         allDiscriminatorKeyValueFilters.add(Filters.eq(discriminatorKey, discriminator));
-                        PolymorphicCodec<T> registeredCodec = this.discriminatorToCodec.putIfAbsent(discriminator, codecFor);
-                        if (registeredCodec != null) {
-                            LOGGER.warn("Cannot register multiple classes ({}, {}) for the same discriminator {} ", clazz, registeredCodec.getEncoderClass(), discriminator);
-                            throw new IllegalArgumentException("Cannot register multiple classes (" + clazz + ", " + registeredCodec.getEncoderClass() + ") for the same discriminator " + discriminator);
+                        SubType<T> registeredSubType = this.discriminatorToSubType.putIfAbsent(discriminator, subType);
+                        if (registeredSubType != null) {
+                            LOGGER.warn("Cannot register multiple classes ({}, {}) for the same discriminator {} ", clazz, registeredSubType.clazz, discriminator);
+                            throw new IllegalArgumentException("Cannot register multiple classes (" + clazz + ", " + registeredSubType.clazz + ") for the same discriminator " + discriminator);
+                        }
+                    }
+                    if (discriminatorCode != Discriminator.NO_CODE) {
+                        if (discriminatorCode < 0 || discriminatorCode > Discriminator.MAX_CODE) {
+                            throw new IllegalArgumentException("Discriminator code " + discriminatorCode + " of " + clazz + " is not within 0.." + Discriminator.MAX_CODE);
+                        }
+                        allDiscriminatorKeyValueFilters.add(Filters.eq(discriminatorKey, discriminatorCode));
+                        SubType<T> registeredSubType = subTypesByCode.putIfAbsent(discriminatorCode, subType);
+                        if (registeredSubType != null) {
+                            LOGGER.warn("Cannot register multiple classes ({}, {}) for the same discriminator code {} ", clazz, registeredSubType.clazz, discriminatorCode);
+                            throw new IllegalArgumentException("Cannot register multiple classes (" + clazz + ", " + registeredSubType.clazz + ") for the same discriminator code " + discriminatorCode);
                         }
                     }
-                    mainDiscriminators.put(clazz, mainDiscriminator);
                 }
             } catch (IllegalArgumentException e) {
                 throw e;
@@ -92,16 +128,99 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
             }
         }
 
-        //check for properties within classes that are named exactly like one of the used main discrimimnator keys
-        for (PolymorphicCodec<T> typeCodec : classToCodec.values()) {
-            typeCodec.verifyFieldsNotNamedLikeAnyDiscriminatorKey(allDiscriminatorKeys);
+        if (pojoContext.hasCodecResolvers()) {
+            // custom codec resolvers may provide codecs of any shape, only the resolved codecs can tell their fields and collectibility
+            for (SubType<T> subType : classToSubType.values()) {
+                PolymorphicCodec<T> codec = subType.getCodec();
+                isAnyCodecCollectible |= codec != null && codec.isCollectible();
+            }
+        } else {
+            // sub type codecs are resolved on first use, the checks are based on the fields a reflection codec would map
+            for (SubType<T> subType : classToSubType.values()) {
+                isAnyCodecCollectible |= subType.verifyMappedFields(allDiscriminatorKeys);
+            }
         }
-        this.typeFilter = Filters.or(allDiscriminatorKeyValueFilters);
+        this.typeFilter = hierarchicalDiscriminators ? toHierarchicalTypeFilter(typeDiscriminators) : Filters.or(allDiscriminatorKeyValueFilters);
+        this.discriminatorKeyIndex = new FieldNameIndex(new ArrayList<>(allDiscriminatorKeys));
+        this.subTypesByDiscriminatorCode = toSubTypeTable(subTypesByCode);
 
         // if any of the subclass codecs need  application id generation, mark this codec as being collectible
         this.isCollectible = isAnyCodecCollectible;
+        this.isSinglePassDecoding = !overridesDecodeWithType(getClass());
+
+        LOGGER.debug("Type {} -> Found the following matching types {}", type, discriminatorToSubType);
+    }
+
+    /**
+     * @return a single equality (or $in over the aliases) per discriminator key, if all sub types share a common super
+     * class discriminator
+     */
+    private static Bson toHierarchicalTypeFilter(Map<String, Set<Object>> typeDiscriminators) {
+        List<Bson> filters = new ArrayList<>();
+        for (Map.Entry<String, Set<Object>> discriminatorsByKey : typeDiscriminators.entrySet()) {
+            Set<Object> discriminators = discriminatorsByKey.getValue();
+            filters.add(discriminators.size() == 1
+                    ? Filters.eq(discriminatorsByKey.getKey(), discriminators.iterator().next())
+                    : Filters.in(discriminatorsByKey.getKey(), discriminators));
+        }
+        return filters.size() == 1 ? filters.get(0) : Filters.or(filters);
+    }
+
+    /**
+     * @return the class and all its super classes (except Object), least specific class first
+     */
+    private static List<Class<?>> getClassHierarchy(Class<?> clazz) {
+        LinkedList<Class<?>> classHierarchy = new LinkedList<>();
+        for (Class<?> hierarchyClass = clazz; hierarchyClass != null && hierarchyClass != Object.class; hierarchyClass = hierarchyClass.getSuperclass()) {
+            classHierarchy.addFirst(hierarchyClass);
+        }
+        return classHierarchy;
+    }
+
+    private static String getMainDiscriminator(Class<?> clazz) {
+        Discriminator discriminatorAnnotation = clazz.getDeclaredAnnotation(Discriminator.class);
+        if (discriminatorAnnotation != null && discriminatorAnnotation.value() != null && !discriminatorAnnotation.value().isEmpty()) {
+            return discriminatorAnnotation.value();
+        }
+        return clazz.getSimpleName();
+    }
+
+    /**
+     * @return the discriminator code (Integer) or the main discriminator (String) of any class
+     */
+    private static Object getWrittenDiscriminator(Class<?> clazz) {
+        Discriminator discriminatorAnnotation = clazz.getDeclaredAnnotation(Discriminator.class);
+        if (discriminatorAnnotation != null && discriminatorAnnotation.code() != Discriminator.NO_CODE) {
+            return discriminatorAnnotation.code();
+        }
+        return getMainDiscriminator(clazz);
+    }
 
-        LOGGER.debug("Type {} -> Found the following matching types {}", type, discriminatorToCodec);
+    /**
+     * @return the written discriminator, the main discriminator and all aliases of a class, as any of them is accepted
+     * within discriminator arrays
+     */
+    private static Set<Object> getAcceptedDiscriminators(Class<?> clazz) {
+        Set<Object> discriminators = new LinkedHashSet<>();
+        discriminators.add(getWrittenDiscriminator(clazz));
+        discriminators.add(getMainDiscriminator(clazz));
+        Discriminator discriminatorAnnotation = clazz.getDeclaredAnnotation(Discriminator.class);
+        if (discriminatorAnnotation != null) {
+            Collections.addAll(discriminators, discriminatorAnnotation.aliases());
+        }
+        return discriminators;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> SubType<T>[] toSubTypeTable(Map<Integer, SubType<T>> subTypesByCode) {
+        if (subTypesByCode.isEmpty()) {
+            return null;
+        }
+        SubType<T>[] subTypeTable = new SubType[Collections.max(subTypesByCode.keySet()) + 1];
+        for (Map.Entry<Integer, SubType<T>> subTypeByCode : subTypesByCode.entrySet()) {
+            subTypeTable[subTypeByCode.getKey()] = subTypeByCode.getValue();
+        }
+        return subTypeTable;
     }
 
     private String getDiscriminatorKeyForClass(Class<?> clazz) {
@@ -123,19 +242,39 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
         BsonReaderMark mark = reader.getMark();
         reader.readStartDocument();
         PolymorphicCodec<T> codec = null;
+        boolean isFirstElement = true;
         while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
             String fieldName = reader.readName();
-            if (allDiscriminatorKeys.contains(fieldName)) {
-                discriminator = reader.readString();
-                codec = getCodecForDiscriminator(discriminator);
-                if (codec != null) {
-                    //now check that the codec found actually has the correct
-                    String discriminatorKeyForClass = discriminatorKeys.get(codec.getEncoderClass());
+            if (discriminatorKeyIndex.indexOf(fieldName) >= 0) {
+                SubType<T> subType;
+                if (reader.getCurrentBsonType() == BsonType.INT32) {
+                    int discriminatorCode = reader.readInt32();
+                    subType = getSubTypeForDiscriminatorCode(discriminatorCode);
+                    discriminator = subType == null ? String.valueOf(discriminatorCode) : null;
+                } else if (reader.getCurrentBsonType() == BsonType.ARRAY) {
+                    subType = readHierarchicalDiscriminator(reader);
+                    discriminator = subType == null ? "[" + fieldName + " array]" : null;
+                } else {
+                    discriminator = reader.readString();
+                    subType = getSubTypeForDiscriminator(discriminator);
+                }
+                if (subType != null) {
+                    //now check that the sub type found actually has the correct discriminator key
+                    String discriminatorKeyForClass = subType.discriminatorKey;
                     if (fieldName.equals(discriminatorKeyForClass)) {
+                        codec = subType.getCodec();
+                        if (codec == null) {
+                            discriminator = subType.discriminator.value;
+                            isFirstElement = false;
+                            continue;
+                        }
+                        if (isFirstElement && isSinglePassDecoding) {
+                            // documents written by polymorphia start with the discriminator, decode the remaining fields in the same pass
+                            return codec.decodeDocument(reader, decoderContext, mark, false);
+                        }
                         break;
                     } else {
                         discriminator = null;
-                        codec = null;
                         LOGGER.warn("Confusing. Skipping discriminator {} encoded in discriminator key {} since the " +
                                         "destination class is declaring a different discriminator key {}.",
                                 discriminator, fieldName, discriminatorKeyForClass);
@@ -144,8 +283,10 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
             } else {
                 reader.skipValue();
             }
+            isFirstElement = false;
         }
 
+        // the discriminator is not the first element (or there is none), decode the document in a second pass
         mark.reset();
 
         // try fallback and legacy handling
@@ -155,24 +296,24 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
                 reader.skipValue();
                 return null; // todo: when switching to mongo db 3.6 an exception should be thrown instead of returning null
             }
-            LOGGER.debug("No discriminator found in db for entity. Trying fallback. Fallback is {}", fallBackCodec);
-            codec = fallBackCodec;
+            LOGGER.debug("No discriminator found in db for entity. Trying fallback. Fallback is {}", fallBackSubType);
+            codec = fallBackSubType != null ? fallBackSubType.getCodec() : null;
             if (codec == null) {
-                LOGGER.debug("FallbackCodec is null. Still no matching codec found for discriminator {} within discriminatorToCodec {}", discriminator, discriminatorToCodec);
-                if (classToCodec.values().size() == 1) {
-                    codec = classToCodec.values().iterator().next();
+                LOGGER.debug("FallbackCodec is null. Still no matching codec found for discriminator {} within discriminatorToSubType {}", discriminator, discriminatorToSubType);
+                if (classToSubType.values().size() == 1) {
+                    codec = classToSubType.values().iterator().next().getCodec();
                     LOGGER.debug("Found single possible codec {} for type {}", codec, getEncoderClass());
                 }
                 else {
-                    LOGGER.info("Legacy handling to resolve entities in db without discriminator failed as there are (now?) more than one codecs available {}. One option is to use @DiscriminatrFallback at the legacy class or to add discriminators to the entities within the database. For now, return least specific codec.", classToCodec);
-                    codec = classToCodec.get(getEncoderClass());
-                    // if codec is still null at this point, something is broken -> should not happen
-                    if (codec == null) {
-                        LOGGER.warn("Skipping value. Can not determine codec for class {} from available codecs {}", getEncoderClass(), classToCodec);
-                        reader.skipValue();
-                        return null;// todo: when switching to mongo db 3.6 an exception should be thrown instead of returning null, so this entity can be skipped
-                    }
-
+                    LOGGER.info("Legacy handling to resolve entities in db without discriminator failed as there are (now?) more than one codecs available {}. One option is to use @DiscriminatrFallback at the legacy class or to add discriminators to the entities within the database. For now, return least specific codec.", classToSubType);
+                    SubType<T> subType = classToSubType.get(getEncoderClass());
+                    codec = subType != null ? subType.getCodec() : null;
+                }
+                // if codec is still null at this point, something is broken -> should not happen
+                if (codec == null) {
+                    LOGGER.warn("Skipping value. Can not determine codec for class {} from available codecs {}", getEncoderClass(), classToSubType);
+                    reader.skipValue();
+                    return null;// todo: when switching to mongo db 3.6 an exception should be thrown instead of returning null, so this entity can be skipped
                 }
             }
         }
@@ -182,10 +323,54 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
     }
 
 
+    /**
+     * Reads an array of discriminators written with {@link PojoCodecProvider.Builder#hierarchicalDiscriminators(boolean)}
+     *
+     * @return the sub type of the most specific (last) known discriminator, null if there is none
+     */
+    private SubType<T> readHierarchicalDiscriminator(BsonReader reader) {
+        SubType<T> mostSpecificSubType = null;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            SubType<T> subType;
+            if (reader.getCurrentBsonType() == BsonType.INT32) {
+                subType = getSubTypeForDiscriminatorCode(reader.readInt32());
+            } else if (reader.getCurrentBsonType() == BsonType.STRING) {
+                subType = discriminatorToSubType.get(reader.readString());
+            } else {
+                reader.skipValue();
+                subType = null;
+            }
+            if (subType != null) {
+                mostSpecificSubType = subType;
+            }
+        }
+        reader.readEndArray();
+        return mostSpecificSubType;
+    }
+
+    /**
+     * Decodes the document with the codec of the sub type. The reader is positioned at the start of the document.
+     * <p>
+     * Documents starting with the discriminator are decoded within a single pass, without calling this method. Sub classes
+     * overriding this method turn the single pass decoding off, so the method is called for every document.
+     */
     protected T decodeWithType(BsonReader reader, DecoderContext decoderContext, PolymorphicCodec<T> polymorphicCodec) {
         return polymorphicCodec.decode(reader, decoderContext);
     }
 
+    private static boolean overridesDecodeWithType(Class<?> clazz) {
+        for (; clazz != PolymorphicReflectionCodec.class; clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod("decodeWithType", BsonReader.class, DecoderContext.class, PolymorphicCodec.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not declared by this class
+            }
+        }
+        return false;
+    }
+
     @Override
     public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
         if (value == null) {
@@ -193,29 +378,194 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
         }
         else {
             writer.writeStartDocument();
-            PolymorphicCodec<T> codecForValue = getCodecForClass(value.getClass());
-            if (codecForValue != null) {
-                writer.writeName(discriminatorKeys.get(codecForValue.getEncoderClass()));
-                writer.writeString(mainDiscriminators.get(codecForValue.getEncoderClass()));
-                codecForValue.encodeFields(writer, value, encoderContext);
+            SubType<T> subType = getSubTypeForClass(value.getClass());
+            PolymorphicCodec<T> codec = subType != null ? subType.getCodec() : null;
+            if (codec != null) {
+                subType.discriminator.write(writer);
+                codec.encodeFields(writer, value, encoderContext);
             } else {
-                LOGGER.warn("The value to be encoded has the wrong type {}. This codec can only handle {}", value.getClass(), discriminatorToCodec);
+                LOGGER.warn("The value to be encoded has the wrong type {}. This codec can only handle {}", value.getClass(), discriminatorToSubType);
             }
             writer.writeEndDocument();
         }
     }
 
 
-    private PolymorphicCodec<T> getCodecForDiscriminator(String discriminator) {
+    /**
+     * A concrete class within the hierarchy. Its discriminators are known upfront, its codec is resolved on first use.
+     */
+    static final class SubType<T> {
+        final Class<T> clazz;
+        final Type type;
+        final String discriminatorKey;
+        final EncodedDiscriminator discriminator;
+        private final TypeCodecRegistry typeCodecRegistry;
+        private final PojoContext pojoContext;
+        // all discriminator keys of the hierarchy, complete once the polymorphic codec is constructed
+        private final Set<String> allDiscriminatorKeys;
+        private volatile PolymorphicCodec<T> codec;
+        private volatile boolean isUnresolvable;
+        // the reason, why the codec is unresolvable
+        private volatile Exception failure;
+
+        SubType(Class<T> clazz, Type type, String discriminatorKey, EncodedDiscriminator discriminator,
+                TypeCodecRegistry typeCodecRegistry, PojoContext pojoContext, Set<String> allDiscriminatorKeys) {
+            this.clazz = clazz;
+            this.type = type;
+            this.discriminatorKey = discriminatorKey;
+            this.discriminator = discriminator;
+            this.typeCodecRegistry = typeCodecRegistry;
+            this.pojoContext = pojoContext;
+            this.allDiscriminatorKeys = allDiscriminatorKeys;
+        }
+
+        /**
+         * @return the codec for the sub type or null, if it cannot be resolved
+         */
+        PolymorphicCodec<T> getCodec() {
+            PolymorphicCodec<T> codec = this.codec;
+            if (codec == null && !isUnresolvable) {
+                synchronized (this) {
+                    codec = this.codec;
+                    if (codec == null && !isUnresolvable) {
+                        codec = resolveCodec();
+                    }
+                }
+            }
+            return codec;
+        }
+
+        private PolymorphicCodec<T> resolveCodec() {
+            try {
+                PolymorphicCodec<T> codec = pojoContext.resolve(type, typeCodecRegistry);
+                //check for properties within classes that are named exactly like one of the used main discrimimnator keys
+                codec.verifyFieldsNotNamedLikeAnyDiscriminatorKey(allDiscriminatorKeys);
+                this.codec = codec;
+                return codec;
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Exception any) {
+                LOGGER.warn("Could not create codec for type {} reason {}", type, any.getMessage());
+                failure = any;
+                isUnresolvable = true;
+                return null;
+            }
+        }
+
+        /**
+         * Resolves the codec now instead of on first use.
+         *
+         * @throws CodecConfigurationException if the codec cannot be resolved
+         */
+        void resolve() {
+            if (getCodec() == null) {
+                throw new CodecConfigurationException("Could not create codec for sub type " + type, failure);
+            }
+        }
+
+        /**
+         * Checks the fields a reflection based codec would map without resolving the codec.
+         *
+         * @return true, if the sub type declares a collectible id
+         */
+        boolean verifyMappedFields(Set<String> discriminatorKeys) throws IllegalArgumentException {
+            boolean hasCollectibleId = false;
+            for (FieldTypePair fieldTypePair : pojoContext.getDeclaredAndInheritedFieldTypePairs(type)) {
+                Field field = fieldTypePair.getField();
+                if (field.isAnnotationPresent(Transient.class) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                Id idAnnotation = field.getAnnotation(Id.class);
+                String mappedFieldName = idAnnotation != null ? MappedField.ID_KEY : field.getName();
+                if (discriminatorKeys.contains(mappedFieldName)) {
+                    LOGGER.error("A field {} within {} is named like one of the discriminator keys {}", mappedFieldName, clazz, discriminatorKeys);
+                    throw new IllegalArgumentException("A field " + mappedFieldName + " within " + clazz + " is named like one of the discriminator keys " + discriminatorKeys);
+                }
+                hasCollectibleId |= idAnnotation != null && idAnnotation.collectible();
+            }
+            return hasCollectibleId;
+        }
+
+        boolean isResolved() {
+            return codec != null;
+        }
+
+        @Override
+        public String toString() {
+            return clazz.getName();
+        }
+    }
+
+    /**
+     * The discriminator key and main discriminator (or discriminator code) of a class, encoded once
+     */
+    static final class EncodedDiscriminator {
+        final EncodedName key;
+        final String value;
+        final byte[] encodedValue;
+        final int code;
+        // the written discriminators (Integer or String) of all classes within the class hierarchy, null if not hierarchical
+        final List<Object> hierarchy;
+
+        EncodedDiscriminator(String key, String value, int code, List<Object> hierarchy) {
+            this.key = new EncodedName(key);
+            this.value = value;
+            this.encodedValue = EncodedName.encodeStringValue(value);
+            this.code = code;
+            this.hierarchy = hierarchy;
+        }
+
+        void write(BsonWriter writer) {
+            if (hierarchy != null) {
+                key.writeName(writer);
+                writer.writeStartArray();
+                for (Object discriminator : hierarchy) {
+                    if (discriminator instanceof Integer) {
+                        writer.writeInt32((Integer) discriminator);
+                    } else {
+                        writer.writeString((String) discriminator);
+                    }
+                }
+                writer.writeEndArray();
+            } else if (code != Discriminator.NO_CODE) {
+                key.writeInt32(writer, code);
+            } else {
+                key.writeString(writer, value, encodedValue);
+            }
+        }
+    }
+
+    private SubType<T> getSubTypeForDiscriminator(String discriminator) {
         if (discriminator == null) {
             LOGGER.warn("Discriminator key cannot be null.");
             return null;
         }
-        return discriminatorToCodec.get(discriminator);
+        return discriminatorToSubType.get(discriminator);
+    }
+
+    private SubType<T> getSubTypeForDiscriminatorCode(int discriminatorCode) {
+        if (subTypesByDiscriminatorCode == null || discriminatorCode < 0 || discriminatorCode >= subTypesByDiscriminatorCode.length) {
+            return null;
+        }
+        return subTypesByDiscriminatorCode[discriminatorCode];
     }
 
     /**
-     * Walks up class hierarchy until a registered codec (in the context of registered model classes) is found
+     * Resolves the codecs of all sub types, which are resolved on first use otherwise.
+     * Used by {@link PojoCodecProvider#warmUp(org.bson.codecs.configuration.CodecRegistry, java.util.concurrent.ForkJoinPool)}.
+     *
+     * @throws IllegalArgumentException    if the codec of a sub type is misconfigured
+     * @throws CodecConfigurationException if the codec of a sub type cannot be resolved
+     */
+    void resolveAll() {
+        for (SubType<T> subType : classToSubType.values()) {
+            subType.resolve();
+        }
+    }
+
+    /**
+     * Walks up class hierarchy until a registered codec (in the context of registered model classes) is found.
+     * The result is memoized per class, the codec is resolved on first use.
      *
      * @return a codec responsible for a valid class within the class hierarchy
      */
@@ -223,11 +573,28 @@ public class PolymorphicReflectionCodec<T> implements TypeCodec<T> {
         if (clazz == null) {
             return null;
         }
-        PolymorphicCodec<T> codec = classToCodec.get(clazz);
-        if (codec != null) {
-            return codec;
+        SubType<T> subType = getSubTypeForClass(clazz);
+        return subType != null ? subType.getCodec() : null;
+    }
+
+    private SubType<T> getSubTypeForClass(Class<?> clazz) {
+        SubType<T> subType = subTypeByClass.get(clazz);
+        if (subType == null) {
+            // classes outside the hierarchy are not memoized
+            subType = subTypeByClass.computeIfAbsent(clazz, this::findSubTypeForClass);
+        }
+        return subType;
+    }
+
+    private SubType<T> findSubTypeForClass(Class<?> clazz) {
+        if (clazz == null) {
+            return null;
+        }
+        SubType<T> subType = classToSubType.get(clazz);
+        if (subType != null) {
+            return subType;
         }
-        return getCodecForClass(clazz.getSuperclass());
+        return findSubTypeForClass(clazz.getSuperclass());
     }
 
     private PolymorphicCodec<T> getCodecForValue(T document) {
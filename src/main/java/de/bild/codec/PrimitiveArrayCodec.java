@@ -7,19 +7,18 @@ import org.bson.BsonWriter;
 import org.bson.codecs.Codec;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
+import org.bson.io.BsonInput;
 
-import java.util.ArrayList;
+import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.IntStream;
-import java.util.stream.LongStream;
 
 /**
  * Codecs for primitive arrays
  */
 public enum PrimitiveArrayCodec implements Codec {
-    BYTE(byte[].class) {
+    BYTE(byte[].class, 0) {
         @Override
         public void encode(BsonWriter writer, Object value, EncoderContext encoderContext) {
             writer.writeBinaryData(new BsonBinary((byte[])value));
@@ -36,12 +35,12 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
             throw new IllegalStateException("This method 'decodeInternal' on BYTE must never be called");
         }
 
     },
-    BOOLEAN(boolean[].class) {
+    BOOLEAN(boolean[].class, 1) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (boolean i : (boolean[]) value) {
@@ -50,20 +49,19 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            List<Boolean> arrayList = new ArrayList<>();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            boolean[] booleans = (boolean[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                arrayList.add(reader.readBoolean());
+                if (length == booleans.length) {
+                    booleans = Arrays.copyOf(booleans, grow(length));
+                }
+                booleans[length++] = reader.readBoolean();
             }
-            boolean[] booleans = new boolean[arrayList.size()];
-            int i = 0;
-            for (boolean aPrimitiveBoolean : arrayList) {
-                booleans[i++] = aPrimitiveBoolean;
-            }
-            return booleans;
+            return trim(booleans, length, expectedLength);
         }
     },
-    CHARACTER(char[].class) {
+    CHARACTER(char[].class, 4) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (char i : (char[]) value) {
@@ -72,20 +70,19 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            List<Character> arrayList = new ArrayList<>();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            char[] chars = (char[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                arrayList.add((char) reader.readInt32());
-            }
-            char[] chars = new char[arrayList.size()];
-            int i = 0;
-            for (char aPrimitive : arrayList) {
-                chars[i++] = aPrimitive;
+                if (length == chars.length) {
+                    chars = Arrays.copyOf(chars, grow(length));
+                }
+                chars[length++] = (char) reader.readInt32();
             }
-            return chars;
+            return trim(chars, length, expectedLength);
         }
     },
-    FLOAT(float[].class) {
+    FLOAT(float[].class, 8) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (float i : (float[]) value) {
@@ -94,20 +91,19 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            List<Float> arrayList = new ArrayList<>();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            float[] floats = (float[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                arrayList.add((float) reader.readDouble());
-            }
-            float[] floats = new float[arrayList.size()];
-            int i = 0;
-            for (float aPrimitive : arrayList) {
-                floats[i++] = aPrimitive;
+                if (length == floats.length) {
+                    floats = Arrays.copyOf(floats, grow(length));
+                }
+                floats[length++] = (float) reader.readDouble();
             }
-            return floats;
+            return trim(floats, length, expectedLength);
         }
     },
-    INTEGER(int[].class) {
+    INTEGER(int[].class, 4) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (int i : (int[]) value) {
@@ -116,19 +112,19 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            /*
-             * Efficient way of decoding an int[] of unknown size
-             * IntStream uses an primitive int buffer internally
-             */
-            IntStream.Builder builder = IntStream.builder();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            int[] ints = (int[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                builder.add(reader.readInt32());
+                if (length == ints.length) {
+                    ints = Arrays.copyOf(ints, grow(length));
+                }
+                ints[length++] = reader.readInt32();
             }
-            return builder.build().toArray();
+            return trim(ints, length, expectedLength);
         }
     },
-    LONG(long[].class) {
+    LONG(long[].class, 8) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (long i : (long[]) value) {
@@ -137,15 +133,19 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            LongStream.Builder builder = LongStream.builder();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            long[] longs = (long[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                builder.add(reader.readInt64());
+                if (length == longs.length) {
+                    longs = Arrays.copyOf(longs, grow(length));
+                }
+                longs[length++] = reader.readInt64();
             }
-            return builder.build().toArray();
+            return trim(longs, length, expectedLength);
         }
     },
-    SHORT(short[].class) {
+    SHORT(short[].class, 4) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (short i : (short[]) value) {
@@ -154,20 +154,19 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            List<Short> arrayList = new ArrayList<>();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            short[] shorts = (short[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                arrayList.add((short) reader.readInt32());
+                if (length == shorts.length) {
+                    shorts = Arrays.copyOf(shorts, grow(length));
+                }
+                shorts[length++] = (short) reader.readInt32();
             }
-            short[] shorts = new short[arrayList.size()];
-            int i = 0;
-            for (short aPrimitive : arrayList) {
-                shorts[i++] = aPrimitive;
-            }
-            return shorts;
+            return trim(shorts, length, expectedLength);
         }
     },
-    DOUBLE(double[].class) {
+    DOUBLE(double[].class, 8) {
         @Override
         public void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext) {
             for (double i : (double[]) value) {
@@ -176,25 +175,40 @@ public enum PrimitiveArrayCodec implements Codec {
         }
 
         @Override
-        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext) {
-            List<Double> arrayList = new ArrayList<>();
+        public Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength) {
+            double[] doubles = (double[]) allocate(expectedLength);
+            int length = 0;
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                arrayList.add(reader.readDouble());
-            }
-            double[] doubles = new double[arrayList.size()];
-            int i = 0;
-            for (double aPrimitive : arrayList) {
-                doubles[i++] = aPrimitive;
+                if (length == doubles.length) {
+                    doubles = Arrays.copyOf(doubles, grow(length));
+                }
+                doubles[length++] = reader.readDouble();
             }
-            return doubles;
+            return trim(doubles, length, expectedLength);
         }
     };
     final Class<?> primitiveClass;
+    /**
+     * the size in bytes of an encoded value
+     */
+    final int valueSize;
 
     static final Map<Class<?>, PrimitiveArrayCodec> PRIMITIVE_CLASS_TO_TYPE = new HashMap<>();
 
-    PrimitiveArrayCodec(Class<?> primitiveClass) {
+    private static final int MIN_BUFFER_LENGTH = 16;
+    /**
+     * larger buffers are not kept for reuse
+     */
+    static final int MAX_REUSED_BUFFER_LENGTH = 1 << 16;
+
+    /**
+     * per thread and primitive type a buffer for decoding arrays of unknown length, indexed by ordinal
+     */
+    private static final ThreadLocal<Object[]> BUFFERS = ThreadLocal.withInitial(() -> new Object[PrimitiveArrayCodec.values().length]);
+
+    PrimitiveArrayCodec(Class<?> primitiveClass, int valueSize) {
         this.primitiveClass = primitiveClass;
+        this.valueSize = valueSize;
     }
 
 
@@ -218,7 +232,10 @@ public enum PrimitiveArrayCodec implements Codec {
     }
 
 
-    protected abstract Object decodeInternal(BsonReader reader, DecoderContext decoderContext);
+    /**
+     * @param expectedLength the number of elements of the array or -1 if unknown
+     */
+    protected abstract Object decodeInternal(BsonReader reader, DecoderContext decoderContext, int expectedLength);
 
     protected abstract void encodeInternal(BsonWriter writer, Object value, EncoderContext encoderContext);
 
@@ -233,8 +250,83 @@ public enum PrimitiveArrayCodec implements Codec {
     public Object decode(BsonReader reader, DecoderContext decoderContext) {
         Object primitiveArray;
         reader.readStartArray();
-        primitiveArray = decodeInternal(reader, decoderContext);
+        primitiveArray = decodeInternal(reader, decoderContext, expectedLength(reader));
         reader.readEndArray();
         return primitiveArray;
     }
+
+    /**
+     * The number of elements can be derived from the length of an encoded array, if all elements have the same size.
+     * Arrays of mixed types (e.g. doubles written into an int[]) cannot be decoded anyway.
+     *
+     * @return the number of elements of the array just started or -1 if the reader does not expose the length
+     */
+    private int expectedLength(BsonReader reader) {
+        BsonInput input = BinaryFieldReader.inputOf(reader);
+        if (input == null) {
+            return -1;
+        }
+        // without length prefix and terminating zero
+        return elementCount(BinaryFieldReader.readPrecedingLength(input) - 5, valueSize);
+    }
+
+    /**
+     * An element consists of type byte, the index as name (decimal digits and terminating zero) and the value.
+     *
+     * @param elementsSize the size of all elements in bytes
+     * @param valueSize    the size of each value in bytes
+     * @return the number of elements
+     */
+    static int elementCount(int elementsSize, int valueSize) {
+        long remainingSize = elementsSize;
+        int count = 0;
+        int digits = 1;
+        long indicesWithDigits = 10;
+        while (remainingSize > 0) {
+            int elementSize = 2 + digits + valueSize;
+            long elements = remainingSize / elementSize;
+            if (elements <= indicesWithDigits) {
+                return count + (int) elements;
+            }
+            count += indicesWithDigits;
+            remainingSize -= indicesWithDigits * elementSize;
+            indicesWithDigits = digits == 1 ? 90 : indicesWithDigits * 10;
+            digits++;
+        }
+        return count;
+    }
+
+    /**
+     * @return an array of the expected length or the reusable buffer of the current thread, if the length is unknown
+     */
+    Object allocate(int expectedLength) {
+        if (expectedLength >= 0) {
+            return Array.newInstance(primitiveClass.getComponentType(), expectedLength);
+        }
+        Object buffer = BUFFERS.get()[ordinal()];
+        return buffer != null ? buffer : Array.newInstance(primitiveClass.getComponentType(), MIN_BUFFER_LENGTH);
+    }
+
+    static int grow(int length) {
+        return Math.max(MIN_BUFFER_LENGTH, length << 1);
+    }
+
+    /**
+     * Keeps the buffer for reuse, if it was allocated for an array of unknown length.
+     *
+     * @return an array of the decoded length
+     */
+    Object trim(Object buffer, int length, int expectedLength) {
+        int bufferLength = Array.getLength(buffer);
+        if (expectedLength >= 0) {
+            if (length == bufferLength) {
+                return buffer;
+            }
+        } else if (bufferLength <= MAX_REUSED_BUFFER_LENGTH) {
+            BUFFERS.get()[ordinal()] = buffer;
+        }
+        Object primitiveArray = Array.newInstance(primitiveClass.getComponentType(), length);
+        System.arraycopy(buffer, 0, primitiveArray, 0, length);
+        return primitiveArray;
+    }
 }
\ No newline at end of file
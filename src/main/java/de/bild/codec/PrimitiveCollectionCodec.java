@@ -0,0 +1,304 @@
+package de.bild.codec;
+
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BsonInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codecs decoding bson arrays of numbers into primitive backed collections without boxing values.
+ * Like the codecs of the mongo java driver, numbers of other numeric bson types are converted, as long as no precision
+ * is lost. Null elements cannot be held by these collections and are skipped.
+ */
+public enum PrimitiveCollectionCodec implements TypeCodec {
+    INTEGER_LIST(IntArrayList.class, Integer.class, 4) {
+        @Override
+        protected Object newInstance(int expectedSize) {
+            return new IntArrayList(expectedSize);
+        }
+
+        @Override
+        protected void decodeElement(BsonReader reader, Object collection) {
+            ((IntArrayList) collection).addInt(readInt(reader));
+        }
+
+        @Override
+        protected void encodeElements(BsonWriter writer, Object collection) {
+            IntArrayList list = (IntArrayList) collection;
+            for (int i = 0; i < list.size; i++) {
+                writer.writeInt32(list.elements[i]);
+            }
+        }
+
+        @Override
+        protected void encodeElement(BsonWriter writer, Object value) {
+            writer.writeInt32((Integer) value);
+        }
+    },
+    LONG_LIST(LongArrayList.class, Long.class, 8) {
+        @Override
+        protected Object newInstance(int expectedSize) {
+            return new LongArrayList(expectedSize);
+        }
+
+        @Override
+        protected void decodeElement(BsonReader reader, Object collection) {
+            ((LongArrayList) collection).addLong(readLong(reader));
+        }
+
+        @Override
+        protected void encodeElements(BsonWriter writer, Object collection) {
+            LongArrayList list = (LongArrayList) collection;
+            for (int i = 0; i < list.size; i++) {
+                writer.writeInt64(list.elements[i]);
+            }
+        }
+
+        @Override
+        protected void encodeElement(BsonWriter writer, Object value) {
+            writer.writeInt64((Long) value);
+        }
+    },
+    DOUBLE_LIST(DoubleArrayList.class, Double.class, 8) {
+        @Override
+        protected Object newInstance(int expectedSize) {
+            return new DoubleArrayList(expectedSize);
+        }
+
+        @Override
+        protected void decodeElement(BsonReader reader, Object collection) {
+            ((DoubleArrayList) collection).addDouble(readDouble(reader));
+        }
+
+        @Override
+        protected void encodeElements(BsonWriter writer, Object collection) {
+            DoubleArrayList list = (DoubleArrayList) collection;
+            for (int i = 0; i < list.size; i++) {
+                writer.writeDouble(list.elements[i]);
+            }
+        }
+
+        @Override
+        protected void encodeElement(BsonWriter writer, Object value) {
+            writer.writeDouble((Double) value);
+        }
+    },
+    LONG_SET(LongHashSet.class, Long.class, 8) {
+        @Override
+        protected Object newInstance(int expectedSize) {
+            return new LongHashSet(expectedSize);
+        }
+
+        @Override
+        protected void decodeElement(BsonReader reader, Object collection) {
+            ((LongHashSet) collection).addLong(readLong(reader));
+        }
+
+        @Override
+        protected void encodeElements(BsonWriter writer, Object collection) {
+            LongHashSet set = (LongHashSet) collection;
+            for (int i = 0; i < set.size; i++) {
+                writer.writeInt64(set.values[i]);
+            }
+        }
+
+        @Override
+        protected void encodeElement(BsonWriter writer, Object value) {
+            writer.writeInt64((Long) value);
+        }
+    };
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveCollectionCodec.class);
+    static final Map<Class<?>, PrimitiveCollectionCodec> COLLECTION_CLASS_TO_TYPE = new HashMap<>();
+
+    final Class<?> collectionClass;
+    final Class<?> valueClass;
+    /**
+     * the size in bytes of an encoded value
+     */
+    final int valueSize;
+
+    PrimitiveCollectionCodec(Class<?> collectionClass, Class<?> valueClass, int valueSize) {
+        this.collectionClass = collectionClass;
+        this.valueClass = valueClass;
+        this.valueSize = valueSize;
+    }
+
+    static {
+        for (PrimitiveCollectionCodec primitiveCollectionCodec : PrimitiveCollectionCodec.values()) {
+            COLLECTION_CLASS_TO_TYPE.put(primitiveCollectionCodec.collectionClass, primitiveCollectionCodec);
+        }
+    }
+
+    /**
+     * @return the codec for fields declared as one of the primitive backed collection classes
+     */
+    public static PrimitiveCollectionCodec get(Class<?> collectionClass) {
+        if (collectionClass != null) {
+            return COLLECTION_CLASS_TO_TYPE.get(collectionClass);
+        }
+        return null;
+    }
+
+    /**
+     * @return the codec, whose collections can be assigned to a field of the given type, e.g. List&lt;Long&gt;
+     */
+    static PrimitiveCollectionCodec forType(Type type) {
+        Class<?> rawClass = ReflectionHelper.extractRawClass(type);
+        if (rawClass == null || !Collection.class.isAssignableFrom(rawClass)) {
+            return null;
+        }
+        Type valueType = TypeUtils.getTypeArguments(type, Collection.class).get(Collection.class.getTypeParameters()[0]);
+        for (PrimitiveCollectionCodec primitiveCollectionCodec : values()) {
+            if (rawClass.isAssignableFrom(primitiveCollectionCodec.collectionClass) && primitiveCollectionCodec.valueClass.equals(valueType)) {
+                return primitiveCollectionCodec;
+            }
+        }
+        return null;
+    }
+
+    protected abstract Object newInstance(int expectedSize);
+
+    protected abstract void decodeElement(BsonReader reader, Object collection);
+
+    /**
+     * Encodes all elements of a collection of {@link #collectionClass}.
+     */
+    protected abstract void encodeElements(BsonWriter writer, Object collection);
+
+    protected abstract void encodeElement(BsonWriter writer, Object value);
+
+    @Override
+    public Object defaultInstance() {
+        return newInstance(0);
+    }
+
+    @Override
+    public Class getEncoderClass() {
+        return collectionClass;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Object value, EncoderContext encoderContext) {
+        writer.writeStartArray();
+        if (value.getClass() == collectionClass) {
+            encodeElements(writer, value);
+        } else {
+            // any collection assigned to a field annotated with @PrimitiveCollection
+            for (Object element : (Collection<?>) value) {
+                if (element != null) {
+                    encodeElement(writer, element);
+                } else {
+                    writer.writeNull();
+                }
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    @Override
+    public Object decode(BsonReader reader, DecoderContext decoderContext) {
+        Object collection = null;
+        if (BsonType.NULL.equals(reader.getCurrentBsonType())) {
+            reader.skipValue();
+        } else if (BsonType.ARRAY.equals(reader.getCurrentBsonType())) {
+            reader.readStartArray();
+            collection = newInstance(expectedSize(reader));
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (BsonType.NULL.equals(reader.getCurrentBsonType())) {
+                    LOGGER.warn("Skipping null element, as {} can not hold nulls.", collectionClass.getSimpleName());
+                    reader.skipValue();
+                } else {
+                    decodeElement(reader, collection);
+                }
+            }
+            reader.readEndArray();
+        } else {
+            LOGGER.warn("Expected {} from reader but got {}. Skipping value.", BsonType.ARRAY, reader.getCurrentBsonType());
+            reader.skipValue();
+        }
+        return collection;
+    }
+
+    /**
+     * @return the number of elements of the array just started, assuming they all are of the expected bson type
+     */
+    private int expectedSize(BsonReader reader) {
+        BsonInput input = BinaryFieldReader.inputOf(reader);
+        if (input == null) {
+            return 0;
+        }
+        // without length prefix and terminating zero
+        return PrimitiveArrayCodec.elementCount(BinaryFieldReader.readPrecedingLength(input) - 5, valueSize);
+    }
+
+    /**
+     * Numbers of other bson types are converted as the number codecs of the driver do: a value that can not be
+     * represented exactly fails with a {@link BsonInvalidOperationException}.
+     */
+    static int readInt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64:
+                long longValue = reader.readInt64();
+                if ((int) longValue != longValue) {
+                    throw lossOfPrecision(longValue, int.class);
+                }
+                return (int) longValue;
+            case DOUBLE:
+                double value = reader.readDouble();
+                if ((int) value != value) {
+                    throw lossOfPrecision(value, int.class);
+                }
+                return (int) value;
+            default:
+                return reader.readInt32();
+        }
+    }
+
+    static long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case DOUBLE:
+                double value = reader.readDouble();
+                // casts to long saturate, 2^63 would become Long.MAX_VALUE
+                if (value >= 0x1p63 || value < -0x1p63 || (long) value != value) {
+                    throw lossOfPrecision(value, long.class);
+                }
+                return (long) value;
+            default:
+                return reader.readInt64();
+        }
+    }
+
+    static double readDouble(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                long value = reader.readInt64();
+                double doubleValue = value;
+                if (doubleValue >= 0x1p63 || (long) doubleValue != value) {
+                    throw lossOfPrecision(value, double.class);
+                }
+                return doubleValue;
+            default:
+                return reader.readDouble();
+        }
+    }
+
+    private static BsonInvalidOperationException lossOfPrecision(Object value, Class<?> type) {
+        return new BsonInvalidOperationException(String.format("Could not convert `%s` to a %s without losing precision", value, type));
+    }
+}
@@ -84,7 +84,7 @@ public abstract class ReflectionHelper {
 
         getFieldTypePairsRecursive(rawClass.getGenericSuperclass(), returnFinalFields, currentList, clazzTypeParameterMap);
 
-        List<Field> validFields = getValidFields(rawClass.getDeclaredFields(), returnFinalFields);
+        List<Field> validFields = getValidFields(TypeMetadataCache.getDeclaredFields(rawClass), returnFinalFields);
         for (Field validField : validFields) {
             currentList.add(new FieldTypePair(validField, inferRealType(validField.getGenericType(), clazzTypeParameterMap)));
         }
@@ -0,0 +1,500 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.DecodingFieldFailureStrategy;
+import de.bild.codec.annotations.EncodeNullHandlingStrategy;
+import org.bson.BsonReader;
+import org.bson.BsonReaderMark;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BsonInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * A reflection codec that is specialized once per pojo type when {@link PojoCodecProvider.Builder#specializedCodecs(boolean)} is enabled.
+ * <p>
+ * Instead of interpreting each {@link MappedField} (checking primitive types, locking versions, null strategies...) on every
+ * encode and decode, all of these decisions are taken when the codec is built. Each mapped field is bound to a specialized
+ * {@link FieldCodec} that does only what is needed for that particular field. Field names are dispatched by an immutable
+ * {@link FieldNameIndex} and lifecycle hooks are bound as {@link MethodHandle}s.
+ * <p>
+ * No bytecode is generated: the fields are still encoded by a loop over the field codecs, a call site that is megamorphic
+ * for pojos with more than two kinds of fields. Straight-line codecs are generated at compile time by
+ * {@link de.bild.codec.processor.GeneratedCodecProcessor} as sub classes of {@link AbstractGeneratedCodec}.
+ * <p>
+ * The semantics (null/undefined handling strategies, failure strategies, id and locking version handling, lifecycle hooks)
+ * are the same as for {@link BasicReflectionCodec}.
+ *
+ * @param <T> the value type
+ */
+public class SpecializedReflectionCodec<T> extends BasicReflectionCodec<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpecializedReflectionCodec.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType HOOK_TYPE = MethodType.methodType(void.class, Object.class);
+
+    final FieldCodec<T>[] fieldCodecs;
+    final MethodHandle[] postLoadHandles;
+    final MethodHandle[] preSaveHandles;
+
+    public SpecializedReflectionCodec(Type type, TypeCodecRegistry typeCodecRegistry, CodecConfiguration codecConfiguration) {
+        this(type, ReflectionHelper.getDeclaredAndInheritedFieldTypePairs(type, true), typeCodecRegistry, codecConfiguration);
+    }
+
+    @SuppressWarnings("unchecked")
+    SpecializedReflectionCodec(Type type, List<FieldTypePair> fieldTypePairs, TypeCodecRegistry typeCodecRegistry, CodecConfiguration codecConfiguration) {
+        super(type, fieldTypePairs, typeCodecRegistry, codecConfiguration);
+        this.fieldCodecs = new FieldCodec[mappedFields.length];
+        for (int i = 0; i < mappedFields.length; i++) {
+            fieldCodecs[i] = createFieldCodec(mappedFields[i]);
+        }
+        this.postLoadHandles = toMethodHandles(postLoadMethods);
+        this.preSaveHandles = toMethodHandles(preSaveMethods);
+    }
+
+    @Override
+    void decodeMappedField(int ordinal, BsonReader reader, T instance, DecoderContext decoderContext) {
+        fieldCodecs[ordinal].decode(reader, instance, decoderContext);
+    }
+
+    @Override
+    void decodeMappedField(int ordinal, BsonInput input, T instance) {
+        ((PrimitiveFieldCodec<T>) fieldCodecs[ordinal]).decode(input, instance);
+    }
+
+    @Override
+    public void encodeFields(BsonWriter writer, T instance, EncoderContext encoderContext) {
+        preEncode(instance);
+        for (FieldCodec<T> fieldCodec : fieldCodecs) {
+            fieldCodec.encode(writer, instance, encoderContext);
+        }
+    }
+
+    @Override
+    public void postDecode(T instance) {
+        invokeHooks(postLoadHandles, postLoadMethods, instance, "@PostLoad");
+    }
+
+    @Override
+    public void preEncode(T instance) {
+        invokeHooks(preSaveHandles, preSaveMethods, instance, "@PreSave");
+    }
+
+    private static void invokeHooks(MethodHandle[] handles, List<Method> methods, Object instance, String hookName) {
+        for (int i = 0; i < handles.length; i++) {
+            try {
+                handles[i].invokeExact(instance);
+            } catch (Throwable t) {
+                // same as Method.invoke() within BasicReflectionCodec, exceptions within hooks are logged, not rethrown
+                LOGGER.warn("{} method {} could not be called.", hookName, methods.get(i), t);
+            }
+        }
+    }
+
+    private static MethodHandle[] toMethodHandles(List<Method> methods) {
+        MethodHandle[] methodHandles = new MethodHandle[methods.size()];
+        for (int i = 0; i < methods.size(); i++) {
+            try {
+                methodHandles[i] = LOOKUP.unreflect(methods.get(i)).asType(HOOK_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Could not bind lifecycle method " + methods.get(i), e);
+            }
+        }
+        return methodHandles;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> FieldCodec<T> createFieldCodec(MappedField mappedField) {
+        Class<?> fieldType = mappedField.getField().getType();
+        if (!fieldType.isPrimitive()) {
+            return mappedField.getCodec() != null ? new ReferenceFieldCodec<>(mappedField) : new UnmappedFieldCodec<>(mappedField);
+        }
+        if (mappedField.isLockingVersionField()) {
+            return new LockingVersionFieldCodec<>(mappedField);
+        }
+        if (fieldType == int.class) {
+            return new IntFieldCodec<>(mappedField);
+        } else if (fieldType == long.class) {
+            return new LongFieldCodec<>(mappedField);
+        } else if (fieldType == double.class) {
+            return new DoubleFieldCodec<>(mappedField);
+        } else if (fieldType == boolean.class) {
+            return new BooleanFieldCodec<>(mappedField);
+        } else if (fieldType == float.class) {
+            return new FloatFieldCodec<>(mappedField);
+        } else if (fieldType == short.class) {
+            return new ShortFieldCodec<>(mappedField);
+        } else if (fieldType == byte.class) {
+            return new ByteFieldCodec<>(mappedField);
+        } else if (fieldType == char.class) {
+            return new CharFieldCodec<>(mappedField);
+        }
+        throw new IllegalArgumentException("Unsupported primitive field type " + mappedField.getField());
+    }
+
+    /**
+     * Encodes and decodes a single field. Subclasses are specialized for one kind of field.
+     *
+     * @param <T> the type of the pojo
+     */
+    abstract static class FieldCodec<T> {
+        final MappedField<T, Object> mappedField;
+        final FieldAccessor fieldAccessor;
+        final EncodedName encodedName;
+        // marks are only needed if the value must be skipped after a failure
+        final boolean needsMark;
+
+        FieldCodec(MappedField<T, Object> mappedField) {
+            this.mappedField = mappedField;
+            this.fieldAccessor = mappedField.fieldAccessor;
+            this.encodedName = mappedField.encodedName;
+            this.needsMark = mappedField.decodingFieldFailureStrategy != DecodingFieldFailureStrategy.Strategy.RETHROW_EXCEPTION;
+        }
+
+        abstract void encode(BsonWriter writer, T instance, EncoderContext encoderContext);
+
+        abstract void decodeValue(BsonReader reader, T instance, DecoderContext decoderContext) throws IllegalAccessException;
+
+        final void decode(BsonReader reader, T instance, DecoderContext decoderContext) {
+            BsonReaderMark mark = needsMark ? reader.getMark() : null;
+            try {
+                decodeValue(reader, instance, decoderContext);
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Could not decode mappedField {}.", mappedField, e);
+            } catch (RuntimeException e) {
+                mappedField.handleDecodingFailure(reader, mark, instance, decoderContext, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{mappedField=" + mappedField + '}';
+        }
+    }
+
+    /**
+     * Base class for primitive fields: null and undefined values are skipped, as are values of unexpected bson type
+     */
+    abstract static class PrimitiveFieldCodec<T> extends FieldCodec<T> {
+        final BsonType bsonType;
+
+        PrimitiveFieldCodec(MappedField<T, Object> mappedField, BsonType bsonType) {
+            super(mappedField);
+            this.bsonType = bsonType;
+        }
+
+        /**
+         * Writes the complete element (name and value)
+         */
+        abstract void writeValue(BsonWriter writer, T instance) throws IllegalAccessException;
+
+        abstract void readValue(BsonReader reader, T instance) throws IllegalAccessException;
+
+        /**
+         * Reads the value straight from the input, its bson type has been checked already
+         */
+        abstract void readValue(BsonInput input, T instance) throws IllegalAccessException;
+
+        @Override
+        final void encode(BsonWriter writer, T instance, EncoderContext encoderContext) {
+            try {
+                writeValue(writer, instance);
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Cannot access mappedField {}.", mappedField, e);
+            }
+        }
+
+        final void decode(BsonInput input, T instance) {
+            try {
+                readValue(input, instance);
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Could not decode mappedField {}.", mappedField, e);
+            }
+        }
+
+        @Override
+        final void decodeValue(BsonReader reader, T instance, DecoderContext decoderContext) throws IllegalAccessException {
+            BsonType currentBsonType = reader.getCurrentBsonType();
+            if (currentBsonType == bsonType) {
+                readValue(reader, instance);
+            } else if (currentBsonType == BsonType.NULL || currentBsonType == BsonType.UNDEFINED) {
+                reader.skipValue();
+            } else {
+                LOGGER.warn("Expected {} from reader but got {}. Skipping value.", bsonType, currentBsonType);
+                reader.skipValue();
+            }
+        }
+    }
+
+    static final class IntFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        IntFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.INT32);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeInt32(writer, fieldAccessor.getInt(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setInt(instance, reader.readInt32());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setInt(instance, input.readInt32());
+        }
+    }
+
+    static final class LongFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        LongFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.INT64);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeInt64(writer, fieldAccessor.getLong(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setLong(instance, reader.readInt64());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setLong(instance, input.readInt64());
+        }
+    }
+
+    static final class DoubleFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        DoubleFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.DOUBLE);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeDouble(writer, fieldAccessor.getDouble(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setDouble(instance, reader.readDouble());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setDouble(instance, input.readDouble());
+        }
+    }
+
+    static final class FloatFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        FloatFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.DOUBLE);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeDouble(writer, fieldAccessor.getFloat(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setFloat(instance, (float) reader.readDouble());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setFloat(instance, (float) input.readDouble());
+        }
+    }
+
+    static final class BooleanFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        BooleanFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.BOOLEAN);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeBoolean(writer, fieldAccessor.getBoolean(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setBoolean(instance, reader.readBoolean());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setBoolean(instance, input.readByte() != 0);
+        }
+    }
+
+    static final class ShortFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        ShortFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.INT32);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeInt32(writer, fieldAccessor.getShort(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setShort(instance, (short) reader.readInt32());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setShort(instance, (short) input.readInt32());
+        }
+    }
+
+    static final class ByteFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        ByteFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.INT32);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeInt32(writer, fieldAccessor.getByte(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setByte(instance, (byte) reader.readInt32());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setByte(instance, (byte) input.readInt32());
+        }
+    }
+
+    static final class CharFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        CharFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.INT32);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeInt32(writer, fieldAccessor.getChar(instance));
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setChar(instance, (char) reader.readInt32());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setChar(instance, (char) input.readInt32());
+        }
+    }
+
+    /**
+     * int fields annotated with {@link de.bild.codec.annotations.LockingVersion}. The version is incremented while encoding.
+     */
+    static final class LockingVersionFieldCodec<T> extends PrimitiveFieldCodec<T> {
+        LockingVersionFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField, BsonType.INT32);
+        }
+
+        @Override
+        void writeValue(BsonWriter writer, T instance) throws IllegalAccessException {
+            encodedName.writeInt32(writer, fieldAccessor.getInt(instance) + 1);
+        }
+
+        @Override
+        void readValue(BsonReader reader, T instance) throws IllegalAccessException {
+            fieldAccessor.setInt(instance, reader.readInt32());
+        }
+
+        @Override
+        void readValue(BsonInput input, T instance) throws IllegalAccessException {
+            fieldAccessor.setInt(instance, input.readInt32());
+        }
+    }
+
+    /**
+     * Any non-primitive field with a codec. Null handling strategies are resolved at construction time.
+     */
+    static final class ReferenceFieldCodec<T> extends FieldCodec<T> {
+        final Codec<Object> codec;
+        // true, if null values are replaced by default instances of the codec
+        final boolean replaceNulls;
+        final boolean encodeNulls;
+        // the codec, if it is the internal enum codec writing pre-encoded constant names
+        final EnumCodec enumCodec;
+
+        @SuppressWarnings("unchecked")
+        ReferenceFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField);
+            this.codec = mappedField.getCodec();
+            this.enumCodec = codec.getClass() == EnumCodec.class ? (EnumCodec) codec : null;
+            this.encodeNulls = mappedField.encodeNulls;
+            this.replaceNulls = mappedField.encodeNullHandlingStrategy == EncodeNullHandlingStrategy.Strategy.CODEC && codec instanceof TypeCodec;
+        }
+
+        @Override
+        void encode(BsonWriter writer, T instance, EncoderContext encoderContext) {
+            Object fieldValue = mappedField.getFieldValue(instance);
+            if (fieldValue == null && replaceNulls) {
+                fieldValue = mappedField.getNullReplacement();
+            }
+            if (fieldValue == null) {
+                if (encodeNulls) {
+                    encodedName.writeNull(writer);
+                }
+            } else if (enumCodec != null) {
+                enumCodec.encode(encodedName, writer, (Enum) fieldValue);
+            } else {
+                encodedName.writeName(writer);
+                codec.encode(writer, fieldValue, encoderContext);
+            }
+        }
+
+        @Override
+        void decodeValue(BsonReader reader, T instance, DecoderContext decoderContext) {
+            BsonType currentBsonType = reader.getCurrentBsonType();
+            if (currentBsonType == BsonType.NULL) {
+                reader.readNull();
+                mappedField.setFieldValue(instance, null);
+            } else if (currentBsonType == BsonType.UNDEFINED) {
+                reader.skipValue();
+            } else {
+                mappedField.setFieldValue(instance, codec.decode(reader, decoderContext));
+            }
+        }
+    }
+
+    /**
+     * Non-primitive fields without a codec (e.g. a failing {@link de.bild.codec.annotations.CodecToBeUsed}) are neither written nor read.
+     */
+    static final class UnmappedFieldCodec<T> extends FieldCodec<T> {
+        UnmappedFieldCodec(MappedField<T, Object> mappedField) {
+            super(mappedField);
+        }
+
+        @Override
+        void encode(BsonWriter writer, T instance, EncoderContext encoderContext) {
+            // nothing to write
+        }
+
+        @Override
+        void decodeValue(BsonReader reader, T instance, DecoderContext decoderContext) {
+            // MappedField.decode() leaves the value unread in this case
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package de.bild.codec;
 
 import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.codecs.configuration.CodecRegistry;
 
 import java.lang.reflect.Type;
@@ -8,5 +9,20 @@ import java.lang.reflect.Type;
 public interface TypeCodecRegistry {
     <T> Codec<T> getCodec(Type type);
 
+    /**
+     * Probes for a codec without failing, if there is none. Implementations should avoid creating exceptions.
+     *
+     * @param type the value type
+     * @param <T>  the value type
+     * @return the codec for the type or null, if no codec is available
+     */
+    default <T> Codec<T> findCodec(Type type) {
+        try {
+            return getCodec(type);
+        } catch (CodecConfigurationException e) {
+            return null;
+        }
+    }
+
     CodecRegistry getRegistry();
 }
@@ -0,0 +1,130 @@
+package de.bild.codec;
+
+import org.apache.commons.lang3.reflect.TypeUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reflection metadata of the types of one {@link TypesModel}. Types are interned first: parameterized types created by
+ * the JDK and by {@link TypeUtils} are equal, but do not share hash codes, so they would not find each others cache entries.
+ * The caches live as long as their owner, so classes are not pinned beyond the lifetime of the codec provider. Declared
+ * fields are cached per class with a {@link ClassValue}, which does not prevent classes from being unloaded either.
+ * {@link TypesModel#clearCaches()} invalidates the caches.
+ */
+final class TypeMetadataCache {
+    private static final ClassValue<Field[]> DECLARED_FIELDS = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            return type.getDeclaredFields();
+        }
+    };
+
+    private final ConcurrentMap<TypeKey, Type> canonicalTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Type, List<FieldTypePair>> fieldTypePairs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Type, List<FieldTypePair>> nonFinalFieldTypePairs = new ConcurrentHashMap<>();
+
+    /**
+     * @param type any type
+     * @return the first seen instance of all types equal to the given type
+     */
+    Type intern(Type type) {
+        if (type == null || type instanceof Class) {
+            return type;
+        }
+        Type canonicalType = canonicalTypes.putIfAbsent(new TypeKey(type), type);
+        return canonicalType != null ? canonicalType : type;
+    }
+
+    /**
+     * Cached variant of {@link ReflectionHelper#getDeclaredAndInheritedFieldTypePairs(Type, boolean)}
+     *
+     * @param type              the value type
+     * @param returnFinalFields indicate if final fields should be retuned as well
+     * @return all declared and all inherited declared fields of given type (unmodifiable)
+     */
+    List<FieldTypePair> getDeclaredAndInheritedFieldTypePairs(Type type, boolean returnFinalFields) {
+        return (returnFinalFields ? fieldTypePairs : nonFinalFieldTypePairs).computeIfAbsent(intern(type),
+                key -> Collections.unmodifiableList(ReflectionHelper.getDeclaredAndInheritedFieldTypePairs(key, returnFinalFields)));
+    }
+
+    static Field[] getDeclaredFields(Class<?> clazz) {
+        return DECLARED_FIELDS.get(clazz);
+    }
+
+    /**
+     * Drops all cached metadata of this cache and the declared fields of the given classes and their super classes.
+     *
+     * @param classes the classes, whose declared fields are released
+     */
+    void clear(Collection<Class<?>> classes) {
+        canonicalTypes.clear();
+        fieldTypePairs.clear();
+        nonFinalFieldTypePairs.clear();
+        for (Class<?> clazz : classes) {
+            for (Class<?> superClass = clazz; superClass != null; superClass = superClass.getSuperclass()) {
+                DECLARED_FIELDS.remove(superClass);
+            }
+        }
+    }
+
+    /**
+     * Compares types structurally with a hash code that does not depend on the implementation of the type
+     */
+    private static final class TypeKey {
+        final Type type;
+        final int hash;
+
+        TypeKey(Type type) {
+            this.type = type;
+            this.hash = hash(type);
+        }
+
+        private static int hash(Type type) {
+            if (type instanceof ParameterizedType) {
+                ParameterizedType parameterizedType = (ParameterizedType) type;
+                return 31 * (31 * hash(parameterizedType.getOwnerType()) + hash(parameterizedType.getRawType())) + hash(parameterizedType.getActualTypeArguments());
+            } else if (type instanceof GenericArrayType) {
+                return 31 * hash(((GenericArrayType) type).getGenericComponentType()) + 1;
+            } else if (type instanceof WildcardType) {
+                WildcardType wildcardType = (WildcardType) type;
+                return 31 * hash(wildcardType.getUpperBounds()) + hash(wildcardType.getLowerBounds());
+            }
+            // classes and type variables
+            return type != null ? type.hashCode() : 0;
+        }
+
+        private static int hash(Type[] types) {
+            int hash = 1;
+            for (Type type : types) {
+                hash = 31 * hash + hash(type);
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TypeKey)) {
+                return false;
+            }
+            TypeKey typeKey = (TypeKey) o;
+            return hash == typeKey.hash && TypeUtils.equals(type, typeKey.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
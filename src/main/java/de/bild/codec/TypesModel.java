@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -34,6 +35,16 @@ public class TypesModel {
     protected final Set<Class<?>> ignoreClasses;
     protected final ClassResolver classResolver;
     protected final Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates;
+    // names of the scanned classes ignored because of ignoreTypesMatchingClassNamePredicates, see TypesModelIndex
+    final Set<String> classNamesIgnoredByPredicates = new HashSet<>();
+    // reflection metadata of the types of this model
+    final TypeMetadataCache typeMetadataCache = new TypeMetadataCache();
+    // results of getAssignableTypesWithinClassHierarchy by interned type
+    private final Map<Type, Set<Type>> assignableTypes = new ConcurrentHashMap<>();
+    // dense ids of the model classes, assigned in hierarchy order (see indexClassHierarchy())
+    private Class<?>[] classesById;
+    // ids of the classes whose super class or directly implemented interfaces are part of the model
+    private BitSet classesWithSuperTypeWithinModel;
 
     public TypesModel(final Set<Class<?>> classes,
                       final Set<String> packages,
@@ -61,6 +72,105 @@ public class TypesModel {
             }
         }
         this.classHierarchy = buildClassHierarchy(allClasses);
+        indexClassHierarchy();
+    }
+
+    /**
+     * Creates a types model from classes and hierarchy restored from a {@link TypesModelIndex}, no classes are scanned.
+     *
+     * @param allClasses     all classes of the model
+     * @param classHierarchy the class hierarchy of the model
+     */
+    TypesModel(Set<Class<?>> allClasses, Map<Class<?>, ClassHierarchyNode> classHierarchy) {
+        this.ignoreAnnotations = Collections.emptySet();
+        this.ignoreTypesMatchingClassNamePredicates = Collections.emptySet();
+        this.ignoreClasses = Collections.emptySet();
+        this.classResolver = null;
+        this.allClasses.addAll(allClasses);
+        this.classHierarchy = classHierarchy;
+        indexClassHierarchy();
+    }
+
+    /**
+     * Assigns dense ids to all classes within the hierarchy (depth first, so sub types get ids next to their super types)
+     * and precomputes the concrete sub types of each class as bit sets of ids.
+     */
+    private void indexClassHierarchy() {
+        Set<ClassHierarchyNode> childNodes = new HashSet<>();
+        for (ClassHierarchyNode node : classHierarchy.values()) {
+            childNodes.addAll(node.getChildren());
+        }
+        List<ClassHierarchyNode> nodesById = new ArrayList<>(classHierarchy.size());
+        for (ClassHierarchyNode node : classHierarchy.values()) {
+            if (!childNodes.contains(node)) {
+                assignIds(node, nodesById);
+            }
+        }
+        this.classesById = new Class<?>[nodesById.size()];
+        for (ClassHierarchyNode node : nodesById) {
+            classesById[node.id] = node.getClazz();
+        }
+        Map<ClassHierarchyNode, BitSet> concreteSubTypes = new HashMap<>();
+        this.classesWithSuperTypeWithinModel = new BitSet(nodesById.size());
+        for (ClassHierarchyNode node : nodesById) {
+            node.classesById = classesById;
+            node.concreteSubTypes = CompactBitSet.of(collectConcreteSubTypes(node, concreteSubTypes));
+            if (calculateHasSuperTypeWithinModel(node.getClazz())) {
+                classesWithSuperTypeWithinModel.set(node.id);
+            }
+        }
+    }
+
+    private static void assignIds(ClassHierarchyNode node, List<ClassHierarchyNode> nodesById) {
+        if (node.id < 0) {
+            node.id = nodesById.size();
+            nodesById.add(node);
+            for (ClassHierarchyNode child : node.getChildren()) {
+                assignIds(child, nodesById);
+            }
+        }
+    }
+
+    private static BitSet collectConcreteSubTypes(ClassHierarchyNode node, Map<ClassHierarchyNode, BitSet> concreteSubTypes) {
+        BitSet subTypes = concreteSubTypes.get(node);
+        if (subTypes == null) {
+            subTypes = new BitSet();
+            if (!node.getClazz().isInterface()) {
+                subTypes.set(node.id);
+            }
+            for (ClassHierarchyNode child : node.getChildren()) {
+                subTypes.or(collectConcreteSubTypes(child, concreteSubTypes));
+            }
+            concreteSubTypes.put(node, subTypes);
+        }
+        return subTypes;
+    }
+
+    private boolean calculateHasSuperTypeWithinModel(Class<?> clazz) {
+        if (getClassHierarchyNodeForType(clazz.getSuperclass()) != null) {
+            return true;
+        }
+        for (Class<?> anInterface : clazz.getInterfaces()) {
+            if (getClassHierarchyNodeForType(anInterface) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A class with a super class or directly implemented interface within the model may be declared further up the
+     * type hierarchy by other pojos.
+     *
+     * @param clazz any class
+     * @return true, if the super class (or any of its super classes) or a directly implemented interface is part of the model
+     */
+    boolean hasSuperTypeWithinModel(Class<?> clazz) {
+        ClassHierarchyNode node = classHierarchy.get(clazz);
+        if (node != null && node.id >= 0) {
+            return classesWithSuperTypeWithinModel.get(node.id);
+        }
+        return calculateHasSuperTypeWithinModel(clazz);
     }
 
     interface PredefinedClassResolver extends ClassResolver {
@@ -201,6 +311,7 @@ public class TypesModel {
         for (Predicate<String> ignoreTypesMatchingClassNamePredicate : ignoreTypesMatchingClassNamePredicates) {
             if (ignoreTypesMatchingClassNamePredicate.test(clazz.getName())) {
                 LOGGER.debug("Ignoring class : {} because of matching ignore predicate {}", clazz, ignoreTypesMatchingClassNamePredicate);
+                classNamesIgnoredByPredicates.add(clazz.getName());
                 return;
             }
         }
@@ -245,6 +356,10 @@ public class TypesModel {
     public static class ClassHierarchyNode {
         Class<?> clazz;
         Set<ClassHierarchyNode> children = new HashSet<>();
+        // set once the hierarchy is indexed by the types model
+        int id = -1;
+        Class<?>[] classesById;
+        CompactBitSet concreteSubTypes;
 
         public ClassHierarchyNode(Class<?> clazz) {
             this.clazz = clazz;
@@ -262,10 +377,18 @@ public class TypesModel {
          * @return true, if more than one concrete implementation are available, hence we need a polymorphic codec
          */
         public boolean isPolymorphic() {
+            if (concreteSubTypes != null) {
+                return concreteSubTypes.cardinality() > 1;
+            }
             return getAllConcreteChildren().size() > 1;
         }
 
         public Set<Class<?>> getAllConcreteChildren() {
+            if (concreteSubTypes != null) {
+                Set<Class<?>> concreteChildren = new HashSet<>();
+                concreteSubTypes.forEach(id -> concreteChildren.add(classesById[id]));
+                return concreteChildren;
+            }
             return getAllChildrenRecursive(new HashSet<>());
         }
 
@@ -298,17 +421,39 @@ public class TypesModel {
      * potential valid type is assignable the original type.
      *
      * @param type the type for with sub types should be found
-     * @return a set of matching types within know set of registered model classes
+     * @return an unmodifiable set of matching types within know set of registered model classes, cached per type
      */
     public Set<Type> getAssignableTypesWithinClassHierarchy(Type type) {
-        Set<Type> validTypes = new HashSet<>();
-        getAssignableTypesWithinClassHierarchy(type, validTypes);
+        Type canonicalType = typeMetadataCache.intern(type);
+        Set<Type> validTypes = canonicalType != null ? assignableTypes.get(canonicalType) : null;
+        if (validTypes == null) {
+            Set<Type> types = new HashSet<>();
+            getAssignableTypesWithinClassHierarchy(canonicalType, types);
+            validTypes = Collections.unmodifiableSet(types);
+            if (canonicalType != null) {
+                assignableTypes.putIfAbsent(canonicalType, validTypes);
+            }
+        }
         return validTypes;
     }
 
+    /**
+     * Releases the cached reflection metadata and the cached results of {@link #getAssignableTypesWithinClassHierarchy(Type)}
+     * (e.g. after classes have been reloaded). Codecs already built are not affected.
+     */
+    public void clearCaches() {
+        typeMetadataCache.clear(allClasses);
+        assignableTypes.clear();
+    }
+
     private void getAssignableTypesWithinClassHierarchy(Type type, Set<Type> validTypes) {
         ClassHierarchyNode classHierarchyNodeForType = getClassHierarchyNodeForType(type);
         type = downGradeType(type, classHierarchyNodeForType);
+        if (type instanceof Class && classHierarchyNodeForType != null && classHierarchyNodeForType.concreteSubTypes != null) {
+            // without type arguments all sub types are assignable
+            validTypes.addAll(classHierarchyNodeForType.getAllConcreteChildren());
+            return;
+        }
         getAssignableTypesWithinClassHierarchy(type, classHierarchyNodeForType, validTypes);
     }
 
@@ -0,0 +1,443 @@
+package de.bild.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Persists the classes and the class hierarchy of a {@link TypesModel}, so package scanning can be skipped on the next start.
+ * <p>
+ * The index is a plain text file guarded by three fingerprints:
+ * <ul>
+ * <li>configuration: registered packages and classes, ignored classes and annotations and the class of the {@link ClassResolver}</li>
+ * <li>class path: size and modification time of jar files within the class path, for directories all files within the
+ * registered packages</li>
+ * <li>content: the bytes of all classes listed within the index, as read from their class loaders</li>
+ * </ul>
+ * An index file is checked against all fingerprints. An index resource is created during the build, so it fingerprints
+ * another class path and even changes the jar it is packaged in. Hence only configuration and content are checked for
+ * resources. Classes added to the registered packages after the resource was created are not noticed, the resource
+ * needs to be recreated with every build. Loading a resource for registered packages is logged as warning,
+ * {@link #verifyResource(String, Set, Set, Set, Set, Set, ClassResolver)} checks the resource within the build.
+ * <p>
+ * Predicates registered via {@link PojoCodecProvider.Builder#ignoreTypesMatchingClassNamePredicate(Predicate[])} can not
+ * be fingerprinted. Instead the index lists the classes ignored by predicates during the scan and the predicates are
+ * applied again to all listed classes. Changes to a {@link ClassResolver} other than its class are not noticed, delete
+ * the index if those change.
+ */
+final class TypesModelIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TypesModelIndex.class);
+    private static final String HEADER = "# polymorphia types model index";
+    private static final String CONFIGURATION = "configuration";
+    private static final String CLASS_PATH = "classpath";
+    private static final String CONTENT = "content";
+    private static final String CLASS = "class";
+    private static final String IGNORED = "ignored";
+    private static final String CHILDREN = "children";
+
+    private TypesModelIndex() {
+    }
+
+    /**
+     * Loads a types model from an index file or scans the types model and writes the index file, if the file
+     * is missing or stale.
+     */
+    static TypesModel loadOrScan(Path indexFile, Set<Class<?>> classes, Set<String> packages,
+                                 Set<Class<? extends Annotation>> ignoreAnnotations,
+                                 Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates,
+                                 Set<Class<?>> ignoreClasses, ClassResolver classResolver) {
+        String configuration = configurationFingerprint(classes, packages, ignoreAnnotations, ignoreClasses, classResolver);
+        String classPath = classPathFingerprint(packages);
+        if (Files.isReadable(indexFile)) {
+            try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                TypesModel typesModel = read(reader, configuration, classPath, ignoreTypesMatchingClassNamePredicates);
+                if (typesModel != null) {
+                    LOGGER.debug("Loaded types model from index {}", indexFile);
+                    return typesModel;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not read types model index {}. Scanning classes.", indexFile, e);
+            }
+        }
+
+        TypesModel typesModel = new TypesModel(classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+        try {
+            if (indexFile.getParent() != null) {
+                Files.createDirectories(indexFile.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+                write(typesModel, configuration, classPath, writer);
+            }
+            LOGGER.debug("Written types model index {}", indexFile);
+        } catch (IOException e) {
+            LOGGER.warn("Could not write types model index {}", indexFile, e);
+        }
+        return typesModel;
+    }
+
+    /**
+     * Loads a types model from an index resource within the class path (e.g. META-INF/polymorphia/types.idx) or scans
+     * the types model if the resource is missing or stale. The class path fingerprint of the resource is not checked.
+     */
+    static TypesModel loadOrScan(String indexResource, Set<Class<?>> classes, Set<String> packages,
+                                 Set<Class<? extends Annotation>> ignoreAnnotations,
+                                 Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates,
+                                 Set<Class<?>> ignoreClasses, ClassResolver classResolver) {
+        String configuration = configurationFingerprint(classes, packages, ignoreAnnotations, ignoreClasses, classResolver);
+        InputStream inputStream = getClassLoader().getResourceAsStream(indexResource);
+        if (inputStream != null) {
+            try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                TypesModel typesModel = read(reader, configuration, null, ignoreTypesMatchingClassNamePredicates);
+                if (typesModel != null) {
+                    if (packages != null && !packages.isEmpty()) {
+                        LOGGER.warn("Loaded types model from index resource {} without scanning the packages {}. Classes added to these packages "
+                                + "after the resource was created are missing, verify the resource during the build.", indexResource, packages);
+                    } else {
+                        LOGGER.debug("Loaded types model from index resource {}", indexResource);
+                    }
+                    return typesModel;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not read types model index resource {}. Scanning classes.", indexResource, e);
+            }
+        }
+        return new TypesModel(classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+    }
+
+    /**
+     * Scans the types model and compares its classes with the classes listed within the index resource. Meant to run
+     * during the build after the resource has been created, so a stale resource fails the build.
+     *
+     * @throws IllegalStateException if the resource is missing, stale or does not list all scanned classes
+     */
+    static void verifyResource(String indexResource, Set<Class<?>> classes, Set<String> packages,
+                               Set<Class<? extends Annotation>> ignoreAnnotations,
+                               Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates,
+                               Set<Class<?>> ignoreClasses, ClassResolver classResolver) {
+        String configuration = configurationFingerprint(classes, packages, ignoreAnnotations, ignoreClasses, classResolver);
+        InputStream inputStream = getClassLoader().getResourceAsStream(indexResource);
+        if (inputStream == null) {
+            throw new IllegalStateException("Types model index resource " + indexResource + " not found");
+        }
+        TypesModel indexed;
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            indexed = read(reader, configuration, null, ignoreTypesMatchingClassNamePredicates);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read types model index resource " + indexResource, e);
+        }
+        if (indexed == null) {
+            throw new IllegalStateException("Types model index resource " + indexResource + " is stale, it was created for another configuration or other classes");
+        }
+        TypesModel scanned = new TypesModel(classes, packages, ignoreAnnotations, ignoreTypesMatchingClassNamePredicates, ignoreClasses, classResolver);
+        Set<String> missingClasses = new TreeSet<>();
+        for (Class<?> clazz : scanned.allClasses) {
+            if (!indexed.allClasses.contains(clazz)) {
+                missingClasses.add(clazz.getName());
+            }
+        }
+        if (!missingClasses.isEmpty()) {
+            throw new IllegalStateException("Types model index resource " + indexResource + " does not list the classes " + missingClasses + ", recreate it");
+        }
+    }
+
+    /**
+     * @param expectedConfiguration the configuration fingerprint
+     * @param expectedClassPath     the class path fingerprint or null, if the class path is not to be checked
+     * @param ignoreTypesMatchingClassNamePredicates the predicates the types model is to be created with
+     * @return the types model or null, if the index was written for another configuration, class path or other classes,
+     * classes are missing or the predicates ignore other classes than they did during the scan
+     */
+    static TypesModel read(Reader reader, String expectedConfiguration, String expectedClassPath,
+                           Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        ClassLoader classLoader = getClassLoader();
+        Set<Class<?>> allClasses = new LinkedHashSet<>();
+        Map<Class<?>, TypesModel.ClassHierarchyNode> classHierarchy = new HashMap<>();
+        boolean configurationMatches = false;
+        boolean classPathMatches = expectedClassPath == null;
+        String content = null;
+
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] keyValue = line.split("\t", 2);
+            String value = keyValue.length > 1 ? keyValue[1] : "";
+            switch (keyValue[0]) {
+                case CONFIGURATION:
+                    if (!value.equals(expectedConfiguration)) {
+                        LOGGER.info("Types model index was created for another configuration. Index is stale.");
+                        return null;
+                    }
+                    configurationMatches = true;
+                    break;
+                case CLASS_PATH:
+                    if (expectedClassPath != null) {
+                        if (!value.equals(expectedClassPath)) {
+                            LOGGER.info("Class path changed since the types model index was created. Index is stale.");
+                            return null;
+                        }
+                        classPathMatches = true;
+                    }
+                    break;
+                case CONTENT:
+                    content = value;
+                    break;
+                case CLASS:
+                    if (isIgnored(value, ignoreTypesMatchingClassNamePredicates)) {
+                        LOGGER.info("Class {} from types model index is ignored by a predicate. Index is stale.", value);
+                        return null;
+                    }
+                    Class<?> clazz = loadClass(value, classLoader);
+                    if (clazz == null) {
+                        return null;
+                    }
+                    allClasses.add(clazz);
+                    break;
+                case IGNORED:
+                    if (!isIgnored(value, ignoreTypesMatchingClassNamePredicates)) {
+                        LOGGER.info("Class {} is not ignored by any predicate anymore. Index is stale.", value);
+                        return null;
+                    }
+                    break;
+                case CHILDREN: {
+                    String[] classNames = value.split("\t");
+                    Class<?> parent = loadClass(classNames[0], classLoader);
+                    if (parent == null) {
+                        return null;
+                    }
+                    TypesModel.ClassHierarchyNode parentNode = classHierarchy.computeIfAbsent(parent, TypesModel.ClassHierarchyNode::new);
+                    for (int i = 1; i < classNames.length; i++) {
+                        Class<?> child = loadClass(classNames[i], classLoader);
+                        if (child == null) {
+                            return null;
+                        }
+                        parentNode.addChild(classHierarchy.computeIfAbsent(child, TypesModel.ClassHierarchyNode::new));
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unexpected line within types model index: " + line);
+            }
+        }
+        if (!configurationMatches || !classPathMatches || content == null) {
+            return null;
+        }
+        if (!content.equals(contentFingerprint(allClasses))) {
+            LOGGER.info("Classes changed since the types model index was created. Index is stale.");
+            return null;
+        }
+        return new TypesModel(allClasses, classHierarchy);
+    }
+
+    static void write(TypesModel typesModel, String configuration, String classPath, Writer writer) throws IOException {
+        BufferedWriter bufferedWriter = new BufferedWriter(writer);
+        bufferedWriter.write(HEADER);
+        bufferedWriter.newLine();
+        bufferedWriter.write(CONFIGURATION + "\t" + configuration);
+        bufferedWriter.newLine();
+        bufferedWriter.write(CLASS_PATH + "\t" + classPath);
+        bufferedWriter.newLine();
+        bufferedWriter.write(CONTENT + "\t" + contentFingerprint(typesModel.allClasses));
+        bufferedWriter.newLine();
+        for (String className : sortedNames(typesModel.allClasses)) {
+            bufferedWriter.write(CLASS + "\t" + className);
+            bufferedWriter.newLine();
+        }
+        for (String className : new TreeSet<>(typesModel.classNamesIgnoredByPredicates)) {
+            bufferedWriter.write(IGNORED + "\t" + className);
+            bufferedWriter.newLine();
+        }
+        // nodes without children are written as well, so the hierarchy map can be restored completely
+        Map<String, TypesModel.ClassHierarchyNode> nodesByName = new HashMap<>();
+        for (TypesModel.ClassHierarchyNode node : typesModel.classHierarchy.values()) {
+            nodesByName.put(node.getClazz().getName(), node);
+        }
+        for (String className : new TreeSet<>(nodesByName.keySet())) {
+            StringBuilder line = new StringBuilder(CHILDREN).append('\t').append(className);
+            List<Class<?>> children = new ArrayList<>();
+            for (TypesModel.ClassHierarchyNode child : nodesByName.get(className).getChildren()) {
+                children.add(child.getClazz());
+            }
+            for (String childName : sortedNames(children)) {
+                line.append('\t').append(childName);
+            }
+            bufferedWriter.write(line.toString());
+            bufferedWriter.newLine();
+        }
+        bufferedWriter.flush();
+    }
+
+    static String configurationFingerprint(Set<Class<?>> classes, Set<String> packages,
+                                           Set<Class<? extends Annotation>> ignoreAnnotations,
+                                           Set<Class<?>> ignoreClasses, ClassResolver classResolver) {
+        MessageDigest digest = newDigest();
+        update(digest, "classes", sortedNames(classes));
+        update(digest, "packages", packages != null ? new TreeSet<>(packages) : null);
+        update(digest, "ignoreAnnotations", sortedNames(ignoreAnnotations));
+        update(digest, "ignoreClasses", sortedNames(ignoreClasses));
+        update(digest, "classResolver", classResolver != null ? classResolver.getClass().getName() : null);
+        return toHex(digest);
+    }
+
+    static String classPathFingerprint(Set<String> packages) {
+        MessageDigest digest = newDigest();
+        for (String classPathEntry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (classPathEntry.isEmpty()) {
+                continue;
+            }
+            Path path = Paths.get(classPathEntry);
+            update(digest, "classPathEntry", classPathEntry);
+            if (Files.isDirectory(path)) {
+                if (packages != null) {
+                    for (String aPackage : new TreeSet<>(packages)) {
+                        updateWithDirectory(digest, path, path.resolve(aPackage.replace('.', File.separatorChar)));
+                    }
+                }
+            } else {
+                updateWithFile(digest, path);
+            }
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * Fingerprints the class files as provided by the class loaders of the classes, so classes within nested jars
+     * (e.g. of a Spring Boot application) are covered as well.
+     */
+    static String contentFingerprint(Collection<? extends Class<?>> classes) {
+        Map<String, Class<?>> classesByName = new TreeMap<>();
+        for (Class<?> clazz : classes) {
+            classesByName.put(clazz.getName(), clazz);
+        }
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        for (Class<?> clazz : classesByName.values()) {
+            update(digest, "class", clazz.getName());
+            String classFile = clazz.getName().replace('.', '/') + ".class";
+            ClassLoader classLoader = clazz.getClassLoader() != null ? clazz.getClassLoader() : ClassLoader.getSystemClassLoader();
+            try (InputStream inputStream = classLoader.getResourceAsStream(classFile)) {
+                if (inputStream == null) {
+                    update(digest, "missing", classFile);
+                    continue;
+                }
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not fingerprint class file {}", classFile, e);
+                update(digest, "unreadable", classFile);
+            }
+        }
+        return toHex(digest);
+    }
+
+    private static boolean isIgnored(String className, Set<Predicate<String>> ignoreTypesMatchingClassNamePredicates) {
+        if (ignoreTypesMatchingClassNamePredicates != null) {
+            for (Predicate<String> ignoreTypesMatchingClassNamePredicate : ignoreTypesMatchingClassNamePredicates) {
+                if (ignoreTypesMatchingClassNamePredicate.test(className)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    private static String toHex(MessageDigest digest) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void updateWithDirectory(MessageDigest digest, Path root, Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile)
+                    .sorted()
+                    .forEach(file -> {
+                        update(digest, "file", root.relativize(file).toString());
+                        updateWithFile(digest, file);
+                    });
+        } catch (IOException e) {
+            LOGGER.debug("Could not fingerprint directory {}", directory, e);
+            update(digest, "unreadable", directory.toString());
+        }
+    }
+
+    private static void updateWithFile(MessageDigest digest, Path file) {
+        try {
+            update(digest, "size", String.valueOf(Files.size(file)));
+            update(digest, "modified", String.valueOf(Files.getLastModifiedTime(file).toMillis()));
+        } catch (IOException e) {
+            update(digest, "missing", file.toString());
+        }
+    }
+
+    private static void update(MessageDigest digest, String key, Object value) {
+        digest.update((key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> sortedNames(Collection<? extends Class<?>> classes) {
+        Set<String> names = new TreeSet<>();
+        if (classes != null) {
+            for (Class<?> clazz : classes) {
+                names.add(clazz.getName());
+            }
+        }
+        return names;
+    }
+
+    private static Class<?> loadClass(String className, ClassLoader classLoader) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOGGER.info("Class {} from types model index could not be loaded. Index is stale.", className);
+            return null;
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : TypesModelIndex.class.getClassLoader();
+    }
+}
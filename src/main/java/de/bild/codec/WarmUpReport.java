@@ -0,0 +1,114 @@
+package de.bild.codec;
+
+import org.bson.codecs.Codec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of {@link PojoCodecProvider#warmUp(org.bson.codecs.configuration.CodecRegistry, java.util.concurrent.ForkJoinPool)}.
+ * Holds one entry for each class of the types model, telling whether a codec could be resolved and how long the resolution took.
+ */
+public class WarmUpReport {
+    private final List<Entry> entries;
+    private final Duration totalDuration;
+
+    WarmUpReport(List<Entry> entries, Duration totalDuration) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.totalDuration = totalDuration;
+    }
+
+    /**
+     * @return all entries in the order of the class names
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return entries of classes for which no codec could be resolved
+     */
+    public List<Entry> getFailures() {
+        List<Entry> failures = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.isFailed()) {
+                failures.add(entry);
+            }
+        }
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !getFailures().isEmpty();
+    }
+
+    /**
+     * @return wall clock time of the whole warm up
+     */
+    public Duration getTotalDuration() {
+        return totalDuration;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpReport{" +
+                "classes=" + entries.size() +
+                ", failures=" + getFailures().size() +
+                ", totalDuration=" + totalDuration +
+                '}';
+    }
+
+    public static class Entry {
+        private final Class<?> clazz;
+        private final Codec<?> codec;
+        private final Throwable failure;
+        private final Duration duration;
+
+        Entry(Class<?> clazz, Codec<?> codec, Throwable failure, Duration duration) {
+            this.clazz = clazz;
+            this.codec = codec;
+            this.failure = failure;
+            this.duration = duration;
+        }
+
+        public Class<?> getClazz() {
+            return clazz;
+        }
+
+        /**
+         * @return the resolved codec or null if resolution failed
+         */
+        public Codec<?> getCodec() {
+            return codec;
+        }
+
+        /**
+         * @return the exception raised while resolving the codec or null
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * @return the time it took to resolve the codec for this class (including codecs for its fields)
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "clazz=" + clazz.getName() +
+                    ", duration=" + duration +
+                    (failure != null ? ", failure=" + failure : ", codec=" + codec) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package de.bild.codec.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Use this annotation on long[] or List&lt;Long&gt; pojo fields holding sorted and densely spaced values (e.g. time
+ * stamps or ids) to store the differences between consecutive values as zig-zag encoded variable length integers
+ * within a single binary, see {@link de.bild.codec.DeltaVarintCodec}. Unsorted values are stored correctly, yet less
+ * compact. Fields stored as bson arrays can still be decoded.
+ *
+ * @since 2.9.0
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD})
+public @interface DeltaEncoded {
+}
@@ -14,12 +14,34 @@ import java.lang.annotation.*;
  * <p>
  * Please be aware that using the same discriminator could potentially lead to ambiguities, IF such classes
  * are assignable to each other.
+ * <p>
+ * To save storage, a compact {@link #code()} can be declared. It is written as int32 instead of the string value, while
+ * decoding accepts the code as well as the value and all aliases. Existing documents stay readable without migration.
+ * Alternatively move the current value to the aliases and use a short string as value.
  */
 @Documented
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface Discriminator {
-    String value();
+    /**
+     * {@link #code()} if no code is declared
+     */
+    int NO_CODE = -1;
+
+    /**
+     * the largest code supported, codes are looked up in a table indexed by code
+     */
+    int MAX_CODE = 4095;
+
+    /**
+     * @return the discriminator, if empty the {@link Class#getSimpleName()} is used
+     */
+    String value() default "";
 
     String[] aliases() default {};
+
+    /**
+     * @return a compact code between 0 and {@link #MAX_CODE} to be written instead of the {@link #value()}
+     */
+    int code() default NO_CODE;
 }
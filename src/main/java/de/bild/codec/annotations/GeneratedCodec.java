@@ -0,0 +1,23 @@
+package de.bild.codec.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks pojo classes for which {@link de.bild.codec.processor.GeneratedCodecProcessor} generates a codec at compile time.
+ * Annotating the base class of a hierarchy covers all concrete sub classes compiled along with it.
+ * <p>
+ * The generated codec is named like the pojo class (nested classes joined by '_') followed by {@link #CODEC_CLASS_SUFFIX}
+ * and is placed in the package of the pojo. If present at runtime, it is preferred over the reflection based codec.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GeneratedCodec {
+    String CODEC_CLASS_SUFFIX = "_GeneratedCodec";
+
+    /**
+     * class path resource listing all classes with generated codecs, one binary class name per line
+     */
+    String INDEX_RESOURCE = "META-INF/polymorphia/generated-codecs";
+}
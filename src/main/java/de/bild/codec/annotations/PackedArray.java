@@ -0,0 +1,22 @@
+package de.bild.codec.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Use this annotation at pojo class level or at field level to store int[], long[], float[] and double[] fields
+ * (and multi dimensional arrays of those, e.g. float[][][]) as a single binary of little endian values with a small
+ * shape header, instead of a bson array with one element per value.
+ * Arrays stored as bson arrays can still be decoded. Jagged multi dimensional arrays or arrays containing null
+ * arrays are stored as bson arrays.
+ *
+ * Global behaviour can be set during registration of {@link de.bild.codec.PojoCodecProvider.Builder#packedArrays(boolean)}
+ *
+ * @since 2.9.0
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.TYPE})
+public @interface PackedArray {
+    boolean value() default true;
+}
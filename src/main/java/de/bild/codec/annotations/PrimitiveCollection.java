@@ -0,0 +1,20 @@
+package de.bild.codec.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Use this annotation at pojo class level or at field level to decode List&lt;Integer&gt;, List&lt;Long&gt;,
+ * List&lt;Double&gt; and Set&lt;Long&gt; fields into the primitive backed {@link de.bild.codec.IntArrayList},
+ * {@link de.bild.codec.LongArrayList}, {@link de.bild.codec.DoubleArrayList} and {@link de.bild.codec.LongHashSet}
+ * without boxing values. Fields declared with these types are always decoded that way.
+ * The stored format does not change.
+ *
+ * @since 2.9.0
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.TYPE})
+public @interface PrimitiveCollection {
+    boolean value() default true;
+}
@@ -0,0 +1,295 @@
+package de.bild.codec.processor;
+
+import de.bild.codec.annotations.GeneratedCodec;
+import de.bild.codec.annotations.LockingVersion;
+import de.bild.codec.annotations.Transient;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates codecs for pojo classes annotated with {@link GeneratedCodec} (directly or inherited).
+ * <p>
+ * For each concrete, non-generic and non-private pojo class a sub class of {@link de.bild.codec.AbstractGeneratedCodec}
+ * is generated into the package of the pojo. It creates instances with the default constructor and reads and writes all
+ * fields accessible from within the package directly. Additionally all classes are listed within
+ * {@link GeneratedCodec#INDEX_RESOURCE}, so they can be registered without package scanning,
+ * see {@link de.bild.codec.PojoCodecProvider.Builder#registerGeneratedCodecs()}.
+ * <p>
+ * The processor is not registered as a service. Enable it within your build, e.g. for the maven-compiler-plugin with
+ * {@code <annotationProcessors><annotationProcessor>de.bild.codec.processor.GeneratedCodecProcessor</annotationProcessor></annotationProcessors>}
+ * or with javac option {@code -processor de.bild.codec.processor.GeneratedCodecProcessor}.
+ */
+@SupportedAnnotationTypes("de.bild.codec.annotations.GeneratedCodec")
+public class GeneratedCodecProcessor extends AbstractProcessor {
+    private final Set<String> generatedClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(GeneratedCodec.class))) {
+            if (isSupported(typeElement)) {
+                try {
+                    generateCodec(typeElement);
+                    generatedClasses.add(processingEnv.getElementUtils().getBinaryName(typeElement).toString());
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not generate codec: " + e.getMessage(), typeElement);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !generatedClasses.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private boolean isSupported(TypeElement typeElement) {
+        String reason = null;
+        if (typeElement.getKind() != ElementKind.CLASS) {
+            reason = "only classes are supported";
+        } else if (typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            // abstract classes are handled via their concrete sub classes
+            return false;
+        } else if (!typeElement.getTypeParameters().isEmpty()) {
+            reason = "generic classes are not supported";
+        } else if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+            reason = "private classes are not accessible";
+        } else if (typeElement.getNestingKind() == NestingKind.MEMBER && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+            reason = "only static inner classes are supported";
+        } else if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS) {
+            reason = "local and anonymous classes are not supported";
+        }
+        if (reason != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "No codec generated, " + reason + ".", typeElement);
+            return false;
+        }
+        return true;
+    }
+
+    private void generateCodec(TypeElement typeElement) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(typeElement);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        String codecSimpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_')
+                + GeneratedCodec.CODEC_CLASS_SUFFIX;
+        String pojoName = typeElement.getQualifiedName().toString();
+        List<VariableElement> fields = getAccessibleFields(typeElement, packageElement);
+
+        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? codecSimpleName : packageName + "." + codecSimpleName, typeElement);
+        try (PrintWriter out = new PrintWriter(sourceFile.openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Generated by " + GeneratedCodecProcessor.class.getName() + " for {@link " + pojoName + "}");
+            out.println(" */");
+            out.println("public final class " + codecSimpleName + " extends de.bild.codec.AbstractGeneratedCodec<" + pojoName + "> {");
+            out.println();
+            out.println("    public " + codecSimpleName + "(java.lang.reflect.Type type, de.bild.codec.TypeCodecRegistry typeCodecRegistry, de.bild.codec.CodecConfiguration codecConfiguration) {");
+            out.print("        super(type, typeCodecRegistry, codecConfiguration");
+            for (VariableElement field : fields) {
+                out.print(", \"" + field.getSimpleName() + "\"");
+            }
+            out.println(");");
+            out.println("    }");
+
+            if (hasAccessibleDefaultConstructor(typeElement)) {
+                out.println();
+                out.println("    @Override");
+                out.println("    public " + pojoName + " newInstance() {");
+                out.println("        return new " + pojoName + "();");
+                out.println("    }");
+            }
+
+            out.println();
+            out.println("    @Override");
+            out.println("    protected void encodeField(int index, org.bson.BsonWriter writer, " + pojoName + " instance, org.bson.codecs.EncoderContext encoderContext) {");
+            out.println("        switch (index) {");
+            for (int index = 0; index < fields.size(); index++) {
+                VariableElement field = fields.get(index);
+                out.println("            case " + index + ":");
+                TypeKind kind = field.asType().getKind();
+                if (kind.isPrimitive()) {
+                    String value = "instance." + field.getSimpleName();
+                    if (kind == TypeKind.INT && field.getAnnotation(LockingVersion.class) != null) {
+                        value = value + " + 1";
+                    }
+                    out.println("                " + writeMethod(kind) + "(" + index + ", writer, " + value + ");");
+                } else {
+                    out.println("                encodeValue(" + index + ", writer, instance." + field.getSimpleName() + ", encoderContext);");
+                }
+                out.println("                return;");
+            }
+            out.println("            default:");
+            out.println("                throw new IllegalArgumentException(\"Unknown field index \" + index);");
+            out.println("        }");
+            out.println("    }");
+
+            out.println();
+            out.println("    @Override");
+            out.println("    protected void decodeField(int index, org.bson.BsonReader reader, " + pojoName + " instance, org.bson.codecs.DecoderContext decoderContext) {");
+            out.println("        switch (index) {");
+            for (int index = 0; index < fields.size(); index++) {
+                VariableElement field = fields.get(index);
+                out.println("            case " + index + ": {");
+                TypeKind kind = field.asType().getKind();
+                if (kind.isPrimitive()) {
+                    out.println("                if (isReadable(reader, org.bson.BsonType." + bsonType(kind) + ")) {");
+                    out.println("                    instance." + field.getSimpleName() + " = " + readExpression(kind) + ";");
+                    out.println("                }");
+                } else {
+                    // the type of the field as member of the pojo, e.g. String for a field T of a super class Base<String>
+                    TypeMirror memberType = processingEnv.getTypeUtils().asMemberOf((DeclaredType) typeElement.asType(), field);
+                    TypeMirror erasure = processingEnv.getTypeUtils().erasure(memberType);
+                    out.println("                Object value = decodeValue(" + index + ", reader, decoderContext);");
+                    out.println("                if (value != SKIPPED) {");
+                    out.println("                    instance." + field.getSimpleName() + " = (" + erasure + ") value;");
+                    out.println("                }");
+                }
+                out.println("                return;");
+                out.println("            }");
+            }
+            out.println("            default:");
+            out.println("                throw new IllegalArgumentException(\"Unknown field index \" + index);");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * @return all persistable fields (including inherited ones) that can be read and written from within the package
+     */
+    private List<VariableElement> getAccessibleFields(TypeElement typeElement, PackageElement packageElement) {
+        List<VariableElement> fields = new ArrayList<>();
+        Set<String> fieldNames = new HashSet<>();
+        Set<String> shadowedFieldNames = new HashSet<>();
+        TypeElement current = typeElement;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT) || field.getAnnotation(Transient.class) != null) {
+                    continue;
+                }
+                String fieldName = field.getSimpleName().toString();
+                if (!fieldNames.add(fieldName)) {
+                    shadowedFieldNames.add(fieldName);
+                }
+                boolean samePackage = processingEnv.getElementUtils().getPackageOf(current).equals(packageElement);
+                boolean accessible = !modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)
+                        && (modifiers.contains(Modifier.PUBLIC) || samePackage);
+                if (accessible) {
+                    fields.add(field);
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        // shadowed fields are left to the reflection based access
+        fields.removeIf(field -> shadowedFieldNames.contains(field.getSimpleName().toString()));
+        return fields;
+    }
+
+    private static boolean hasAccessibleDefaultConstructor(TypeElement typeElement) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String writeMethod(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "writeBoolean";
+            case LONG:
+                return "writeInt64";
+            case FLOAT:
+            case DOUBLE:
+                return "writeDouble";
+            default:
+                return "writeInt32";
+        }
+    }
+
+    private static String bsonType(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "BOOLEAN";
+            case LONG:
+                return "INT64";
+            case FLOAT:
+            case DOUBLE:
+                return "DOUBLE";
+            default:
+                return "INT32";
+        }
+    }
+
+    private static String readExpression(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "reader.readBoolean()";
+            case LONG:
+                return "reader.readInt64()";
+            case FLOAT:
+                return "(float) reader.readDouble()";
+            case DOUBLE:
+                return "reader.readDouble()";
+            case BYTE:
+                return "(byte) reader.readInt32()";
+            case SHORT:
+                return "(short) reader.readInt32()";
+            case CHAR:
+                return "(char) reader.readInt32()";
+            default:
+                return "reader.readInt32()";
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", GeneratedCodec.INDEX_RESOURCE);
+            try (Writer writer = resource.openWriter()) {
+                for (String generatedClass : generatedClasses) {
+                    writer.write(generatedClass);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + GeneratedCodec.INDEX_RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package de.bild.backend.polymorphia;
+
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.PojoCodecProvider;
+import de.bild.codec.TypeCodecProvider;
+import de.bild.codec.TypeCodecRegistry;
+import de.bild.codec.WarmUpReport;
+import de.bild.codec.annotations.Id;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmUpTest {
+
+    interface Shape {
+    }
+
+    static class Circle implements Shape {
+        double radius;
+        Currency currency;
+    }
+
+    static class Square implements Shape {
+        double side;
+    }
+
+    static class Drawing {
+        @Id
+        ObjectId id;
+        List<Shape> shapes;
+        Drawing parent;
+    }
+
+    /**
+     * the default id generator can not generate String ids
+     */
+    static class BrokenEntity {
+        @Id(collectible = true)
+        String id;
+    }
+
+    interface Vehicle {
+    }
+
+    /**
+     * sub type codecs are resolved lazily, so the misconfigured id is only noticed when resolving the codec for the sub type
+     */
+    static class Car implements Vehicle {
+        @Id(collectible = true)
+        String id;
+    }
+
+    /**
+     * Counts the requests for the codec of {@link Currency}, a type only used within the sub type {@link Circle}
+     */
+    static class CurrencyCodecProvider implements TypeCodecProvider {
+        final AtomicInteger requests = new AtomicInteger();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Codec<T> get(Type type, TypeCodecRegistry typeCodecRegistry) {
+            if (type == Currency.class) {
+                requests.incrementAndGet();
+                return (Codec<T>) new CurrencyCodec();
+            }
+            return null;
+        }
+    }
+
+    static class CurrencyCodec implements Codec<Currency> {
+        @Override
+        public Currency decode(BsonReader reader, DecoderContext decoderContext) {
+            return Currency.getInstance(reader.readString());
+        }
+
+        @Override
+        public void encode(BsonWriter writer, Currency value, EncoderContext encoderContext) {
+            writer.writeString(value.getCurrencyCode());
+        }
+
+        @Override
+        public Class<Currency> getEncoderClass() {
+            return Currency.class;
+        }
+    }
+
+    private static CodecRegistry createRegistry(PojoCodecProvider pojoCodecProvider) {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(pojoCodecProvider),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    @Test
+    public void warmUpDuringBuildTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CurrencyCodecProvider currencyCodecProvider = new CurrencyCodecProvider();
+            PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder()
+                    .register(WarmUpTest.class)
+                    .register(currencyCodecProvider)
+                    .warmUp(WarmUpTest::createRegistry, pool)
+                    .build();
+            WarmUpReport report = pojoCodecProvider.getWarmUpReport();
+            assertNotNull(report);
+            assertNotNull(report.getTotalDuration());
+
+            for (Class<?> clazz : new Class<?>[]{Shape.class, Circle.class, Square.class, Drawing.class}) {
+                WarmUpReport.Entry entry = report.getEntries().stream().filter(e -> e.getClazz() == clazz).findFirst().orElse(null);
+                assertNotNull(entry, clazz.getName());
+                assertFalse(entry.isFailed());
+                assertNotNull(entry.getCodec());
+                assertNotNull(entry.getDuration());
+            }
+
+            List<WarmUpReport.Entry> failures = report.getFailures();
+            assertTrue(report.hasFailures());
+            assertTrue(failures.stream().anyMatch(e -> e.getClazz() == BrokenEntity.class));
+            assertTrue(failures.stream().noneMatch(e -> e.getClazz() == Drawing.class));
+
+            // the codecs of the sub types are built during the warm up
+            assertTrue(currencyCodecProvider.requests.get() > 0);
+            for (Class<?> clazz : new Class<?>[]{Vehicle.class, Car.class}) {
+                WarmUpReport.Entry failure = failures.stream().filter(e -> e.getClazz() == clazz).findFirst().orElse(null);
+                assertNotNull(failure, clazz.getName());
+                assertTrue(failure.getFailure() instanceof IllegalArgumentException, String.valueOf(failure.getFailure()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void noWarmUpTest() {
+        PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder().register(WarmUpTest.class).build();
+        assertNull(pojoCodecProvider.getWarmUpReport());
+
+        WarmUpReport report = pojoCodecProvider.warmUp(createRegistry(pojoCodecProvider), ForkJoinPool.commonPool());
+        assertFalse(report.getEntries().isEmpty());
+    }
+}
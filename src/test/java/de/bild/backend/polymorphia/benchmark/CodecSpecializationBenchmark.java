@@ -0,0 +1,121 @@
+package de.bild.backend.polymorphia.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.PojoCodecProvider;
+import de.bild.codec.annotations.Id;
+import de.bild.codec.annotations.LockingVersion;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding of a pojo with several kinds of fields through the default
+ * {@link de.bild.codec.BasicReflectionCodec} and the {@link de.bild.codec.SpecializedReflectionCodec}
+ * ({@link PojoCodecProvider.Builder#specializedCodecs(boolean)}).
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=de.bild.backend.polymorphia.benchmark.CodecSpecializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecSpecializationBenchmark {
+
+    public enum Status {
+        ACTIVE, DELETED
+    }
+
+    public static class Address {
+        String street;
+        int number;
+    }
+
+    public static class Pojo {
+        @Id
+        ObjectId id;
+        @LockingVersion
+        int version;
+        String name;
+        int count;
+        long timestamp;
+        double score;
+        boolean active;
+        Status status;
+        List<String> tags;
+        Address address;
+    }
+
+    @Param({"basic", "specialized"})
+    String codecType;
+
+    Codec<Pojo> codec;
+    Pojo pojo;
+    byte[] encoded;
+    BasicOutputBuffer outputBuffer;
+
+    @Setup
+    public void setup() {
+        // without a logback configuration the root logger logs on debug level, which would dominate the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(PojoCodecProvider.builder()
+                        .register(Pojo.class, Address.class)
+                        .specializedCodecs("specialized".equals(codecType))
+                        .build()),
+                MongoClientSettings.getDefaultCodecRegistry());
+        codec = codecRegistry.get(Pojo.class);
+
+        pojo = new Pojo();
+        pojo.id = new ObjectId();
+        pojo.version = 3;
+        pojo.name = "benchmark";
+        pojo.count = 42;
+        pojo.timestamp = System.currentTimeMillis();
+        pojo.score = 0.75;
+        pojo.active = true;
+        pojo.status = Status.ACTIVE;
+        pojo.tags = Arrays.asList("a", "b", "c");
+        pojo.address = new Address();
+        pojo.address.street = "Axel-Springer-Str.";
+        pojo.address.number = 65;
+        outputBuffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(outputBuffer), pojo, EncoderContext.builder().build());
+        encoded = outputBuffer.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() {
+        outputBuffer.truncateToPosition(0);
+        codec.encode(new BsonBinaryWriter(outputBuffer), pojo, EncoderContext.builder().build());
+        return outputBuffer.getPosition();
+    }
+
+    @Benchmark
+    public Pojo decode() {
+        return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(encoded)), DecoderContext.builder().build());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CodecSpecializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package de.bild.backend.polymorphia.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.DelegatingCodec;
+import de.bild.codec.PojoCodecProvider;
+import de.bild.codec.annotations.Id;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding of a collectible pojo through the unwrapped reflection codec, the collectible codec
+ * returned by the {@link PojoCodecProvider} and a reflective {@link Proxy} as it was used prior to 2.9.0.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=de.bild.backend.polymorphia.benchmark.CollectibleCodecBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectibleCodecBenchmark {
+
+    public static class Pojo {
+        @Id(collectible = true)
+        ObjectId id;
+        String name;
+        int count;
+        List<String> tags;
+    }
+
+    @Param({"delegate", "collectible", "proxy"})
+    String codecType;
+
+    Codec<Pojo> codec;
+    Pojo pojo;
+    byte[] encoded;
+    BasicOutputBuffer outputBuffer;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        // without a logback configuration the root logger logs on debug level, which would dominate the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(PojoCodecProvider.builder().register(Pojo.class).build()),
+                MongoClientSettings.getDefaultCodecRegistry());
+        Codec<Pojo> collectibleCodec = codecRegistry.get(Pojo.class);
+        Codec<Pojo> delegate = ((DelegatingCodec<Pojo>) collectibleCodec).getDelegate();
+        switch (codecType) {
+            case "delegate":
+                codec = delegate;
+                break;
+            case "collectible":
+                codec = collectibleCodec;
+                break;
+            case "proxy":
+                codec = (Codec<Pojo>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{CollectibleCodec.class},
+                        (proxy, method, args) -> {
+                            try {
+                                return method.invoke(collectibleCodec, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+                break;
+            default:
+                throw new IllegalArgumentException(codecType);
+        }
+
+        pojo = new Pojo();
+        pojo.id = new ObjectId();
+        pojo.name = "benchmark";
+        pojo.count = 42;
+        pojo.tags = Arrays.asList("a", "b", "c");
+        outputBuffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(outputBuffer), pojo, EncoderContext.builder().build());
+        encoded = outputBuffer.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() {
+        outputBuffer.truncateToPosition(0);
+        codec.encode(new BsonBinaryWriter(outputBuffer), pojo, EncoderContext.builder().build());
+        return outputBuffer.getPosition();
+    }
+
+    @Benchmark
+    public Pojo decode() {
+        return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(encoded)), DecoderContext.builder().build());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CollectibleCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
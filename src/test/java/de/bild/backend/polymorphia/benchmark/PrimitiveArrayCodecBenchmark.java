@@ -0,0 +1,103 @@
+package de.bild.backend.polymorphia.benchmark;
+
+import de.bild.codec.PrimitiveArrayCodec;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding of a double[] by {@link PrimitiveArrayCodec} with decoding into a list of boxed values as it was
+ * done prior to 2.9.0.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=de.bild.backend.polymorphia.benchmark.PrimitiveArrayCodecBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveArrayCodecBenchmark {
+
+    @Param({"100", "10000"})
+    int length;
+
+    @Param({"binary", "document"})
+    String readerType;
+
+    byte[] encoded;
+    BsonDocument document;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        double[] doubles = new double[length];
+        for (int i = 0; i < length; i++) {
+            doubles[i] = random.nextDouble();
+        }
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        BsonBinaryWriter writer = new BsonBinaryWriter(outputBuffer);
+        writer.writeStartDocument();
+        writer.writeName("values");
+        PrimitiveArrayCodec.DOUBLE.encode(writer, doubles, EncoderContext.builder().build());
+        writer.writeEndDocument();
+        encoded = outputBuffer.toByteArray();
+
+        document = new BsonDocument();
+        BsonDocumentWriter documentWriter = new BsonDocumentWriter(document);
+        documentWriter.writeStartDocument();
+        documentWriter.writeName("values");
+        PrimitiveArrayCodec.DOUBLE.encode(documentWriter, doubles, EncoderContext.builder().build());
+        documentWriter.writeEndDocument();
+    }
+
+    private BsonReader startReading() {
+        BsonReader reader = "binary".equals(readerType) ? new BsonBinaryReader(ByteBuffer.wrap(encoded)) : new BsonDocumentReader(document);
+        reader.readStartDocument();
+        reader.readName();
+        return reader;
+    }
+
+    @Benchmark
+    public double[] primitiveBuffer() {
+        return (double[]) PrimitiveArrayCodec.DOUBLE.decode(startReading(), DecoderContext.builder().build());
+    }
+
+    @Benchmark
+    public double[] boxedList() {
+        BsonReader reader = startReading();
+        reader.readStartArray();
+        List<Double> arrayList = new ArrayList<>();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            arrayList.add(reader.readDouble());
+        }
+        double[] doubles = new double[arrayList.size()];
+        int i = 0;
+        for (double aPrimitive : arrayList) {
+            doubles[i++] = aPrimitive;
+        }
+        reader.readEndArray();
+        return doubles;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PrimitiveArrayCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
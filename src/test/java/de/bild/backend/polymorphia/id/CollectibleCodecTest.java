@@ -2,7 +2,9 @@ package de.bild.backend.polymorphia.id;
 
 
 import com.mongodb.MongoClientSettings;
+import de.bild.codec.DelegatingCodec;
 import de.bild.codec.PojoCodecProvider;
+import de.bild.codec.ReflectionCodec;
 import de.bild.codec.annotations.Id;
 import org.bson.codecs.Codec;
 import org.bson.codecs.CollectibleCodec;
@@ -12,6 +14,8 @@ import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Proxy;
+
 public class CollectibleCodecTest {
 
     CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
@@ -32,6 +36,24 @@ public class CollectibleCodecTest {
         Assert.assertTrue(codec instanceof CollectibleCodec);
     }
 
+    @Test
+    public void testCollectibleCodecIsNoProxy() {
+        Codec<EntityWithCollectibleId> codec = codecRegistry.get(EntityWithCollectibleId.class);
+        Assert.assertFalse(Proxy.isProxyClass(codec.getClass()));
+        Assert.assertTrue(codec instanceof ReflectionCodec);
+        Assert.assertTrue(codec instanceof DelegatingCodec);
+        Codec<EntityWithCollectibleId> delegate = ((DelegatingCodec<EntityWithCollectibleId>) codec).getDelegate();
+        Assert.assertTrue(delegate instanceof ReflectionCodec);
+        Assert.assertFalse(delegate instanceof CollectibleCodec);
+
+        EntityWithCollectibleId entity = new EntityWithCollectibleId();
+        CollectibleCodec<EntityWithCollectibleId> collectibleCodec = (CollectibleCodec<EntityWithCollectibleId>) codec;
+        Assert.assertFalse(collectibleCodec.documentHasId(entity));
+        collectibleCodec.generateIdIfAbsentFromDocument(entity);
+        Assert.assertTrue(collectibleCodec.documentHasId(entity));
+        Assert.assertEquals(entity.id, collectibleCodec.getDocumentId(entity).asObjectId().getValue());
+    }
+
     @Test
     public void testEntityWithoutId() {
         Codec<EntityWithoutId> entityWithIdCodec = codecRegistry.get(EntityWithoutId.class);
@@ -0,0 +1,129 @@
+package de.bild.codec;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryFieldReaderTest {
+
+    static class Pojo {
+        int anInt;
+        String aString;
+        long aLong;
+        double aDouble;
+        boolean aBoolean;
+        float aFloat;
+        char aChar;
+        short aShort;
+        byte aByte;
+    }
+
+    static class Container {
+        Pojo pojo;
+        String after;
+    }
+
+    /**
+     * an unmapped element of every bson type
+     */
+    private static final String UNMAPPED_ELEMENTS = "double: 1.5, string: 'string', document: {a: {b: 1}}, array: [1, 'two', {three: 3}], "
+            + "binary: {$binary: {'base64': 'AQID', 'subType': '80'}}, undefined: {$undefined: true}, objectId: {$oid: '5d5bc1e8f1a7b1f1c2d3e4f5'}, "
+            + "boolean: false, date: {$date: {$numberLong: '1'}}, null: null, regex: {$regularExpression: {'pattern': 'a.*b', 'options': 'i'}}, "
+            + "dbPointer: {$dbPointer: {'$ref': 'collection', '$id': {'$oid': '5d5bc1e8f1a7b1f1c2d3e4f5'}}}, javaScript: {$code: 'x = 1'}, "
+            + "symbol: {$symbol: 'symbol'}, javaScriptWithScope: {$code: 'x = y', $scope: {y: 1}}, int32: 1, "
+            + "timestamp: {$timestamp: {'t': 1, 'i': 2}}, int64: {$numberLong: '1'}, decimal128: {$numberDecimal: '1.5'}, "
+            + "minKey: {$minKey: 1}, maxKey: {$maxKey: 1}";
+
+    private static final String MAPPED_ELEMENTS = "anInt: 1, aString: 'string', aLong: {$numberLong: '2'}, aDouble: 3.5, aBoolean: true, "
+            + "aFloat: 4.5, aChar: 65, aShort: 5, aByte: 6";
+
+    private static void assertMappedElements(Pojo pojo) {
+        assertEquals(1, pojo.anInt);
+        assertEquals("string", pojo.aString);
+        assertEquals(2L, pojo.aLong);
+        assertEquals(3.5d, pojo.aDouble);
+        assertTrue(pojo.aBoolean);
+        assertEquals(4.5f, pojo.aFloat);
+        assertEquals('A', pojo.aChar);
+        assertEquals(5, pojo.aShort);
+        assertEquals(6, pojo.aByte);
+    }
+
+    @Test
+    public void skipUnmappedElementsTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            CodecRegistry codecRegistry = registry(BinaryFieldReaderTest.class, builder -> builder.specializedCodecs(specializedCodecs));
+            Codec<Container> codec = codecRegistry.get(Container.class);
+            for (String json : new String[]{
+                    "{pojo: {" + MAPPED_ELEMENTS + ", " + UNMAPPED_ELEMENTS + "}, after: 'after'}",
+                    "{pojo: {" + UNMAPPED_ELEMENTS + ", " + MAPPED_ELEMENTS + "}, after: 'after'}",
+                    "{pojo: {" + MAPPED_ELEMENTS + "}, after: 'after'}"}) {
+                byte[] bytes = encodeBinary(codecRegistry, json);
+                for (Container container : new Container[]{
+                        decodeBinary(codec, bytes),
+                        new RawBsonDocument(bytes).decode(codec),
+                        codec.decode(new BsonDocumentReader(BsonDocument.parse(json)), DecoderContext.builder().build())}) {
+                    assertMappedElements(container.pojo);
+                    assertEquals("after", container.after);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unexpectedBsonTypesTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            CodecRegistry codecRegistry = registry(BinaryFieldReaderTest.class, builder -> builder.specializedCodecs(specializedCodecs));
+            Pojo pojo = decodeBinary(codecRegistry.get(Pojo.class), encodeBinary(codecRegistry, "{anInt: null, aLong: 'string', aDouble: 7.5, aByte: {$numberLong: '8'}}"));
+            assertEquals(0, pojo.anInt);
+            assertEquals(0L, pojo.aLong);
+            assertEquals(7.5d, pojo.aDouble);
+            assertEquals(0, pojo.aByte);
+        }
+    }
+
+    @Test
+    public void encodedPojoTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            BasicReflectionCodec<Pojo> codec = (BasicReflectionCodec<Pojo>) registry(BinaryFieldReaderTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Pojo.class);
+            Pojo pojo = decodeBinary(codec, encodeBinary(registry(BinaryFieldReaderTest.class, builder -> builder.specializedCodecs(specializedCodecs)), "{" + MAPPED_ELEMENTS + "}"));
+            BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+            codec.encode(new BsonBinaryWriter(outputBuffer), pojo, EncoderContext.builder().build());
+
+            assertMappedElements(decodeBinary(codec, outputBuffer.toByteArray()));
+            assertEquals(0, codec.getOutOfOrderFieldMatches());
+        }
+    }
+
+    @Test
+    public void duplicatesAfterAllFieldsAreIgnoredTest() {
+        CodecRegistry codecRegistry = registry(BinaryFieldReaderTest.class, builder -> builder.specializedCodecs(false));
+        BsonValueCodec bsonValueCodec = new BsonValueCodec(codecRegistry);
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        BsonBinaryWriter writer = new BsonBinaryWriter(outputBuffer);
+        writer.writeStartDocument();
+        for (Map.Entry<String, BsonValue> element : BsonDocument.parse("{" + MAPPED_ELEMENTS + "}").entrySet()) {
+            writer.writeName(element.getKey());
+            bsonValueCodec.encode(writer, element.getValue(), EncoderContext.builder().build());
+        }
+        writer.writeInt32("anInt", 2);
+        writer.writeEndDocument();
+
+        Pojo pojo = decodeBinary(codecRegistry.get(Pojo.class), outputBuffer.toByteArray());
+        assertMappedElements(pojo);
+    }
+}
@@ -0,0 +1,145 @@
+package de.bild.codec;
+
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryViewTest {
+
+    static class Attachment {
+        String name;
+        BinaryView image;
+        ByteBuffer pdf;
+        List<BinaryView> thumbnails;
+        byte[] bytes;
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * seed);
+        }
+        return bytes;
+    }
+
+    private static Attachment attachment() {
+        Attachment attachment = new Attachment();
+        attachment.name = "attachment";
+        attachment.image = BinaryView.of(bytes(1000, 3));
+        ByteBuffer pdf = ByteBuffer.wrap(bytes(600, 7));
+        pdf.position(100);
+        attachment.pdf = pdf;
+        attachment.thumbnails = Arrays.asList(BinaryView.of((byte) 0x80, bytes(10, 5)), BinaryView.of(new byte[0]));
+        attachment.bytes = bytes(5, 1);
+        return attachment;
+    }
+
+    private static void assertAttachment(Attachment expected, Attachment actual) {
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.image, actual.image);
+        assertEquals(expected.pdf, actual.pdf);
+        assertTrue(actual.pdf.isReadOnly());
+        assertEquals(500, actual.pdf.remaining());
+        assertEquals(expected.thumbnails, actual.thumbnails);
+        assertEquals((byte) 0x80, actual.thumbnails.get(0).getType());
+        assertArrayEquals(expected.bytes, actual.bytes);
+    }
+
+    @Test
+    public void roundTripTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Attachment> codec = registry(BinaryViewTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Attachment.class);
+            Attachment attachment = attachment();
+            byte[] bytes = encodeBinary(codec, attachment);
+
+            assertAttachment(attachment, new RawBsonDocument(bytes).decode(codec));
+            assertAttachment(attachment, BinaryView.decode(new RawBsonDocument(bytes), codec));
+
+            BsonDocument document = new BsonDocument();
+            codec.encode(new BsonDocumentWriter(document), attachment, EncoderContext.builder().build());
+            assertEquals(new BsonBinary(bytes(1000, 3)), document.getBinary("image"));
+            assertAttachment(attachment, codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build()));
+        }
+    }
+
+    @Test
+    public void rawDocumentBytesAreSharedTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Attachment> codec = registry(BinaryViewTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Attachment.class);
+            byte[] bytes = encodeBinary(codec, attachment());
+            RawBsonDocument rawBsonDocument = new RawBsonDocument(bytes);
+            Attachment copied = rawBsonDocument.decode(codec);
+            Attachment shared = BinaryView.decode(rawBsonDocument, codec);
+
+            byte[] image = shared.image.toByteArray();
+            byte[] pdf = new byte[shared.pdf.remaining()];
+            shared.pdf.duplicate().get(pdf);
+            bytes[indexOf(bytes, image)]++;
+            bytes[indexOf(bytes, pdf)]++;
+
+            assertEquals(image[0] + 1, shared.image.get(0));
+            assertEquals(pdf[0] + 1, shared.pdf.get(0));
+            assertEquals(image[0], copied.image.get(0));
+            assertEquals(pdf[0], copied.pdf.get(0));
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i <= bytes.length - part.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + part.length), part)) {
+                return i;
+            }
+        }
+        throw new AssertionError("not found");
+    }
+
+    @Test
+    public void oldBinarySubTypeTest() {
+        Codec<Attachment> codec = registry(BinaryViewTest.class, builder -> builder.specializedCodecs(false)).get(Attachment.class);
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        BsonBinaryWriter writer = new BsonBinaryWriter(outputBuffer);
+        writer.writeStartDocument();
+        writer.writeBinaryData("image", new BsonBinary(BsonBinarySubType.OLD_BINARY, bytes(20, 3)));
+        writer.writeBinaryData("pdf", new BsonBinary(BsonBinarySubType.OLD_BINARY, bytes(30, 7)));
+        writer.writeEndDocument();
+        RawBsonDocument rawBsonDocument = new RawBsonDocument(outputBuffer.toByteArray());
+        for (Attachment attachment : new Attachment[]{rawBsonDocument.decode(codec), BinaryView.decode(rawBsonDocument, codec)}) {
+            assertEquals(BinaryView.of(BsonBinarySubType.OLD_BINARY.getValue(), bytes(20, 3)), attachment.image);
+            assertEquals(ByteBuffer.wrap(bytes(30, 7)), attachment.pdf);
+        }
+    }
+
+    @Test
+    public void binaryViewTest() {
+        byte[] data = bytes(10, 3);
+        BinaryView view = BinaryView.of(data);
+        assertSame(data, view.getData());
+        assertNotSame(data, view.toByteArray());
+        assertArrayEquals(data, view.toByteArray());
+        assertEquals(10, view.length());
+        assertTrue(view.asByteBuffer().isReadOnly());
+        assertEquals(BsonBinarySubType.BINARY.getValue(), view.getType());
+        assertNotEquals(view, BinaryView.of((byte) 0x80, data));
+        assertEquals(view.hashCode(), BinaryView.of(bytes(10, 3)).hashCode());
+
+        BinaryView slice = BinaryView.slice((byte) 0, ByteBuffer.wrap(data), 2, 3);
+        assertArrayEquals(Arrays.copyOfRange(data, 2, 5), slice.getData());
+        assertEquals(data[2], slice.get(0));
+    }
+}
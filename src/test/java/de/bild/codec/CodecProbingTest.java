@@ -0,0 +1,127 @@
+package de.bild.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodecProbingTest {
+
+    static class Pojo {
+        List<String> strings;
+        Set<Integer> numbers;
+        Map<Integer, String> byNumber;
+    }
+
+    static class NotAPojo {
+    }
+
+    static class NotAPojoCodec implements Codec<NotAPojo> {
+        @Override
+        public NotAPojo decode(BsonReader reader, DecoderContext decoderContext) {
+            reader.readNull();
+            return new NotAPojo();
+        }
+
+        @Override
+        public void encode(BsonWriter writer, NotAPojo value, EncoderContext encoderContext) {
+            writer.writeNull();
+        }
+
+        @Override
+        public Class<NotAPojo> getEncoderClass() {
+            return NotAPojo.class;
+        }
+    }
+
+    /**
+     * records the types asked for and the type codec registry
+     */
+    static class RecordingTypeCodecProvider implements TypeCodecProvider {
+        final List<Type> types = Collections.synchronizedList(new ArrayList<>());
+        TypeCodecRegistry typeCodecRegistry;
+
+        @Override
+        public <T> Codec<T> get(Type type, TypeCodecRegistry typeCodecRegistry) {
+            types.add(type);
+            this.typeCodecRegistry = typeCodecRegistry;
+            return null;
+        }
+    }
+
+    @Test
+    public void probeAndRememberUnhandledTypesTest() {
+        RecordingTypeCodecProvider recordingTypeCodecProvider = new RecordingTypeCodecProvider();
+        PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder().register(Pojo.class).register(recordingTypeCodecProvider).build();
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(pojoCodecProvider),
+                MongoClientSettings.getDefaultCodecRegistry());
+
+        Codec<Pojo> codec = codecRegistry.get(Pojo.class);
+        Pojo pojo = new Pojo();
+        pojo.strings = Collections.singletonList("a");
+        pojo.numbers = Collections.singleton(1);
+        pojo.byNumber = Collections.singletonMap(2, "b");
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), pojo, EncoderContext.builder().build());
+        pojo = codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+        assertEquals(Collections.singletonList("a"), pojo.strings);
+        assertEquals(Collections.singleton(1), pojo.numbers);
+        assertEquals(Collections.singletonMap(2, "b"), pojo.byNumber);
+
+        TypeCodecRegistry typeCodecRegistry = recordingTypeCodecProvider.typeCodecRegistry;
+        assertNotNull(typeCodecRegistry.findCodec(String.class));
+        assertNull(typeCodecRegistry.findCodec(NotAPojo.class));
+        assertThrows(Exception.class, () -> typeCodecRegistry.getCodec(NotAPojo.class));
+
+        // the type is calculated once, afterwards it is known not to be handled
+        for (int i = 0; i < 3; i++) {
+            assertNull(pojoCodecProvider.get(NotAPojo.class, codecRegistry));
+        }
+        assertEquals(1, Collections.frequency(recordingTypeCodecProvider.types, NotAPojo.class));
+    }
+
+    @Test
+    public void lateRegistrationTest() {
+        RecordingTypeCodecProvider recordingTypeCodecProvider = new RecordingTypeCodecProvider();
+        PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder().register(Pojo.class).register(recordingTypeCodecProvider).build();
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(pojoCodecProvider),
+                MongoClientSettings.getDefaultCodecRegistry());
+        Type listType = TypeUtils.parameterize(List.class, NotAPojo.class);
+
+        assertNull(pojoCodecProvider.get(NotAPojo.class, codecRegistry));
+        assertNull(recordingTypeCodecProvider.typeCodecRegistry.findCodec(listType));
+
+        // a registry knowing the element type is registered later
+        CodecRegistry lateCodecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new NotAPojoCodec()),
+                codecRegistry);
+        assertNull(pojoCodecProvider.get(Integer.class, lateCodecRegistry));
+        assertNotNull(recordingTypeCodecProvider.typeCodecRegistry.findCodec(listType));
+
+        // unhandled types are calculated again after clearing the caches
+        assertEquals(1, Collections.frequency(recordingTypeCodecProvider.types, NotAPojo.class));
+        pojoCodecProvider.clearCaches();
+        assertNull(pojoCodecProvider.get(NotAPojo.class, lateCodecRegistry));
+        assertEquals(2, Collections.frequency(recordingTypeCodecProvider.types, NotAPojo.class));
+    }
+}
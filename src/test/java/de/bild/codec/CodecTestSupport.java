@@ -0,0 +1,83 @@
+package de.bild.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Registries and encode/decode round trips shared by the codec tests of this package.
+ */
+final class CodecTestSupport {
+
+    private CodecTestSupport() {
+    }
+
+    /**
+     * @param clazz         the class to register, usually the test class itself, so that all nested model classes are found
+     * @param configuration further settings of the provider
+     * @return a registry of the configured provider followed by the default registry of the driver
+     */
+    static CodecRegistry registry(Class<?> clazz, Consumer<PojoCodecProvider.Builder> configuration) {
+        PojoCodecProvider.Builder builder = PojoCodecProvider.builder().register(clazz);
+        configuration.accept(builder);
+        return registry(builder);
+    }
+
+    static CodecRegistry registry(Class<?>... classes) {
+        return registry(PojoCodecProvider.builder().register(classes));
+    }
+
+    private static CodecRegistry registry(PojoCodecProvider.Builder builder) {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(builder.build()),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    static <T> byte[] encodeBinary(Codec<T> codec, T value) {
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(outputBuffer), value, EncoderContext.builder().build());
+        return outputBuffer.toByteArray();
+    }
+
+    static byte[] encodeBinary(CodecRegistry codecRegistry, String json) {
+        return encodeBinary(codecRegistry.get(BsonDocument.class), BsonDocument.parse(json));
+    }
+
+    static <T> T decodeBinary(Codec<T> codec, byte[] bytes) {
+        return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+    }
+
+    static <T> BsonDocument encodeDocument(Codec<T> codec, T value) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+        return document;
+    }
+
+    static <T> T decodeDocument(Codec<T> codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    static <T> T decodeDocument(Codec<T> codec, String json) {
+        return decodeDocument(codec, BsonDocument.parse(json));
+    }
+
+    static <T> T bsonRoundTrip(Codec<T> codec, T value) {
+        return decodeDocument(codec, encodeDocument(codec, value));
+    }
+
+    static <T> T binaryRoundTrip(Codec<T> codec, T value) {
+        return decodeBinary(codec, encodeBinary(codec, value));
+    }
+}
@@ -0,0 +1,129 @@
+package de.bild.codec;
+
+import ch.qos.logback.classic.Level;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static de.bild.codec.CodecTestSupport.encodeBinary;
+import static de.bild.codec.CodecTestSupport.registry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies, that decoding a pojo does not allocate anything beyond the pojo itself and what the reader allocates anyway.
+ */
+public class DecodeAllocationTest {
+    private static final int WARM_UP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 10_000;
+    // upper bound for the shallow size of the pojos below (object header plus 70 primitive fields)
+    private static final long MAX_POJO_SIZE = 16 + 70 * 8;
+
+    static class SmallPojo {
+        int anInt;
+        long aLong;
+        double aDouble;
+        boolean aBoolean;
+    }
+
+    /**
+     * more than 64 fields
+     */
+    static class LargePojo {
+        int f0, f1, f2, f3, f4, f5, f6, f7, f8, f9, f10, f11, f12, f13, f14, f15, f16, f17, f18, f19;
+        int f20, f21, f22, f23, f24, f25, f26, f27, f28, f29, f30, f31, f32, f33, f34, f35, f36, f37, f38, f39;
+        long f40, f41, f42, f43, f44, f45, f46, f47, f48, f49, f50, f51, f52, f53, f54, f55, f56, f57, f58, f59;
+        double f60, f61, f62, f63, f64, f65, f66, f67, f68, f69;
+    }
+
+    private static Level rootLevel;
+
+    @BeforeAll
+    static void setUp() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        // without a logback configuration the root logger logs on debug level, which would dominate the measurement
+        ch.qos.logback.classic.Logger rootLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        rootLevel = rootLogger.getLevel();
+        rootLogger.setLevel(Level.INFO);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(rootLevel);
+    }
+
+    private static long allocatedBytesPerIteration(ByteBuffer buffer, Consumer<BsonReader> action) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            action.accept(new BsonBinaryReader(buffer.duplicate()));
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.accept(new BsonBinaryReader(buffer.duplicate()));
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    /**
+     * reads all names of the document and skips all values, this is what the reader allocates anyway
+     */
+    private static void readNames(BsonReader reader) {
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            reader.readName();
+            reader.skipValue();
+        }
+        reader.readEndDocument();
+    }
+
+    private static <T> void assertDecodeAllocatesOnlyPojo(Codec<T> codec, T value) {
+        ByteBuffer buffer = ByteBuffer.wrap(encodeBinary(codec, value));
+        DecoderContext decoderContext = DecoderContext.builder().build();
+        long readerAllocations = allocatedBytesPerIteration(buffer, DecodeAllocationTest::readNames);
+        long decodeAllocations = allocatedBytesPerIteration(buffer, reader -> codec.decode(reader, decoderContext));
+        assertTrue(decodeAllocations - readerAllocations <= MAX_POJO_SIZE,
+                codec.getEncoderClass().getSimpleName() + ": decoding allocates " + decodeAllocations
+                        + " bytes, reading the document allocates " + readerAllocations + " bytes");
+    }
+
+    @Test
+    public void smallPojoTest() {
+        SmallPojo pojo = new SmallPojo();
+        pojo.anInt = 1;
+        pojo.aLong = 2L;
+        pojo.aDouble = 3d;
+        pojo.aBoolean = true;
+        assertDecodeAllocatesOnlyPojo(registry(DecodeAllocationTest.class, builder -> builder.specializedCodecs(false)).get(SmallPojo.class), pojo);
+        assertDecodeAllocatesOnlyPojo(registry(DecodeAllocationTest.class, builder -> builder.specializedCodecs(true)).get(SmallPojo.class), pojo);
+    }
+
+    @Test
+    public void largePojoTest() {
+        LargePojo pojo = new LargePojo();
+        pojo.f0 = 1;
+        pojo.f69 = 69d;
+        Codec<LargePojo> codec = registry(DecodeAllocationTest.class, builder -> builder.specializedCodecs(false)).get(LargePojo.class);
+        byte[] bytes = encodeBinary(codec, pojo);
+        assertEquals(69d, codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build()).f69);
+
+        assertDecodeAllocatesOnlyPojo(codec, pojo);
+        assertDecodeAllocatesOnlyPojo(registry(DecodeAllocationTest.class, builder -> builder.specializedCodecs(true)).get(LargePojo.class), pojo);
+    }
+}
@@ -0,0 +1,164 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.CodecToBeUsed;
+import de.bild.codec.annotations.DeltaEncoded;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaVarintCodecTest {
+
+    static class Tracking {
+        @DeltaEncoded
+        long[] timestamps;
+        @DeltaEncoded
+        List<Long> ids;
+        @DeltaEncoded
+        LongArrayList offsets;
+        @CodecToBeUsed(DeltaVarintCodec.LongArrayCodec.class)
+        long[] values;
+        long[] plain;
+    }
+
+    private static Tracking tracking() {
+        Tracking tracking = new Tracking();
+        tracking.timestamps = new long[1000];
+        for (int i = 0; i < tracking.timestamps.length; i++) {
+            tracking.timestamps[i] = 1_600_000_000_000L + i * 1000L;
+        }
+        tracking.ids = new ArrayList<>(Arrays.asList(5L, 6L, 7L, 9L, 8L, -3L));
+        tracking.offsets = LongArrayList.of(Long.MIN_VALUE, Long.MAX_VALUE, 0L, Long.MIN_VALUE);
+        tracking.values = new long[0];
+        tracking.plain = tracking.timestamps.clone();
+        return tracking;
+    }
+
+    private static void assertTracking(Tracking expected, Tracking actual) {
+        assertArrayEquals(expected.timestamps, actual.timestamps);
+        assertEquals(expected.ids, actual.ids);
+        assertEquals(expected.offsets, actual.offsets);
+        assertArrayEquals(expected.values, actual.values);
+        assertArrayEquals(expected.plain, actual.plain);
+    }
+
+    @Test
+    public void roundTripTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Tracking> codec = registry(DeltaVarintCodecTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Tracking.class);
+            Tracking tracking = tracking();
+            BsonDocument document = encodeDocument(codec, tracking);
+            for (String key : new String[]{"timestamps", "ids", "offsets", "values"}) {
+                assertEquals(BsonType.BINARY, document.get(key).getBsonType(), key);
+            }
+            assertEquals(BsonType.ARRAY, document.get("plain").getBsonType());
+            // format, count (2 bytes), first value (6 bytes) and 999 deltas of 1000 (2 bytes each)
+            assertEquals(1 + 2 + 6 + 999 * 2, document.getBinary("timestamps").getData().length);
+            assertArrayEquals(new byte[]{DeltaVarintCodec.FORMAT, 6, 10, 2, 2, 4, 1, 21}, document.getBinary("ids").getData());
+
+            Tracking decoded = decodeDocument(codec, document);
+            assertTracking(tracking, decoded);
+            assertTrue(decoded.ids instanceof LongArrayList);
+
+            byte[] bytes = encodeBinary(codec, tracking);
+            assertTracking(tracking, codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build()));
+            assertTracking(tracking, new RawBsonDocument(bytes).decode(codec));
+        }
+    }
+
+    @Test
+    public void encodedSizeTest() {
+        Codec<Tracking> codec = registry(DeltaVarintCodecTest.class, builder -> builder.specializedCodecs(false)).get(Tracking.class);
+        Tracking tracking = new Tracking();
+        tracking.plain = tracking().timestamps;
+        int plainSize = encodeBinary(codec, tracking).length;
+        tracking.plain = null;
+        tracking.timestamps = tracking().timestamps;
+        int deltaSize = encodeBinary(codec, tracking).length;
+        assertTrue(deltaSize * 5 < plainSize, deltaSize + " vs. " + plainSize);
+    }
+
+    @Test
+    public void legacyArraysAndNullsTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Tracking> codec = registry(DeltaVarintCodecTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Tracking.class);
+            Tracking decoded = decodeDocument(codec, BsonDocument.parse("{timestamps: [{$numberLong: '1'}, {$numberLong: '3'}], ids: [{$numberLong: '2'}]}"));
+            assertArrayEquals(new long[]{1L, 3L}, decoded.timestamps);
+            assertEquals(Arrays.asList(2L), decoded.ids);
+
+            // lists with nulls cannot be delta encoded
+            decoded.ids = Arrays.asList(2L, null);
+            BsonDocument document = encodeDocument(codec, decoded);
+            assertEquals(BsonDocument.parse("{ids: [{$numberLong: '2'}, null]}").get("ids"), document.get("ids"));
+        }
+    }
+
+    @Test
+    public void malformedBinaryTest() {
+        Codec<long[]> codec = new DeltaVarintCodec.LongArrayCodec(PrimitiveArrayCodec.LONG);
+        for (byte[] data : new byte[][]{
+                {DeltaVarintCodec.FORMAT, 3, 2, 2},
+                {DeltaVarintCodec.FORMAT, 1, (byte) 0x80},
+                {DeltaVarintCodec.FORMAT, 1, 2, 2},
+                // negative size
+                {DeltaVarintCodec.FORMAT, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 2},
+                // size above Integer.MAX_VALUE
+                {DeltaVarintCodec.FORMAT, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10, 2},
+                // 10th byte exceeding 64 bits
+                {DeltaVarintCodec.FORMAT, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 2},
+                {DeltaVarintCodec.FORMAT, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x81, 0}}) {
+            BsonDocument document = new BsonDocument("value", new org.bson.BsonBinary(DeltaVarintCodec.SUB_TYPE, data));
+            BsonDocumentReader reader = new BsonDocumentReader(document);
+            reader.readStartDocument();
+            reader.readName();
+            assertThrows(org.bson.BsonSerializationException.class, () -> codec.decode(reader, DecoderContext.builder().build()));
+        }
+    }
+
+    @Test
+    public void varintTest() {
+        for (long value : new long[]{0, 1, -1, 63, -64, 64, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, DeltaVarintCodec.unZigZag(DeltaVarintCodec.zigZag(value)));
+        }
+        byte[] data = new byte[10];
+        for (long value : new long[]{0, 127, 128, 16383, 16384, -1}) {
+            assertEquals(DeltaVarintCodec.varintSize(value), DeltaVarintCodec.writeVarint(data, 0, value), Long.toString(value));
+        }
+        assertEquals(10, DeltaVarintCodec.varintSize(-1));
+    }
+
+    @Test
+    public void longArrayListTest() {
+        LongArrayList list = new LongArrayList();
+        for (long i = 0; i < 20; i++) {
+            list.addLong(i);
+        }
+        list.addLong(0, -1L);
+        assertEquals(21, list.size());
+        assertEquals(-1L, list.removeLong(0));
+        assertEquals(5L, list.setLong(5, 50L));
+        assertEquals(Long.valueOf(50L), list.get(5));
+        assertTrue(list.contains(19L));
+        assertFalse(list.contains(19));
+        assertEquals(20, list.toLongArray().length);
+        List<Long> expected = new ArrayList<>(list);
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getLong(20));
+        assertThrows(NullPointerException.class, () -> list.add(null));
+        list.clear();
+        assertTrue(list.isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package de.bild.codec;
+
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.annotations.Discriminator;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiscriminatorCodeTest {
+
+    interface Element {
+    }
+
+    @Discriminator(code = 1)
+    static class ArticleTeaserVideoElement implements Element {
+        String url;
+    }
+
+    @Discriminator(value = "ImageElement", aliases = {"LegacyImageElement"}, code = 2)
+    static class Image implements Element {
+        int width;
+    }
+
+    static class TextElement implements Element {
+        String text;
+    }
+
+    static class Container {
+        List<Element> elements;
+    }
+
+    static class BrokenModel {
+        interface Shape {
+        }
+
+        @Discriminator(code = 3)
+        static class Circle implements Shape {
+        }
+
+        @Discriminator(code = 3)
+        static class Square implements Shape {
+        }
+
+        @Discriminator(code = Discriminator.MAX_CODE + 1)
+        static class Triangle {
+        }
+    }
+
+    @Test
+    public void encodeCodeTest() {
+        Codec<Element> codec = registry(Element.class, ArticleTeaserVideoElement.class, Image.class, TextElement.class).get(Element.class);
+        ArticleTeaserVideoElement video = new ArticleTeaserVideoElement();
+        video.url = "url";
+        assertEquals(BsonDocument.parse("{_t: 1, url: 'url'}"), encodeDocument(codec, video));
+        Image image = new Image();
+        image.width = 3;
+        assertEquals(BsonDocument.parse("{_t: 2, width: 3}"), encodeDocument(codec, image));
+        TextElement text = new TextElement();
+        text.text = "text";
+        assertEquals(BsonDocument.parse("{_t: 'TextElement', text: 'text'}"), encodeDocument(codec, text));
+
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(outputBuffer), image, EncoderContext.builder().build());
+        assertEquals(new BsonInt32(2), new RawBsonDocument(outputBuffer.toByteArray()).get("_t"));
+        Element decoded = codec.decode(new BsonBinaryReader(ByteBuffer.wrap(outputBuffer.toByteArray())), DecoderContext.builder().build());
+        assertEquals(3, ((Image) decoded).width);
+    }
+
+    @Test
+    public void decodeCodesAndLegacyValuesTest() {
+        Codec<Element> codec = registry(Element.class, ArticleTeaserVideoElement.class, Image.class, TextElement.class).get(Element.class);
+        assertEquals("url", ((ArticleTeaserVideoElement) decodeDocument(codec, "{_t: 1, url: 'url'}")).url);
+        assertEquals("url", ((ArticleTeaserVideoElement) decodeDocument(codec, "{_t: 'ArticleTeaserVideoElement', url: 'url'}")).url);
+        assertEquals("url", ((ArticleTeaserVideoElement) decodeDocument(codec, "{url: 'url', _t: 1}")).url);
+        for (String discriminator : new String[]{"2", "'ImageElement'", "'LegacyImageElement'"}) {
+            assertEquals(3, ((Image) decodeDocument(codec, "{_t: " + discriminator + ", width: 3}")).width);
+        }
+
+        // unknown codes
+        Codec<Container> containerCodec = registry(Container.class, Element.class, ArticleTeaserVideoElement.class, Image.class, TextElement.class).get(Container.class);
+        Container container = decodeDocument(containerCodec, "{elements: [{_t: 4, width: 3}, {_t: 4096}, {_t: -1}, {_t: 2, width: 3}]}");
+        assertEquals(Arrays.asList(null, null, null), container.elements.subList(0, 3));
+        assertEquals(3, ((Image) container.elements.get(3)).width);
+    }
+
+    @Test
+    public void typeFilterTest() {
+        PolymorphicReflectionCodec<Element> codec = (PolymorphicReflectionCodec<Element>) registry(Element.class, ArticleTeaserVideoElement.class, Image.class, TextElement.class).get(Element.class);
+        String typeFilter = codec.getTypeFilter().toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry()).toJson();
+        assertTrue(typeFilter.contains("{\"_t\": 1}"), typeFilter);
+        assertTrue(typeFilter.contains("{\"_t\": \"ArticleTeaserVideoElement\"}"), typeFilter);
+        assertTrue(typeFilter.contains("{\"_t\": 2}"), typeFilter);
+        assertTrue(typeFilter.contains("{\"_t\": \"LegacyImageElement\"}"), typeFilter);
+    }
+
+    @Test
+    public void invalidCodesTest() {
+        assertThrows(Exception.class, () -> registry(BrokenModel.Shape.class, BrokenModel.Circle.class, BrokenModel.Square.class).get(BrokenModel.Shape.class));
+        assertThrows(Exception.class, () -> registry(BrokenModel.Triangle.class).get(BrokenModel.Triangle.class));
+    }
+}
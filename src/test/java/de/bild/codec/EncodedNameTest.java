@@ -0,0 +1,125 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.Discriminator;
+import de.bild.codec.annotations.EncodeNulls;
+import de.bild.codec.annotations.Id;
+import de.bild.codec.annotations.LockingVersion;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonBinaryWriterSettings;
+import org.bson.BsonDocument;
+import org.bson.BsonWriterSettings;
+import org.bson.FieldNameValidator;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodedNameTest {
+
+    enum Color {
+        RED, GRÜN
+    }
+
+    static class Pojo {
+        @Id
+        ObjectId id;
+        @LockingVersion
+        int version;
+        byte aByte;
+        boolean aBoolean;
+        char aChar;
+        short aShort;
+        int anInt;
+        long aLong;
+        float aFloat;
+        double aDouble;
+        String aString;
+        @EncodeNulls
+        String aNullString;
+        Color aColor;
+        Shape aShape;
+    }
+
+    interface Shape {
+    }
+
+    @Discriminator("circlé")
+    static class Circle implements Shape {
+        int radius;
+    }
+
+    static class Square implements Shape {
+        Color color;
+    }
+
+    private static Pojo createPojo(Shape shape) {
+        Pojo pojo = new Pojo();
+        pojo.id = new ObjectId();
+        pojo.version = 1;
+        pojo.aByte = 2;
+        pojo.aBoolean = true;
+        pojo.aChar = 'ü';
+        pojo.aShort = 3;
+        pojo.anInt = 4;
+        pojo.aLong = 5L;
+        pojo.aFloat = 6.5f;
+        pojo.aDouble = 7.25d;
+        pojo.aString = "string";
+        pojo.aColor = Color.GRÜN;
+        pojo.aShape = shape;
+        return pojo;
+    }
+
+    @Test
+    public void binaryWriterEncodesLikeAnyOtherWriterTest() {
+        Square square = new Square();
+        square.color = Color.RED;
+        Circle circle = new Circle();
+        circle.radius = 42;
+
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Pojo> codec = registry(EncodedNameTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Pojo.class);
+            for (Shape shape : new Shape[]{square, circle, null}) {
+                Pojo pojo = createPojo(shape);
+                byte[] bytes = encodeBinary(codec, pojo);
+                BsonDocument expected = encodeDocument(codec, pojo);
+                assertEquals(expected, new RawBsonDocument(bytes));
+
+                Pojo decoded = codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+                assertEquals(Color.GRÜN, decoded.aColor);
+                assertEquals('ü', decoded.aChar);
+                assertEquals(2, decoded.version);
+            }
+            BsonDocument circleDocument = new RawBsonDocument(encodeBinary(codec, createPojo(circle))).getDocument("aShape");
+            assertEquals("circlé", circleDocument.getString("_t").getValue());
+            assertEquals(42, circleDocument.getInt32("radius").getValue());
+        }
+    }
+
+    @Test
+    public void unsafeNamesAreValidatedByWriterTest() {
+        FieldNameValidator noDollarValidator = new FieldNameValidator() {
+            @Override
+            public boolean validate(String fieldName) {
+                return !fieldName.startsWith("$");
+            }
+
+            @Override
+            public FieldNameValidator getValidatorForField(String fieldName) {
+                return this;
+            }
+        };
+        BsonBinaryWriter writer = new BsonBinaryWriter(new BsonWriterSettings(), new BsonBinaryWriterSettings(), new BasicOutputBuffer(), noDollarValidator);
+        writer.writeStartDocument();
+        new EncodedName("safe").writeInt32(writer, 1);
+        assertThrows(IllegalArgumentException.class, () -> new EncodedName("$unsafe").writeInt32(writer, 1));
+    }
+}
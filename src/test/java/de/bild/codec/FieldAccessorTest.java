@@ -0,0 +1,169 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.Id;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldAccessorTest {
+
+    static class Pojo {
+        private byte aByte;
+        private boolean aBoolean;
+        private char aChar;
+        private short aShort;
+        private int anInt;
+        private long aLong;
+        private float aFloat;
+        private double aDouble;
+        private String aString;
+    }
+
+    static class IntIdGenerator implements IdGenerator<Integer> {
+        @Override
+        public Integer generate() {
+            return 42;
+        }
+
+        @Override
+        public BsonValue asBsonValue(Integer id, TypeCodecRegistry typeCodecRegistry) {
+            return new BsonInt32(id);
+        }
+    }
+
+    static class PrimitivePojo {
+        @Id(value = IntIdGenerator.class, collectible = true)
+        int id;
+        long aLong;
+        boolean aBoolean;
+        double aDouble;
+    }
+
+    private static FieldAccessor accessor(String fieldName) throws NoSuchFieldException {
+        return FieldAccessor.of(Pojo.class.getDeclaredField(fieldName));
+    }
+
+    @Test
+    public void primitiveRoundTripTest() throws Exception {
+        Pojo pojo = new Pojo();
+
+        accessor("aByte").setByte(pojo, (byte) 7);
+        accessor("aBoolean").setBoolean(pojo, true);
+        accessor("aChar").setChar(pojo, 'x');
+        accessor("aShort").setShort(pojo, (short) 42);
+        accessor("anInt").setInt(pojo, 4711);
+        accessor("aLong").setLong(pojo, Long.MAX_VALUE);
+        accessor("aFloat").setFloat(pojo, 1.5f);
+        accessor("aDouble").setDouble(pojo, 2.25d);
+
+        assertEquals(7, pojo.aByte);
+        assertTrue(pojo.aBoolean);
+        assertEquals('x', pojo.aChar);
+        assertEquals(42, pojo.aShort);
+        assertEquals(4711, pojo.anInt);
+        assertEquals(Long.MAX_VALUE, pojo.aLong);
+        assertEquals(1.5f, pojo.aFloat);
+        assertEquals(2.25d, pojo.aDouble);
+
+        assertEquals(7, accessor("aByte").getByte(pojo));
+        assertTrue(accessor("aBoolean").getBoolean(pojo));
+        assertEquals('x', accessor("aChar").getChar(pojo));
+        assertEquals(42, accessor("aShort").getShort(pojo));
+        assertEquals(4711, accessor("anInt").getInt(pojo));
+        assertEquals(Long.MAX_VALUE, accessor("aLong").getLong(pojo));
+        assertEquals(1.5f, accessor("aFloat").getFloat(pojo));
+        assertEquals(2.25d, accessor("aDouble").getDouble(pojo));
+    }
+
+    @Test
+    public void referenceTest() throws Exception {
+        Pojo pojo = new Pojo();
+        FieldAccessor stringAccessor = accessor("aString");
+        assertTrue(stringAccessor instanceof FieldAccessor.MethodHandleFieldAccessor);
+
+        stringAccessor.set(pojo, "value");
+        assertEquals("value", pojo.aString);
+        assertEquals("value", stringAccessor.get(pojo));
+
+        stringAccessor.set(pojo, null);
+        assertNull(stringAccessor.get(pojo));
+    }
+
+    @Test
+    public void boxedPrimitiveTest() throws Exception {
+        Pojo pojo = new Pojo();
+        for (FieldAccessor fieldAccessor : new FieldAccessor[]{accessor("anInt"), accessor("aLong"), accessor("aBoolean"), accessor("aDouble")}) {
+            assertTrue(fieldAccessor instanceof FieldAccessor.MethodHandleFieldAccessor);
+        }
+        accessor("anInt").set(pojo, 4711);
+        accessor("aLong").set(pojo, Long.MIN_VALUE);
+        accessor("aBoolean").set(pojo, true);
+        accessor("aDouble").set(pojo, 2.25d);
+
+        assertEquals(4711, pojo.anInt);
+        assertEquals(Long.MIN_VALUE, pojo.aLong);
+        assertTrue(pojo.aBoolean);
+        assertEquals(2.25d, pojo.aDouble);
+
+        assertEquals(4711, accessor("anInt").get(pojo));
+        assertEquals(Long.MIN_VALUE, accessor("aLong").get(pojo));
+        assertEquals(true, accessor("aBoolean").get(pojo));
+        assertEquals(2.25d, accessor("aDouble").get(pojo));
+
+        // widening as with Field#set
+        accessor("aLong").set(pojo, 42);
+        assertEquals(42L, pojo.aLong);
+        assertThrows(IllegalArgumentException.class, () -> accessor("anInt").set(pojo, "42"));
+        assertThrows(IllegalArgumentException.class, () -> accessor("anInt").set(pojo, null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void primitiveMappedFieldsTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<PrimitivePojo> codec = registry(FieldAccessorTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(PrimitivePojo.class);
+            PrimitivePojo pojo = new PrimitivePojo();
+            pojo.id = 7;
+            pojo.aLong = Long.MAX_VALUE;
+            pojo.aBoolean = true;
+            pojo.aDouble = -1.5d;
+
+            PrimitivePojo decoded = binaryRoundTrip(codec, pojo);
+            assertEquals(7, decoded.id);
+            assertEquals(Long.MAX_VALUE, decoded.aLong);
+            assertTrue(decoded.aBoolean);
+            assertEquals(-1.5d, decoded.aDouble);
+
+            CollectibleCodec<PrimitivePojo> collectibleCodec = (CollectibleCodec<PrimitivePojo>) codec;
+            assertTrue(collectibleCodec.documentHasId(pojo));
+            assertSame(pojo, collectibleCodec.generateIdIfAbsentFromDocument(pojo));
+            assertEquals(new BsonInt32(7), collectibleCodec.getDocumentId(pojo));
+
+            BasicReflectionCodec<PrimitivePojo> reflectionCodec = (BasicReflectionCodec<PrimitivePojo>) ((DelegatingCodec<PrimitivePojo>) codec).getDelegate();
+            for (Object[] nameAndValue : new Object[][]{{"_id", 8}, {"aLong", 3L}, {"aBoolean", false}, {"aDouble", 0.5d}}) {
+                MappedField<PrimitivePojo, Object> mappedField = reflectionCodec.getMappedField((String) nameAndValue[0]);
+                assertTrue(mappedField.setFieldValue(pojo, nameAndValue[1]));
+                assertEquals(nameAndValue[1], mappedField.getFieldValue(pojo));
+            }
+            assertEquals(8, pojo.id);
+        }
+    }
+
+    @Test
+    public void typeMismatchTest() throws Exception {
+        FieldAccessor stringAccessor = accessor("aString");
+        assertThrows(IllegalArgumentException.class, () -> stringAccessor.set(new Pojo(), 1L));
+
+        Field field = Pojo.class.getDeclaredField("aString");
+        field.setAccessible(true);
+        FieldAccessor reflectionAccessor = new FieldAccessor.ReflectionFieldAccessor(field);
+        assertThrows(IllegalArgumentException.class, () -> reflectionAccessor.set(new Pojo(), 1L));
+    }
+}
@@ -0,0 +1,48 @@
+package de.bild.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FieldNameIndexTest {
+
+    @Test
+    public void indexOfTest() {
+        List<String> names = Arrays.asList("_id", "_t", "name", "type", "tame", "nama", "aa", "ab", "ba", "bb", "", "version");
+        FieldNameIndex fieldNameIndex = new FieldNameIndex(names);
+        for (int ordinal = 0; ordinal < names.size(); ordinal++) {
+            assertEquals(ordinal, fieldNameIndex.indexOf(names.get(ordinal)), names.get(ordinal));
+        }
+        for (String unknown : Arrays.asList("_i", "nome", "typ", "ac", "ca", "versions", "x", "_idx")) {
+            assertEquals(-1, fieldNameIndex.indexOf(unknown), unknown);
+        }
+    }
+
+    @Test
+    public void manyFieldsTest() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            names.add("field" + i);
+            names.add("f" + Integer.toHexString(i * 7919));
+        }
+        Collections.shuffle(names);
+        FieldNameIndex fieldNameIndex = new FieldNameIndex(names);
+        for (int ordinal = 0; ordinal < names.size(); ordinal++) {
+            assertEquals(ordinal, fieldNameIndex.indexOf(new String(names.get(ordinal).toCharArray())));
+        }
+        assertEquals(-1, fieldNameIndex.indexOf("field200"));
+        assertEquals(-1, fieldNameIndex.indexOf("gield1"));
+    }
+
+    @Test
+    public void emptyIndexTest() {
+        FieldNameIndex fieldNameIndex = new FieldNameIndex(Collections.emptyList());
+        assertEquals(-1, fieldNameIndex.indexOf(""));
+        assertEquals(-1, fieldNameIndex.indexOf("name"));
+    }
+}
@@ -0,0 +1,101 @@
+package de.bild.codec;
+
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.annotations.Discriminator;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalDiscriminatorTest {
+
+    interface Pet {
+    }
+
+    static class Animal {
+        String name;
+    }
+
+    @Discriminator(aliases = "Mammalia")
+    static class Mammal extends Animal {
+        int legs;
+    }
+
+    static class Dog extends Mammal implements Pet {
+        boolean barks;
+    }
+
+    @Discriminator(code = 5)
+    static class Cat extends Mammal implements Pet {
+    }
+
+    static class Fish extends Animal implements Pet {
+    }
+
+    static class Zoo {
+        List<Animal> animals;
+    }
+
+    private static String typeFilter(Codec<?> codec) {
+        return ((PolymorphicReflectionCodec<?>) codec).getTypeFilter().toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry()).toJson();
+    }
+
+    @Test
+    public void encodeClassHierarchyTest() {
+        Codec<Animal> codec = registry(HierarchicalDiscriminatorTest.class, builder -> builder.hierarchicalDiscriminators(true)).get(Animal.class);
+        Dog dog = new Dog();
+        dog.name = "dog";
+        dog.legs = 4;
+        dog.barks = true;
+        assertEquals(BsonDocument.parse("{_t: ['Animal', 'Mammal', 'Dog'], name: 'dog', legs: 4, barks: true}"), encodeDocument(codec, dog));
+        assertEquals(BsonDocument.parse("{_t: ['Animal', 'Mammal', 5], legs: 0}"), encodeDocument(codec, new Cat()));
+
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(outputBuffer), dog, EncoderContext.builder().build());
+        Dog decoded = (Dog) codec.decode(new BsonBinaryReader(ByteBuffer.wrap(outputBuffer.toByteArray())), DecoderContext.builder().build());
+        assertEquals("dog", decoded.name);
+        assertEquals(4, decoded.legs);
+        assertTrue(decoded.barks);
+    }
+
+    @Test
+    public void decodeMostSpecificDiscriminatorTest() {
+        Codec<Animal> codec = registry(HierarchicalDiscriminatorTest.class, builder -> builder.hierarchicalDiscriminators(true)).get(Animal.class);
+        assertEquals(Dog.class, decodeDocument(codec, "{_t: ['Animal', 'Mammal', 'Dog']}").getClass());
+        assertEquals(Dog.class, decodeDocument(codec, "{legs: 4, _t: ['Animal', 'Mammal', 'Dog']}").getClass());
+        assertEquals(Cat.class, decodeDocument(codec, "{_t: ['Animal', 'Mammal', 5]}").getClass());
+        assertEquals(Cat.class, decodeDocument(codec, "{_t: ['Animal', 'Mammalia', 'Cat']}").getClass());
+        // unknown entries are ignored, legacy single discriminators are still understood
+        assertEquals(Mammal.class, decodeDocument(codec, "{_t: ['Animal', 'Mammal', 'Unicorn']}").getClass());
+        assertEquals(Dog.class, decodeDocument(codec, "{_t: 'Dog'}").getClass());
+
+        Codec<Zoo> zooCodec = registry(HierarchicalDiscriminatorTest.class, builder -> builder.hierarchicalDiscriminators(true)).get(Zoo.class);
+        Zoo zoo = decodeDocument(zooCodec, "{animals: [{_t: ['Unicorn']}, {_t: [true]}, {_t: []}, {_t: ['Animal', 'Fish']}]}");
+        assertEquals(Arrays.asList(null, null, null), zoo.animals.subList(0, 3));
+        assertEquals(Fish.class, zoo.animals.get(3).getClass());
+    }
+
+    @Test
+    public void typeFilterTest() {
+        CodecRegistry codecRegistry = registry(HierarchicalDiscriminatorTest.class, builder -> builder.hierarchicalDiscriminators(true));
+        assertEquals("{\"_t\": \"Animal\"}", typeFilter(codecRegistry.get(Animal.class)));
+        // aliases are accepted within discriminator arrays as well
+        assertEquals("{\"_t\": {\"$in\": [\"Mammal\", \"Mammalia\"]}}", typeFilter(codecRegistry.get(Mammal.class)));
+        BsonDocument petFilter = BsonDocument.parse(typeFilter(codecRegistry.get(Pet.class)));
+        assertEquals(new HashSet<>(BsonDocument.parse("{values: ['Dog', 5, 'Cat', 'Fish']}").getArray("values")),
+                new HashSet<>(petFilter.getDocument("_t").getArray("$in")));
+    }
+}
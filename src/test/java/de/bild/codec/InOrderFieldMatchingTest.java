@@ -0,0 +1,75 @@
+package de.bild.codec;
+
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.jupiter.api.Test;
+
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InOrderFieldMatchingTest {
+
+    static class Pojo {
+        int a;
+        String b;
+        long c;
+        String d;
+    }
+
+    @Test
+    public void encodeOrderTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            BasicReflectionCodec<Pojo> codec = (BasicReflectionCodec<Pojo>) registry(InOrderFieldMatchingTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Pojo.class);
+            Pojo pojo = new Pojo();
+            pojo.a = 1;
+            pojo.b = "b";
+            pojo.c = 3L;
+            pojo.d = "d";
+            byte[] bytes = encodeBinary(codec, pojo);
+            for (int i = 0; i < 3; i++) {
+                Pojo decoded = decodeBinary(codec, bytes);
+                assertEquals(1, decoded.a);
+                assertEquals("b", decoded.b);
+                assertEquals(3L, decoded.c);
+                assertEquals("d", decoded.d);
+            }
+            assertEquals(12, codec.getInOrderFieldMatches());
+            assertEquals(0, codec.getOutOfOrderFieldMatches());
+        }
+    }
+
+    @Test
+    public void learnObservedOrderTest() {
+        CodecRegistry codecRegistry = registry(InOrderFieldMatchingTest.class, builder -> builder.specializedCodecs(false));
+        BasicReflectionCodec<Pojo> codec = (BasicReflectionCodec<Pojo>) codecRegistry.get(Pojo.class);
+        byte[] bytes = encodeBinary(codecRegistry, "{d: 'd', c: {$numberLong: '3'}, b: 'b', a: 1}");
+
+        Pojo decoded = decodeBinary(codec, bytes);
+        assertEquals(1, decoded.a);
+        assertEquals("b", decoded.b);
+        assertEquals(3L, decoded.c);
+        assertEquals("d", decoded.d);
+        assertEquals(0, codec.getInOrderFieldMatches());
+        assertEquals(4, codec.getOutOfOrderFieldMatches());
+
+        // the order has been learned
+        decodeBinary(codec, bytes);
+        assertEquals(4, codec.getInOrderFieldMatches());
+        assertEquals(4, codec.getOutOfOrderFieldMatches());
+    }
+
+    @Test
+    public void unmappedFieldsTest() {
+        CodecRegistry codecRegistry = registry(InOrderFieldMatchingTest.class, builder -> builder.specializedCodecs(true));
+        BasicReflectionCodec<Pojo> codec = (BasicReflectionCodec<Pojo>) codecRegistry.get(Pojo.class);
+        byte[] bytes = encodeBinary(codecRegistry, "{a: 1, unknown: 'x', b: 'b', c: {$numberLong: '3'}, d: 'd'}");
+
+        Pojo decoded = decodeBinary(codec, bytes);
+        assertEquals(1, decoded.a);
+        assertEquals("b", decoded.b);
+        assertEquals(3L, decoded.c);
+        assertEquals("d", decoded.d);
+        assertEquals(4, codec.getInOrderFieldMatches());
+        assertEquals(1, codec.getOutOfOrderFieldMatches());
+    }
+}
@@ -0,0 +1,84 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.Id;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazySubTypeCodecTest {
+
+    interface Shape {
+    }
+
+    static class Circle implements Shape {
+        int radius;
+    }
+
+    static class Square implements Shape {
+        int side;
+    }
+
+    static class Triangle implements Shape {
+        @Id(collectible = true)
+        ObjectId id;
+    }
+
+    static class BrokenModel {
+        interface Item {
+        }
+
+        static class NamedLikeDiscriminator implements Item {
+            String _t;
+        }
+
+        static class Other implements Item {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PolymorphicReflectionCodec<Shape> shapeCodec(Codec<Shape> codec) {
+        while (codec instanceof DelegatingCodec) {
+            codec = ((DelegatingCodec<Shape>) codec).getDelegate();
+        }
+        return (PolymorphicReflectionCodec<Shape>) codec;
+    }
+
+    @Test
+    public void subTypeCodecsAreResolvedOnFirstUseTest() {
+        Codec<Shape> codec = registry(Shape.class, Circle.class, Square.class, Triangle.class).get(Shape.class);
+        // a sub type declares a collectible id, without resolving its codec
+        assertTrue(codec instanceof CollectibleCodec);
+        PolymorphicReflectionCodec<Shape> polymorphicCodec = shapeCodec(codec);
+        assertFalse(polymorphicCodec.classToSubType.get(Circle.class).isResolved());
+        assertFalse(polymorphicCodec.classToSubType.get(Square.class).isResolved());
+        assertFalse(polymorphicCodec.classToSubType.get(Triangle.class).isResolved());
+
+        Circle circle = new Circle();
+        circle.radius = 2;
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), circle, EncoderContext.builder().build());
+        assertEquals(BsonDocument.parse("{_t: 'Circle', radius: 2}"), document);
+        assertTrue(polymorphicCodec.classToSubType.get(Circle.class).isResolved());
+        assertFalse(polymorphicCodec.classToSubType.get(Square.class).isResolved());
+
+        Square square = (Square) codec.decode(new BsonDocumentReader(BsonDocument.parse("{_t: 'Square', side: 3}")), DecoderContext.builder().build());
+        assertEquals(3, square.side);
+        assertTrue(polymorphicCodec.classToSubType.get(Square.class).isResolved());
+        assertFalse(polymorphicCodec.classToSubType.get(Triangle.class).isResolved());
+        assertSame(polymorphicCodec.getCodecForClass(Square.class), polymorphicCodec.getCodecForClass(Square.class));
+    }
+
+    @Test
+    public void fieldsNamedLikeDiscriminatorKeysAreDetectedUpfrontTest() {
+        assertThrows(Exception.class, () -> registry(BrokenModel.Item.class, BrokenModel.NamedLikeDiscriminator.class, BrokenModel.Other.class).get(BrokenModel.Item.class));
+    }
+}
@@ -0,0 +1,148 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.PackedArray;
+import org.bson.BsonArray;
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonType;
+import org.bson.codecs.Codec;
+import org.junit.jupiter.api.Test;
+
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedArrayTest {
+
+    static class Metrics {
+        @PackedArray
+        int[] ints;
+        @PackedArray
+        long[][] longs;
+        @PackedArray
+        float[][][] floats;
+        @PackedArray
+        double[] doubles;
+        int[] plain;
+    }
+
+    @PackedArray
+    static class PackedMetrics {
+        double[] doubles;
+        @PackedArray(false)
+        int[] plain;
+    }
+
+    private static Metrics metrics() {
+        Metrics metrics = new Metrics();
+        metrics.ints = new int[]{1, -2, Integer.MAX_VALUE};
+        metrics.longs = new long[][]{{1L, 2L}, {Long.MIN_VALUE, 4L}, {5L, 6L}};
+        metrics.floats = new float[2][3][4];
+        metrics.floats[1][2][3] = 1.5f;
+        metrics.floats[0][1][0] = Float.NaN;
+        metrics.doubles = new double[0];
+        metrics.plain = new int[]{7, 8};
+        return metrics;
+    }
+
+    private static void assertMetrics(Metrics expected, Metrics actual) {
+        assertArrayEquals(expected.ints, actual.ints);
+        assertArrayEquals(expected.longs, actual.longs);
+        assertArrayEquals(expected.floats, actual.floats);
+        assertArrayEquals(expected.doubles, actual.doubles);
+        assertArrayEquals(expected.plain, actual.plain);
+    }
+
+    @Test
+    public void packedArraysTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Metrics> codec = registry(PackedArrayTest.class, builder -> builder.specializedCodecs(specializedCodecs).packedArrays(false)).get(Metrics.class);
+            Metrics metrics = metrics();
+            BsonDocument document = encodeDocument(codec, metrics);
+            for (String key : new String[]{"ints", "longs", "floats", "doubles"}) {
+                assertEquals(BsonType.BINARY, document.get(key).getBsonType(), key);
+                assertEquals(PackedArrayCodec.SUB_TYPE, document.getBinary(key).getType());
+            }
+            assertEquals(BsonType.ARRAY, document.get("plain").getBsonType());
+            // element type, dimensions, shape and little endian values
+            assertArrayEquals(new byte[]{1, 1, 3, 0, 0, 0, 1, 0, 0, 0, -2, -1, -1, -1, -1, -1, -1, 127}, document.getBinary("ints").getData());
+            assertEquals(2 + 3 * 4 + 2 * 3 * 4 * 4, document.getBinary("floats").getData().length);
+
+            assertMetrics(metrics, decodeDocument(codec, document));
+            assertMetrics(metrics, binaryRoundTrip(codec, metrics));
+        }
+    }
+
+    @Test
+    public void legacyArraysAreDecodedTest() {
+        Metrics metrics = metrics();
+        // plain bson arrays as written prior to 2.9.0
+        BsonDocument document = BsonDocument.parse("{ints: [1, -2, 2147483647], longs: [[{$numberLong: '1'}, {$numberLong: '2'}], [{$numberLong: '-9223372036854775808'}, {$numberLong: '4'}], [{$numberLong: '5'}, {$numberLong: '6'}]], doubles: [], plain: [7, 8]}");
+        document.put("floats", legacyFloats(metrics.floats));
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            assertMetrics(metrics, decodeDocument(registry(PackedArrayTest.class, builder -> builder.specializedCodecs(specializedCodecs).packedArrays(false)).get(Metrics.class), document));
+        }
+    }
+
+    private static BsonArray legacyFloats(float[][][] floats) {
+        BsonArray array = new BsonArray();
+        for (float[][] matrix : floats) {
+            BsonArray matrixArray = new BsonArray();
+            for (float[] row : matrix) {
+                BsonArray rowArray = new BsonArray();
+                for (float value : row) {
+                    rowArray.add(new BsonDouble(value));
+                }
+                matrixArray.add(rowArray);
+            }
+            array.add(matrixArray);
+        }
+        return array;
+    }
+
+    @Test
+    public void jaggedArraysAreWrittenAsBsonArraysTest() {
+        Codec<Metrics> codec = registry(PackedArrayTest.class, builder -> builder.specializedCodecs(false).packedArrays(false)).get(Metrics.class);
+        Metrics metrics = new Metrics();
+        metrics.longs = new long[][]{{1L, 2L}, {3L}};
+        metrics.floats = new float[][][]{{{1f}}, null};
+        BsonDocument document = encodeDocument(codec, metrics);
+        assertEquals(BsonType.ARRAY, document.get("longs").getBsonType());
+        assertEquals(BsonType.ARRAY, document.get("floats").getBsonType());
+        Metrics decoded = decodeDocument(codec, document);
+        assertArrayEquals(metrics.longs, decoded.longs);
+        assertArrayEquals(metrics.floats, decoded.floats);
+    }
+
+    @Test
+    public void globalAndClassLevelConfigurationTest() {
+        PackedMetrics packedMetrics = new PackedMetrics();
+        packedMetrics.doubles = new double[]{1.5, 2.5};
+        packedMetrics.plain = new int[]{1};
+        BsonDocument document = encodeDocument(registry(PackedArrayTest.class, builder -> builder.specializedCodecs(false).packedArrays(false)).get(PackedMetrics.class), packedMetrics);
+        assertEquals(BsonType.BINARY, document.get("doubles").getBsonType());
+        assertEquals(BsonType.ARRAY, document.get("plain").getBsonType());
+
+        Metrics metrics = metrics();
+        document = encodeDocument(registry(PackedArrayTest.class, builder -> builder.specializedCodecs(false).packedArrays(true)).get(Metrics.class), metrics);
+        assertEquals(BsonType.BINARY, document.get("plain").getBsonType());
+        assertMetrics(metrics, decodeDocument(registry(PackedArrayTest.class, builder -> builder.specializedCodecs(false).packedArrays(true)).get(Metrics.class), document));
+    }
+
+    @Test
+    public void mismatchingBinariesAreSkippedTest() {
+        Codec<Metrics> codec = registry(PackedArrayTest.class, builder -> builder.specializedCodecs(false).packedArrays(false)).get(Metrics.class);
+        BsonDocument document = new BsonDocument()
+                // a long[] written into an int[] field
+                .append("ints", encodeDocument(codec, metrics()).get("longs"))
+                // a generic binary
+                .append("doubles", new BsonBinary(new byte[]{1, 2, 3}))
+                // a shape not matching the data
+                .append("longs", new BsonBinary(PackedArrayCodec.SUB_TYPE, new byte[]{2, 2, 1, 0, 0, 0, 1, 0, 0, 0}));
+        Metrics decoded = decodeDocument(codec, document);
+        assertNull(decoded.ints);
+        assertNull(decoded.doubles);
+        assertNull(decoded.longs);
+    }
+}
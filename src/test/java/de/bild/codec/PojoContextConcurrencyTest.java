@@ -0,0 +1,205 @@
+package de.bild.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PojoContextConcurrencyTest {
+    private static final int THREADS = 8;
+
+    interface Shape {
+    }
+
+    static class Circle implements Shape {
+        double radius;
+        Tree owner;
+    }
+
+    static class Square implements Shape {
+        double side;
+        List<Shape> inner;
+    }
+
+    static class Tree {
+        String name;
+        Tree parent;
+        List<Tree> children;
+        List<Shape> shapes;
+    }
+
+    interface Figure {
+    }
+
+    static class Dot implements Figure {
+        double x;
+    }
+
+    static class Line implements Figure {
+        double length;
+    }
+
+    static class DotCodec implements Codec<Dot> {
+        @Override
+        public Dot decode(BsonReader reader, DecoderContext decoderContext) {
+            reader.readStartDocument();
+            reader.readEndDocument();
+            return new Dot();
+        }
+
+        @Override
+        public void encode(BsonWriter writer, Dot value, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            writer.writeBoolean("userCodec", true);
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<Dot> getEncoderClass() {
+            return Dot.class;
+        }
+    }
+
+    /**
+     * Does not provide any codec, but blocks the first request for {@link Dot} until released.
+     */
+    static class BlockingCodecResolver implements CodecResolver {
+        final AtomicBoolean first = new AtomicBoolean(true);
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public PolymorphicCodec getCodec(Type type, TypeCodecRegistry typeCodecRegistry, CodecConfiguration codecConfiguration) {
+            if (type == Dot.class && first.getAndSet(false)) {
+                entered.countDown();
+                try {
+                    released.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final List<Class<?>> TYPES = Arrays.asList(Tree.class, Shape.class, Circle.class, Square.class);
+
+    @RepeatedTest(5)
+    public void concurrentResolutionTest() throws Exception {
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(PojoCodecProvider.builder().register(PojoContextConcurrencyTest.class).build()),
+                MongoClientSettings.getDefaultCodecRegistry());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Codec<?>>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                int offset = i;
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    List<Codec<?>> codecs = new ArrayList<>();
+                    for (int j = 0; j < TYPES.size(); j++) {
+                        Class<?> type = TYPES.get((j + offset) % TYPES.size());
+                        codecs.add(codecRegistry.get(type));
+                    }
+                    return codecs;
+                }));
+            }
+            start.countDown();
+            for (Future<List<Codec<?>>> future : futures) {
+                for (Codec<?> codec : future.get(30, TimeUnit.SECONDS)) {
+                    assertNotNull(codec);
+                    assertFalse(codec.getClass().getSimpleName().contains("LazyCodec"), codec.getClass().getName());
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // all threads must see the same codecs
+        for (Class<?> type : TYPES) {
+            assertSame(codecRegistry.get(type), codecRegistry.get(type));
+        }
+
+        Tree tree = new Tree();
+        tree.name = "root";
+        Tree child = new Tree();
+        child.name = "child";
+        Circle circle = new Circle();
+        circle.radius = 1.0;
+        circle.owner = child;
+        Square square = new Square();
+        square.side = 2.0;
+        square.inner = Arrays.asList(circle);
+        tree.children = Arrays.asList(child);
+        tree.shapes = Arrays.asList(square, circle);
+
+        Codec<Tree> codec = codecRegistry.get(Tree.class);
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(outputBuffer), tree, EncoderContext.builder().build());
+        Tree decoded = codec.decode(new BsonBinaryReader(ByteBuffer.wrap(outputBuffer.toByteArray())), DecoderContext.builder().build());
+
+        assertEquals("root", decoded.name);
+        assertEquals("child", decoded.children.get(0).name);
+        assertTrue(decoded.shapes.get(0) instanceof Square);
+        assertEquals("child", ((Circle) ((Square) decoded.shapes.get(0)).inner.get(0)).owner.name);
+    }
+
+    @Test
+    public void userCodecForSubTypeWhileOtherThreadResolvesSubTypeTest() throws Exception {
+        BlockingCodecResolver codecResolver = new BlockingCodecResolver();
+        PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder()
+                .register(PojoContextConcurrencyTest.class)
+                .registerCodecResolver(codecResolver)
+                .build();
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new DotCodec()),
+                CodecRegistries.fromProviders(pojoCodecProvider),
+                MongoClientSettings.getDefaultCodecRegistry());
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            // the other thread resolves the codec for Dot within the pojo context and blocks while doing so
+            Future<Codec<Dot>> future = executorService.submit(() -> pojoCodecProvider.get(Dot.class, codecRegistry));
+            assertTrue(codecResolver.entered.await(30, TimeUnit.SECONDS));
+
+            // the polymorphic codec must still use the codec registered by the user for Dot
+            Codec<Figure> codec = codecRegistry.get(Figure.class);
+            BsonDocument document = new BsonDocument();
+            codec.encode(new BsonDocumentWriter(document), new Dot(), EncoderContext.builder().build());
+            assertTrue(document.getDocument("data").getBoolean("userCodec").getValue(), document.toJson());
+
+            codecResolver.released.countDown();
+            assertNotNull(future.get(30, TimeUnit.SECONDS));
+        } finally {
+            codecResolver.released.countDown();
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.Discriminator;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.jupiter.api.Test;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolymorphicClassDispatchTest {
+
+    interface Shape {
+    }
+
+    @Discriminator("circle")
+    static class Circle implements Shape {
+        int radius;
+    }
+
+    static class Square implements Shape {
+        int side;
+    }
+
+    /**
+     * all classes within the test are registered, hence the non-registered sub classes are declared elsewhere
+     */
+    static class NotRegistered {
+        static class ColoredCircle extends Circle {
+            String color;
+        }
+
+        static class DarkColoredCircle extends ColoredCircle {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PolymorphicReflectionCodec<Shape> shapeCodec(CodecRegistry codecRegistry) {
+        Codec<Shape> codec = codecRegistry.get(Shape.class);
+        while (codec instanceof DelegatingCodec) {
+            codec = ((DelegatingCodec<Shape>) codec).getDelegate();
+        }
+        return (PolymorphicReflectionCodec<Shape>) codec;
+    }
+
+    @Test
+    public void subClassesAreDispatchedToRegisteredCodecTest() {
+        CodecRegistry codecRegistry = registry(Shape.class, Circle.class, Square.class);
+        PolymorphicReflectionCodec<Shape> codec = shapeCodec(codecRegistry);
+        PolymorphicCodec<Shape> circleCodec = codec.getCodecForClass(Circle.class);
+        assertEquals(Circle.class, circleCodec.getEncoderClass());
+        assertSame(circleCodec, codec.getCodecForClass(NotRegistered.ColoredCircle.class));
+        assertSame(circleCodec, codec.getCodecForClass(NotRegistered.DarkColoredCircle.class));
+        assertEquals(Square.class, codec.getCodecForClass(Square.class).getEncoderClass());
+        assertNull(codec.getCodecForClass(String.class));
+        assertNull(codec.getCodecForClass(null));
+
+        NotRegistered.DarkColoredCircle circle = new NotRegistered.DarkColoredCircle();
+        circle.radius = 2;
+        circle.color = "black";
+        for (int i = 0; i < 2; i++) {
+            BsonDocument document = new BsonDocument();
+            codec.encode(new BsonDocumentWriter(document), circle, EncoderContext.builder().build());
+            assertEquals(BsonDocument.parse("{_t: 'circle', radius: 2}"), document);
+        }
+    }
+}
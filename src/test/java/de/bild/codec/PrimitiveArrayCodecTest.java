@@ -0,0 +1,123 @@
+package de.bild.codec;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveArrayCodecTest {
+
+    private static final int[] LENGTHS = {0, 1, 9, 10, 11, 99, 100, 101, 10_000, PrimitiveArrayCodec.MAX_REUSED_BUFFER_LENGTH + 1};
+
+    private static Object randomArray(PrimitiveArrayCodec codec, int length, Random random) {
+        Object array = Array.newInstance(codec.primitiveClass.getComponentType(), length);
+        for (int i = 0; i < length; i++) {
+            switch (codec) {
+                case BYTE:
+                    Array.setByte(array, i, (byte) random.nextInt());
+                    break;
+                case BOOLEAN:
+                    Array.setBoolean(array, i, random.nextBoolean());
+                    break;
+                case CHARACTER:
+                    Array.setChar(array, i, (char) random.nextInt());
+                    break;
+                case FLOAT:
+                    Array.setFloat(array, i, random.nextFloat());
+                    break;
+                case INTEGER:
+                    Array.setInt(array, i, random.nextInt());
+                    break;
+                case LONG:
+                    Array.setLong(array, i, random.nextLong());
+                    break;
+                case SHORT:
+                    Array.setShort(array, i, (short) random.nextInt());
+                    break;
+                case DOUBLE:
+                    Array.setDouble(array, i, random.nextDouble());
+                    break;
+            }
+        }
+        return array;
+    }
+
+    private static Object roundTrip(PrimitiveArrayCodec codec, Object array, boolean binary) {
+        BsonWriter writer;
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        BsonDocument document = new BsonDocument();
+        writer = binary ? new BsonBinaryWriter(outputBuffer) : new BsonDocumentWriter(document);
+        writer.writeStartDocument();
+        writer.writeName("array");
+        codec.encode(writer, array, EncoderContext.builder().build());
+        writer.writeString("after", "after");
+        writer.writeEndDocument();
+
+        BsonReader reader = binary ? new BsonBinaryReader(ByteBuffer.wrap(outputBuffer.toByteArray())) : new BsonDocumentReader(document);
+        reader.readStartDocument();
+        reader.readName("array");
+        Object decoded = codec.decode(reader, DecoderContext.builder().build());
+        assertEquals("after", reader.readString("after"));
+        reader.readEndDocument();
+        return decoded;
+    }
+
+    private static void assertArrayEquals(Object expected, Object actual) {
+        assertSame(expected.getClass(), actual.getClass());
+        assertEquals(Array.getLength(expected), Array.getLength(actual));
+        for (int i = 0; i < Array.getLength(expected); i++) {
+            assertEquals(Array.get(expected, i), Array.get(actual, i));
+        }
+    }
+
+    @Test
+    public void roundTripTest() {
+        Random random = new Random(42);
+        for (PrimitiveArrayCodec codec : PrimitiveArrayCodec.values()) {
+            for (int length : LENGTHS) {
+                Object array = randomArray(codec, length, random);
+                for (boolean binary : new boolean[]{true, false}) {
+                    assertArrayEquals(array, roundTrip(codec, array, binary));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reusedBufferIsNotReturnedTest() {
+        Random random = new Random(42);
+        for (PrimitiveArrayCodec codec : PrimitiveArrayCodec.values()) {
+            Object first = randomArray(codec, 20, random);
+            Object firstDecoded = roundTrip(codec, first, false);
+            Object second = randomArray(codec, 20, random);
+            Object secondDecoded = roundTrip(codec, second, false);
+            assertNotSame(firstDecoded, secondDecoded);
+            assertArrayEquals(first, firstDecoded);
+            assertArrayEquals(second, secondDecoded);
+        }
+    }
+
+    @Test
+    public void elementCountTest() {
+        for (int valueSize : new int[]{1, 4, 8}) {
+            int elementsSize = 0;
+            for (int count = 0; count <= 100_001; count++) {
+                assertEquals(count, PrimitiveArrayCodec.elementCount(elementsSize, valueSize));
+                elementsSize += 2 + Integer.toString(count).length() + valueSize;
+            }
+        }
+    }
+}
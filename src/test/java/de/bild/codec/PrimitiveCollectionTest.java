@@ -0,0 +1,186 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.PrimitiveCollection;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.codecs.Codec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveCollectionTest {
+
+    static class Ids {
+        IntArrayList counts;
+        LongHashSet userIds;
+        @PrimitiveCollection
+        List<Long> articleIds;
+        @PrimitiveCollection
+        List<Double> scores;
+        @PrimitiveCollection
+        Set<Long> tagIds;
+        @PrimitiveCollection
+        List<Integer> positions;
+        List<Long> boxed;
+    }
+
+    @PrimitiveCollection
+    static class AllIds {
+        List<Long> articleIds;
+        @PrimitiveCollection(false)
+        Set<Long> tagIds;
+    }
+
+    private static Ids ids() {
+        Ids ids = new Ids();
+        ids.counts = IntArrayList.of(3, 1, 2);
+        ids.userIds = LongHashSet.of(7L, Long.MIN_VALUE, 0L);
+        // plain collections are encoded as well
+        ids.articleIds = new ArrayList<>(Arrays.asList(1L, 2L, 3L));
+        ids.scores = DoubleArrayList.of(1.5, Double.NaN);
+        ids.tagIds = new HashSet<>(Arrays.asList(4L, 5L));
+        ids.positions = IntArrayList.of();
+        ids.boxed = Arrays.asList(8L, 9L);
+        return ids;
+    }
+
+    private static void assertIds(Ids expected, Ids actual) {
+        assertEquals(expected.counts, actual.counts);
+        assertEquals(expected.userIds, actual.userIds);
+        assertEquals(expected.articleIds, actual.articleIds);
+        assertEquals(expected.scores, actual.scores);
+        assertEquals(expected.tagIds, actual.tagIds);
+        assertEquals(expected.positions, actual.positions);
+        assertEquals(expected.boxed, actual.boxed);
+
+        assertTrue(actual.articleIds instanceof LongArrayList);
+        assertTrue(actual.scores instanceof DoubleArrayList);
+        assertTrue(actual.tagIds instanceof LongHashSet);
+        assertTrue(actual.positions instanceof IntArrayList);
+        assertEquals(ArrayList.class, actual.boxed.getClass());
+    }
+
+    @Test
+    public void roundTripTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Ids> codec = registry(PrimitiveCollectionTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Ids.class);
+            Ids ids = ids();
+            BsonDocument document = encodeDocument(codec, ids);
+            assertEquals(BsonDocument.parse("{counts: [3, 1, 2], "
+                    + "userIds: [{$numberLong: '7'}, {$numberLong: '-9223372036854775808'}, {$numberLong: '0'}], "
+                    + "articleIds: [{$numberLong: '1'}, {$numberLong: '2'}, {$numberLong: '3'}], "
+                    + "scores: [1.5, NaN], tagIds: [{$numberLong: '4'}, {$numberLong: '5'}], positions: [], "
+                    + "boxed: [{$numberLong: '8'}, {$numberLong: '9'}]}"), document);
+            assertIds(ids, decodeDocument(codec, document));
+            assertIds(ids, binaryRoundTrip(codec, ids));
+        }
+    }
+
+    @Test
+    public void classLevelAnnotationTest() {
+        AllIds allIds = decodeDocument(registry(PrimitiveCollectionTest.class, builder -> builder.specializedCodecs(false)).get(AllIds.class), BsonDocument.parse("{articleIds: [1, 2], tagIds: [3]}"));
+        assertTrue(allIds.articleIds instanceof LongArrayList);
+        assertEquals(Arrays.asList(1L, 2L), allIds.articleIds);
+        assertFalse(allIds.tagIds instanceof LongHashSet);
+        assertEquals(new HashSet<>(Arrays.asList(3L)), allIds.tagIds);
+    }
+
+    @Test
+    public void numericConversionsAndNullsTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            Codec<Ids> codec = registry(PrimitiveCollectionTest.class, builder -> builder.specializedCodecs(specializedCodecs)).get(Ids.class);
+            Ids ids = decodeDocument(codec, BsonDocument.parse("{counts: [1, {$numberLong: '2'}, 3.0, null], articleIds: [1, 2.0, null, {$numberLong: '3'}], "
+                    + "scores: [1, {$numberLong: '2'}, 3.5], tagIds: [1, 1, 2]}"));
+            assertEquals(Arrays.asList(1, 2, 3), ids.counts);
+            assertEquals(Arrays.asList(1L, 2L, 3L), ids.articleIds);
+            assertEquals(Arrays.asList(1.0, 2.0, 3.5), ids.scores);
+            assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), ids.tagIds);
+        }
+    }
+
+    @Test
+    public void lossOfPrecisionTest() {
+        for (String json : new String[]{"{value: 1.5}", "{value: 9.223372036854775807E18}", "{value: -9.223372036854777E18}", "{value: NaN}"}) {
+            assertThrows(BsonInvalidOperationException.class, () -> PrimitiveCollectionCodec.readLong(reader(json)), json);
+        }
+        assertEquals(Long.MIN_VALUE, PrimitiveCollectionCodec.readLong(reader("{value: -9.223372036854775808E18}")));
+        for (String json : new String[]{"{value: {$numberLong: '9007199254740993'}}", "{value: {$numberLong: '9223372036854775807'}}"}) {
+            assertThrows(BsonInvalidOperationException.class, () -> PrimitiveCollectionCodec.readDouble(reader(json)), json);
+        }
+        assertEquals(0x1p53, PrimitiveCollectionCodec.readDouble(reader("{value: {$numberLong: '9007199254740992'}}")));
+        assertEquals(-0x1p63, PrimitiveCollectionCodec.readDouble(reader("{value: {$numberLong: '-9223372036854775808'}}")));
+        assertThrows(BsonInvalidOperationException.class, () -> PrimitiveCollectionCodec.readInt(reader("{value: {$numberLong: '2147483648'}}")));
+        assertThrows(BsonInvalidOperationException.class, () -> PrimitiveCollectionCodec.readInt(reader("{value: 2147483648.0}")));
+    }
+
+    private static BsonReader reader(String json) {
+        BsonReader reader = new BsonDocumentReader(BsonDocument.parse(json));
+        reader.readStartDocument();
+        reader.readName();
+        return reader;
+    }
+
+    @Test
+    public void longHashSetTest() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            // a small range of values provokes collisions and removals of present values
+            long value = random.nextInt(2_000) * (random.nextBoolean() ? 1L << 32 : 1L);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.removeLong(value));
+            } else {
+                assertEquals(expected.add(value), set.addLong(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(expected, set);
+        for (long value : set.toLongArray()) {
+            assertTrue(set.containsLong(value));
+        }
+
+        Iterator<Long> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            Long value = iterator.next();
+            if (value % 2 == 0) {
+                iterator.remove();
+                expected.remove(value);
+            }
+        }
+        assertEquals(expected, set);
+        assertTrue(set.removeAll(new HashSet<>(set)));
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        assertThrows(NullPointerException.class, () -> set.add(null));
+    }
+
+    @Test
+    public void primitiveListsTest() {
+        IntArrayList ints = new IntArrayList();
+        for (int i = 0; i < 20; i++) {
+            ints.addInt(i);
+        }
+        assertEquals(Integer.valueOf(5), ints.remove(5));
+        assertTrue(ints.remove(Integer.valueOf(6)));
+        assertEquals(18, ints.size());
+        assertEquals(19, ints.getInt(17));
+        assertArrayEquals(new int[]{0, 1, 2}, Arrays.copyOf(ints.toIntArray(), 3));
+
+        DoubleArrayList doubles = DoubleArrayList.of(0.0, Double.NaN);
+        assertEquals(1, doubles.indexOf(Double.NaN));
+        assertFalse(doubles.contains(-0.0));
+        assertEquals(Arrays.asList(0.0, Double.NaN), doubles);
+    }
+}
@@ -0,0 +1,156 @@
+package de.bild.codec;
+
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.annotations.DecodeUndefinedHandlingStrategy;
+import de.bild.codec.annotations.DecodingFieldFailureStrategy;
+import de.bild.codec.annotations.DecodingPojoFailureStrategy;
+import de.bild.codec.annotations.EncodeNullHandlingStrategy;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonReader;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SinglePassPolymorphicDecodeTest {
+
+    interface Shape {
+    }
+
+    static class Circle implements Shape {
+        int radius;
+    }
+
+    static class Square implements Shape {
+        int side;
+        String name;
+    }
+
+    static class Container {
+        List<Shape> shapes;
+        String after;
+    }
+
+    /**
+     * counts the names read
+     */
+    static class CountingReader extends BsonBinaryReader {
+        int namesRead;
+
+        CountingReader(byte[] bytes) {
+            super(ByteBuffer.wrap(bytes));
+        }
+
+        @Override
+        public String readName() {
+            namesRead++;
+            return super.readName();
+        }
+    }
+
+    @Test
+    public void discriminatorFirstIsReadOnceTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            CodecRegistry codecRegistry = registry(SinglePassPolymorphicDecodeTest.class, builder -> builder.specializedCodecs(specializedCodecs));
+            Codec<Shape> codec = codecRegistry.get(Shape.class);
+            Circle circle = new Circle();
+            circle.radius = 3;
+
+            CountingReader reader = new CountingReader(encodeBinary(codec, circle));
+            Circle decoded = (Circle) codec.decode(reader, DecoderContext.builder().build());
+            assertEquals(3, decoded.radius);
+            assertEquals(2, reader.namesRead);
+
+            // the discriminator is not the first element: it is searched for, then the document is read again
+            reader = new CountingReader(encodeBinary(codecRegistry.get(BsonDocument.class), BsonDocument.parse("{radius: 4, _t: 'Circle'}")));
+            decoded = (Circle) codec.decode(reader, DecoderContext.builder().build());
+            assertEquals(4, decoded.radius);
+            assertEquals(4, reader.namesRead);
+        }
+    }
+
+    @Test
+    public void polymorphicListTest() {
+        for (boolean specializedCodecs : new boolean[]{false, true}) {
+            CodecRegistry codecRegistry = registry(SinglePassPolymorphicDecodeTest.class, builder -> builder.specializedCodecs(specializedCodecs));
+            Codec<Container> codec = codecRegistry.get(Container.class);
+            byte[] bytes = encodeBinary(codecRegistry.get(BsonDocument.class), BsonDocument.parse("{shapes: ["
+                    + "{_t: 'Circle', radius: 1}, "
+                    + "{_t: 'Square', side: 2, name: 'square'}, "
+                    + "{side: 3, _t: 'Square'}, "
+                    + "{_t: 'Unknown', radius: 4}, "
+                    + "null], after: 'after'}"));
+
+            Container container = codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+            assertEquals(5, container.shapes.size());
+            assertEquals(1, ((Circle) container.shapes.get(0)).radius);
+            assertEquals(2, ((Square) container.shapes.get(1)).side);
+            assertEquals("square", ((Square) container.shapes.get(1)).name);
+            assertEquals(3, ((Square) container.shapes.get(2)).side);
+            assertEquals(Arrays.asList(null, null), container.shapes.subList(3, 5));
+            assertEquals("after", container.after);
+        }
+    }
+
+    /**
+     * overrides the decode hook, which must be called for every document
+     */
+    static class CountingPolymorphicCodec extends PolymorphicReflectionCodec<Shape> {
+        int decodes;
+
+        CountingPolymorphicCodec(Type type, Set<Type> validTypes, TypeCodecRegistry typeCodecRegistry, PojoContext pojoContext) {
+            super(type, validTypes, typeCodecRegistry, pojoContext);
+        }
+
+        @Override
+        protected Shape decodeWithType(BsonReader reader, DecoderContext decoderContext, PolymorphicCodec<Shape> polymorphicCodec) {
+            decodes++;
+            return super.decodeWithType(reader, decoderContext, polymorphicCodec);
+        }
+    }
+
+    @Test
+    public void overriddenDecodeWithTypeTest() {
+        TypesModel typesModel = new TypesModel(new HashSet<>(Arrays.asList(Shape.class, Circle.class, Square.class)), null, null, null, null, null);
+        PojoContext pojoContext = new PojoContext(typesModel, Collections.emptyList(), Collections.emptyList(), new CodecConfiguration(false,
+                EncodeNullHandlingStrategy.Strategy.CODEC, DecodeUndefinedHandlingStrategy.Strategy.KEEP_POJO_DEFAULT,
+                DecodingFieldFailureStrategy.Strategy.RETHROW_EXCEPTION, DecodingPojoFailureStrategy.Strategy.RETHROW_EXCEPTION));
+        CodecRegistry codecRegistry = MongoClientSettings.getDefaultCodecRegistry();
+        TypeCodecRegistry typeCodecRegistry = new TypeCodecRegistry() {
+            @Override
+            public <T> Codec<T> getCodec(Type type) {
+                Codec<T> codec = pojoContext.getCodec(type, this);
+                return codec != null ? codec : codecRegistry.get(ReflectionHelper.extractRawClass(type));
+            }
+
+            @Override
+            public CodecRegistry getRegistry() {
+                return codecRegistry;
+            }
+        };
+        CountingPolymorphicCodec codec = new CountingPolymorphicCodec(Shape.class,
+                new HashSet<>(Arrays.asList(Circle.class, Square.class)), typeCodecRegistry, pojoContext);
+
+        Circle circle = new Circle();
+        circle.radius = 5;
+        Circle decoded = (Circle) decodeBinary(codec, encodeBinary(codec, circle));
+        assertEquals(5, decoded.radius);
+        assertEquals(1, codec.decodes);
+
+        decoded = (Circle) decodeBinary(codec, encodeBinary(codecRegistry.get(BsonDocument.class), BsonDocument.parse("{radius: 6, _t: 'Circle'}")));
+        assertEquals(6, decoded.radius);
+        assertEquals(2, codec.decodes);
+    }
+}
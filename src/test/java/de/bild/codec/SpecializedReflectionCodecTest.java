@@ -0,0 +1,124 @@
+package de.bild.codec;
+
+import de.bild.codec.annotations.DecodingFieldFailureStrategy;
+import de.bild.codec.annotations.EncodeNulls;
+import de.bild.codec.annotations.Id;
+import de.bild.codec.annotations.LockingVersion;
+import de.bild.codec.annotations.PostLoad;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static de.bild.codec.CodecTestSupport.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpecializedReflectionCodecTest {
+
+    static class Pojo {
+        @Id
+        ObjectId id;
+        @LockingVersion
+        int version;
+        byte aByte;
+        boolean aBoolean;
+        char aChar;
+        short aShort;
+        int anInt;
+        long aLong;
+        float aFloat;
+        double aDouble;
+        String aString;
+        @EncodeNulls
+        String aNullString;
+        List<String> aList;
+        Map<String, Integer> aMap;
+        transient int postLoaded;
+
+        @PostLoad
+        void postLoad() {
+            postLoaded++;
+        }
+    }
+
+    @DecodingFieldFailureStrategy(DecodingFieldFailureStrategy.Strategy.SKIP)
+    static class SkippingPojo {
+        Integer anInteger;
+        String aString;
+    }
+
+    private static Pojo createPojo() {
+        Pojo pojo = new Pojo();
+        pojo.id = new ObjectId();
+        pojo.version = 3;
+        pojo.aByte = 1;
+        pojo.aBoolean = true;
+        pojo.aChar = 'c';
+        pojo.aShort = 2;
+        pojo.anInt = 3;
+        pojo.aLong = 4L;
+        pojo.aFloat = 5.5f;
+        pojo.aDouble = 6.25d;
+        pojo.aString = "string";
+        pojo.aList = Arrays.asList("a", "b");
+        pojo.aMap = new TreeMap<>();
+        pojo.aMap.put("key", 42);
+        return pojo;
+    }
+
+    @Test
+    public void generatedCodecIsUsedTest() {
+        assertTrue(registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(true)).get(Pojo.class) instanceof SpecializedReflectionCodec);
+        assertFalse(registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(false)).get(Pojo.class) instanceof SpecializedReflectionCodec);
+    }
+
+    @Test
+    public void sameEncodingAsBasicReflectionCodecTest() {
+        Pojo pojo = createPojo();
+        byte[] generated = encodeBinary(registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(true)).get(Pojo.class), pojo);
+        byte[] basic = encodeBinary(registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(false)).get(Pojo.class), pojo);
+        assertArrayEquals(basic, generated);
+        BsonDocument document = new RawBsonDocument(generated);
+        assertEquals(4, document.getInt32("version").getValue());
+        assertTrue(document.isNull("aNullString"));
+    }
+
+    @Test
+    public void roundTripTest() {
+        Codec<Pojo> codec = registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(true)).get(Pojo.class);
+        Pojo pojo = createPojo();
+        Pojo decoded = decodeBinary(codec, encodeBinary(codec, pojo));
+
+        assertEquals(pojo.id, decoded.id);
+        assertEquals(4, decoded.version);
+        assertEquals(pojo.aByte, decoded.aByte);
+        assertEquals(pojo.aBoolean, decoded.aBoolean);
+        assertEquals(pojo.aChar, decoded.aChar);
+        assertEquals(pojo.aShort, decoded.aShort);
+        assertEquals(pojo.anInt, decoded.anInt);
+        assertEquals(pojo.aLong, decoded.aLong);
+        assertEquals(pojo.aFloat, decoded.aFloat);
+        assertEquals(pojo.aDouble, decoded.aDouble);
+        assertEquals(pojo.aString, decoded.aString);
+        assertNull(decoded.aNullString);
+        assertEquals(pojo.aList, decoded.aList);
+        assertEquals(pojo.aMap, decoded.aMap);
+        assertEquals(1, decoded.postLoaded);
+    }
+
+    @Test
+    public void decodingFieldFailureStrategyTest() {
+        Codec<SkippingPojo> codec = registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(true)).get(SkippingPojo.class);
+        byte[] bytes = encodeBinary(registry(SpecializedReflectionCodecTest.class, builder -> builder.specializedCodecs(true)).get(BsonDocument.class),
+                BsonDocument.parse("{anInteger: 'not a number', aString: 'still decoded', unmapped: {a: 1}}"));
+        SkippingPojo decoded = decodeBinary(codec, bytes);
+        assertNull(decoded.anInteger);
+        assertEquals("still decoded", decoded.aString);
+    }
+}
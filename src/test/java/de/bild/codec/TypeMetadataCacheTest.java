@@ -0,0 +1,86 @@
+package de.bild.codec;
+
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeMetadataCacheTest {
+
+    static class BasePojo<T> {
+        T value;
+        List<T> values;
+    }
+
+    static class StringPojo extends BasePojo<String> {
+    }
+
+    static class Holder {
+        BasePojo<String> pojo;
+    }
+
+    private static Set<String> typeNames(Type... types) {
+        Set<String> typeNames = new HashSet<>();
+        for (Type type : types) {
+            typeNames.add(TypeUtils.toString(type));
+        }
+        return typeNames;
+    }
+
+    @Test
+    public void typesAreInternedAcrossImplementationsTest() throws Exception {
+        Type jdkType = Holder.class.getDeclaredField("pojo").getGenericType();
+        Type commonsType = TypeUtils.parameterize(BasePojo.class, String.class);
+        assertEquals(jdkType, commonsType);
+        assertNotSame(jdkType, commonsType);
+
+        TypeMetadataCache typeMetadataCache = new TypeMetadataCache();
+        assertSame(typeMetadataCache.intern(jdkType), typeMetadataCache.intern(commonsType));
+        assertSame(Holder.class, typeMetadataCache.intern(Holder.class));
+        assertNotSame(typeMetadataCache.intern(commonsType), typeMetadataCache.intern(TypeUtils.parameterize(BasePojo.class, Integer.class)));
+        // the cache is scoped to its owner
+        assertSame(commonsType, new TypeMetadataCache().intern(commonsType));
+    }
+
+    @Test
+    public void fieldTypePairsAreCachedTest() throws Exception {
+        Type jdkType = Holder.class.getDeclaredField("pojo").getGenericType();
+        TypeMetadataCache typeMetadataCache = new TypeMetadataCache();
+        List<FieldTypePair> fieldTypePairs = typeMetadataCache.getDeclaredAndInheritedFieldTypePairs(jdkType, true);
+        assertSame(fieldTypePairs, typeMetadataCache.getDeclaredAndInheritedFieldTypePairs(TypeUtils.parameterize(BasePojo.class, String.class), true));
+        assertEquals(String.class, fieldTypePairs.get(0).getRealType());
+        assertEquals(TypeUtils.parameterize(List.class, String.class), fieldTypePairs.get(1).getRealType());
+        assertThrows(UnsupportedOperationException.class, () -> fieldTypePairs.add(fieldTypePairs.get(0)));
+
+        List<FieldTypePair> recalculated = new TypeMetadataCache().getDeclaredAndInheritedFieldTypePairs(jdkType, true);
+        assertNotSame(fieldTypePairs, recalculated);
+        assertEquals(fieldTypePairs.size(), recalculated.size());
+        assertSame(TypeMetadataCache.getDeclaredFields(BasePojo.class), TypeMetadataCache.getDeclaredFields(BasePojo.class));
+    }
+
+    @Test
+    public void assignableTypesAreCachedTest() {
+        TypesModel typesModel = new TypesModel(new HashSet<>(Arrays.asList(BasePojo.class, StringPojo.class)), null, null, null, null, null);
+        Set<Type> assignableTypes = typesModel.getAssignableTypesWithinClassHierarchy(TypeUtils.parameterize(BasePojo.class, String.class));
+        assertEquals(typeNames(TypeUtils.parameterize(BasePojo.class, String.class), StringPojo.class), typeNames(assignableTypes.toArray(new Type[0])));
+        assertSame(assignableTypes, typesModel.getAssignableTypesWithinClassHierarchy(TypeUtils.parameterize(BasePojo.class, String.class)));
+        assertEquals(typeNames(TypeUtils.parameterize(BasePojo.class, Integer.class)),
+                typeNames(typesModel.getAssignableTypesWithinClassHierarchy(TypeUtils.parameterize(BasePojo.class, Integer.class)).toArray(new Type[0])));
+        assertThrows(UnsupportedOperationException.class, () -> assignableTypes.add(Holder.class));
+
+        Type internedType = typesModel.typeMetadataCache.intern(TypeUtils.parameterize(BasePojo.class, String.class));
+        List<FieldTypePair> fieldTypePairs = typesModel.typeMetadataCache.getDeclaredAndInheritedFieldTypePairs(StringPojo.class, true);
+        typesModel.clearCaches();
+        Set<Type> recalculated = typesModel.getAssignableTypesWithinClassHierarchy(TypeUtils.parameterize(BasePojo.class, String.class));
+        assertNotSame(assignableTypes, recalculated);
+        assertEquals(typeNames(assignableTypes.toArray(new Type[0])), typeNames(recalculated.toArray(new Type[0])));
+        assertNotSame(fieldTypePairs, typesModel.typeMetadataCache.getDeclaredAndInheritedFieldTypePairs(StringPojo.class, true));
+        assertNotSame(internedType, typesModel.typeMetadataCache.intern(TypeUtils.parameterize(BasePojo.class, String.class)));
+    }
+}
@@ -0,0 +1,193 @@
+package de.bild.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypesModelHierarchyIndexTest {
+
+    interface Root {
+    }
+
+    static class A implements Root {
+    }
+
+    static class B extends A {
+    }
+
+    static class C extends B {
+    }
+
+    static class D implements Root {
+    }
+
+    interface Unrelated {
+    }
+
+    static class NotRegistered {
+        static class SubClassOfA extends A {
+        }
+
+        static class SubClassOfNotRegistered extends NotRegistered {
+        }
+    }
+
+    private static TypesModel typesModel() {
+        return new TypesModel(new HashSet<>(Arrays.asList(Root.class, A.class, B.class, C.class, D.class, Unrelated.class)), null, null, null, null, null);
+    }
+
+    @Test
+    public void compactBitSetTest() {
+        BitSet bitSet = new BitSet();
+        bitSet.set(70);
+        bitSet.set(130);
+        bitSet.set(131);
+        CompactBitSet compactBitSet = CompactBitSet.of(bitSet);
+        assertEquals(3, compactBitSet.cardinality());
+        assertTrue(compactBitSet.get(70));
+        assertTrue(compactBitSet.get(131));
+        assertFalse(compactBitSet.get(0));
+        assertFalse(compactBitSet.get(71));
+        assertFalse(compactBitSet.get(1000));
+        List<Integer> bits = new ArrayList<>();
+        compactBitSet.forEach(bits::add);
+        assertEquals(Arrays.asList(70, 130, 131), bits);
+
+        assertSame(CompactBitSet.EMPTY, CompactBitSet.of(new BitSet()));
+        assertEquals(0, CompactBitSet.EMPTY.cardinality());
+    }
+
+    @Test
+    public void concreteSubTypesTest() {
+        TypesModel typesModel = typesModel();
+        TypesModel.ClassHierarchyNode root = typesModel.getClassHierarchyNodeForType(Root.class);
+        assertEquals(new HashSet<>(Arrays.asList(A.class, B.class, C.class, D.class)), root.getAllConcreteChildren());
+        assertTrue(root.isPolymorphic());
+        assertEquals(new HashSet<>(Arrays.asList(B.class, C.class)), typesModel.getClassHierarchyNodeForType(B.class).getAllConcreteChildren());
+        assertFalse(typesModel.getClassHierarchyNodeForType(C.class).isPolymorphic());
+        assertTrue(typesModel.getClassHierarchyNodeForType(Unrelated.class).getAllConcreteChildren().isEmpty());
+
+        assertEquals(new HashSet<Type>(Arrays.asList(A.class, B.class, C.class)), typesModel.getAssignableTypesWithinClassHierarchy(A.class));
+        // not registered sub classes are downgraded to their super class within the model
+        assertEquals(new HashSet<Type>(Arrays.asList(A.class, B.class, C.class)), typesModel.getAssignableTypesWithinClassHierarchy(NotRegistered.SubClassOfA.class));
+    }
+
+    @Test
+    public void superTypesWithinModelTest() {
+        TypesModel typesModel = typesModel();
+        assertFalse(typesModel.hasSuperTypeWithinModel(Root.class));
+        assertTrue(typesModel.hasSuperTypeWithinModel(A.class));
+        assertTrue(typesModel.hasSuperTypeWithinModel(C.class));
+        assertTrue(typesModel.hasSuperTypeWithinModel(D.class));
+        assertFalse(typesModel.hasSuperTypeWithinModel(Unrelated.class));
+        assertTrue(typesModel.hasSuperTypeWithinModel(NotRegistered.SubClassOfA.class));
+        assertFalse(typesModel.hasSuperTypeWithinModel(NotRegistered.SubClassOfNotRegistered.class));
+    }
+
+    /**
+     * Defines empty classes and interfaces from minimal class files
+     */
+    static class ModelClassLoader extends ClassLoader {
+        ModelClassLoader() {
+            super(TypesModelHierarchyIndexTest.class.getClassLoader());
+        }
+
+        Class<?> define(String name, int access, String superName, String... interfaceNames) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52);
+                // constant pool: a class entry and its name for this class, the super class and each interface
+                out.writeShort(5 + 2 * interfaceNames.length);
+                for (String className : concat(name, superName, interfaceNames)) {
+                    int index = (className == name ? 0 : className == superName ? 1 : 2 + Arrays.asList(interfaceNames).indexOf(className)) * 2 + 1;
+                    out.writeByte(7);
+                    out.writeShort(index + 1);
+                    out.writeByte(1);
+                    out.writeUTF(className.replace('.', '/'));
+                }
+                out.writeShort(access);
+                out.writeShort(1);
+                out.writeShort(3);
+                out.writeShort(interfaceNames.length);
+                for (int i = 0; i < interfaceNames.length; i++) {
+                    out.writeShort(5 + 2 * i);
+                }
+                // no fields, methods and attributes
+                out.writeShort(0);
+                out.writeShort(0);
+                out.writeShort(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        }
+
+        private static List<String> concat(String name, String superName, String... interfaceNames) {
+            List<String> classNames = new ArrayList<>(Arrays.asList(name, superName));
+            classNames.addAll(Arrays.asList(interfaceNames));
+            return classNames;
+        }
+    }
+
+    /**
+     * 100 interfaces with 50 implementations each, and a sub class of every implementation
+     */
+    @Test
+    public void largeModelTest() {
+        ModelClassLoader classLoader = new ModelClassLoader();
+        Set<Class<?>> classes = new HashSet<>();
+        List<Class<?>> interfaces = new ArrayList<>();
+        List<Class<?>> implementations = new ArrayList<>();
+        List<Class<?>> subClasses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String interfaceName = "large.model.Shape" + i;
+            interfaces.add(classLoader.define(interfaceName, Modifier.PUBLIC | Modifier.INTERFACE | Modifier.ABSTRACT, "java.lang.Object"));
+            for (int j = 0; j < 50; j++) {
+                String implementationName = "large.model.Shape" + i + "Impl" + j;
+                implementations.add(classLoader.define(implementationName, Modifier.PUBLIC, "java.lang.Object", interfaceName));
+                subClasses.add(classLoader.define(implementationName + "Sub", Modifier.PUBLIC, implementationName));
+            }
+        }
+        classes.addAll(interfaces);
+        classes.addAll(implementations);
+        classes.addAll(subClasses);
+        assertEquals(10_100, classes.size());
+
+        TypesModel typesModel = new TypesModel(classes, null, null, null, null, null);
+
+        int wordCount = 0;
+        for (Class<?> clazz : classes) {
+            wordCount += typesModel.getClassHierarchyNodeForType(clazz).concreteSubTypes.wordCount();
+        }
+        // ids are assigned in hierarchy order, so the sub types of a class are stored within a few words
+        assertTrue(wordCount < 2 * classes.size(), String.valueOf(wordCount));
+
+        Class<?> shape = interfaces.get(42);
+        Set<Type> assignableTypes = typesModel.getAssignableTypesWithinClassHierarchy(shape);
+        assertEquals(100, assignableTypes.size());
+        assertTrue(assignableTypes.contains(implementations.get(42 * 50 + 7)));
+        assertTrue(assignableTypes.contains(subClasses.get(42 * 50 + 49)));
+        assertFalse(assignableTypes.contains(implementations.get(43 * 50)));
+        assertEquals(new HashSet<Type>(Arrays.asList(implementations.get(10), subClasses.get(10))),
+                typesModel.getAssignableTypesWithinClassHierarchy(implementations.get(10)));
+
+        assertFalse(typesModel.hasSuperTypeWithinModel(shape));
+        assertTrue(typesModel.hasSuperTypeWithinModel(implementations.get(4_999)));
+        assertTrue(typesModel.hasSuperTypeWithinModel(subClasses.get(4_999)));
+    }
+}
@@ -0,0 +1,177 @@
+package de.bild.codec;
+
+import de.bild.codec.model.AnInterface;
+import de.bild.codec.model.ImplementingInterface;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypesModelIndexTest {
+    private static final Set<String> PACKAGES = Collections.singleton(AnInterface.class.getPackage().getName());
+    private static final String INDEX_RESOURCE = "META-INF/polymorphia/types.idx";
+
+    private static TypesModel loadOrScan(Path indexFile) {
+        return loadOrScan(indexFile, null);
+    }
+
+    private static TypesModel loadOrScan(Path indexFile, Set<Predicate<String>> ignorePredicates) {
+        return TypesModelIndex.loadOrScan(indexFile, Collections.singleton(TypesModelTest.class), PACKAGES, null, ignorePredicates, null, null);
+    }
+
+    private static TypesModel loadOrScanResource(Path resourceRoot) throws Exception {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{resourceRoot.toUri().toURL()}, TypesModelIndexTest.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            return TypesModelIndex.loadOrScan(INDEX_RESOURCE, Collections.singleton(TypesModelTest.class), PACKAGES, null, null, null, null);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static void verifyResource(Path resourceRoot) throws Exception {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{resourceRoot.toUri().toURL()}, TypesModelIndexTest.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            TypesModelIndex.verifyResource(INDEX_RESOURCE, Collections.singleton(TypesModelTest.class), PACKAGES, null, null, null, null);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static void replaceLine(Path indexFile, String key, String value) throws Exception {
+        List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8).stream()
+                .map(line -> line.startsWith(key + "\t") ? key + "\t" + value : line)
+                .collect(Collectors.toList());
+        Files.write(indexFile, lines, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writeAndReadIndexTest(@TempDir Path tempDir) throws Exception {
+        Path indexFile = tempDir.resolve("META-INF").resolve("types.idx");
+
+        TypesModel scanned = loadOrScan(indexFile);
+        assertNotNull(scanned.classResolver);
+        assertTrue(Files.exists(indexFile));
+
+        TypesModel loaded = loadOrScan(indexFile);
+        // a types model restored from the index has not been scanned
+        assertNull(loaded.classResolver);
+        assertEquals(scanned.allClasses, loaded.allClasses);
+        assertEquals(scanned.classHierarchy.keySet(), loaded.classHierarchy.keySet());
+        for (Class<?> clazz : scanned.classHierarchy.keySet()) {
+            assertEquals(scanned.getAssignableTypesWithinClassHierarchy(clazz), loaded.getAssignableTypesWithinClassHierarchy(clazz), clazz.getName());
+        }
+    }
+
+    @Test
+    public void staleIndexTest(@TempDir Path tempDir) throws Exception {
+        Path indexFile = tempDir.resolve("types.idx");
+        loadOrScan(indexFile);
+
+        replaceLine(indexFile, "classpath", "stale");
+
+        TypesModel rescanned = loadOrScan(indexFile);
+        assertNotNull(rescanned.classResolver);
+        assertFalse(Files.readAllLines(indexFile, StandardCharsets.UTF_8).contains("classpath\tstale"));
+    }
+
+    @Test
+    public void prebuiltIndexResourceTest(@TempDir Path tempDir) throws Exception {
+        // index created during the build on another machine
+        Path indexFile = tempDir.resolve(INDEX_RESOURCE);
+        TypesModel scanned = loadOrScan(indexFile);
+        replaceLine(indexFile, "classpath", "class path of the build machine");
+
+        TypesModel loaded = loadOrScanResource(tempDir);
+        // no scan happened
+        assertNull(loaded.classResolver);
+        assertEquals(scanned.allClasses, loaded.allClasses);
+
+        // changed classes are noticed
+        replaceLine(indexFile, "content", "other classes");
+        assertNotNull(loadOrScanResource(tempDir).classResolver);
+    }
+
+    @Test
+    public void verifyIndexResourceTest(@TempDir Path tempDir) throws Exception {
+        assertThrows(IllegalStateException.class, () -> verifyResource(tempDir));
+
+        Path indexFile = tempDir.resolve(INDEX_RESOURCE);
+        loadOrScan(indexFile);
+        verifyResource(tempDir);
+
+        // the resource was created before ImplementingInterface was added to the package
+        TypesModel typesModel = new TypesModel(Collections.singleton(TypesModelTest.class), PACKAGES, null, null, Collections.singleton(ImplementingInterface.class), null);
+        String configuration = TypesModelIndex.configurationFingerprint(Collections.singleton(TypesModelTest.class), PACKAGES, null, null, null);
+        try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            TypesModelIndex.write(typesModel, configuration, "class path of the build machine", writer);
+        }
+        assertFalse(loadOrScanResource(tempDir).allClasses.contains(ImplementingInterface.class));
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> verifyResource(tempDir));
+        assertTrue(exception.getMessage().contains(ImplementingInterface.class.getName()), exception.getMessage());
+    }
+
+    @Test
+    public void ignorePredicatesTest(@TempDir Path tempDir) throws Exception {
+        Path indexFile = tempDir.resolve("types.idx");
+        Set<Predicate<String>> ignoreImplementingInterface = Collections.singleton(ImplementingInterface.class.getName()::equals);
+        TypesModel scanned = loadOrScan(indexFile, ignoreImplementingInterface);
+        assertFalse(scanned.allClasses.contains(ImplementingInterface.class));
+        assertTrue(Files.readAllLines(indexFile, StandardCharsets.UTF_8).contains("ignored\t" + ImplementingInterface.class.getName()));
+
+        // equivalent predicates use the index
+        assertNull(loadOrScan(indexFile, Collections.singleton(name -> name.equals(ImplementingInterface.class.getName()))).classResolver);
+
+        StringWriter writer = new StringWriter();
+        Files.readAllLines(indexFile, StandardCharsets.UTF_8).forEach(line -> writer.append(line).append('\n'));
+        String configuration = TypesModelIndex.configurationFingerprint(Collections.singleton(TypesModelTest.class), PACKAGES, null, null, null);
+        // the class ignored during the scan is not ignored anymore
+        assertNull(TypesModelIndex.read(new StringReader(writer.toString()), configuration, null, null));
+        // a listed class is ignored now
+        Set<Predicate<String>> ignoreMore = Collections.singleton(name -> name.equals(ImplementingInterface.class.getName()) || name.equals(AnInterface.class.getName()));
+        assertNull(TypesModelIndex.read(new StringReader(writer.toString()), configuration, null, ignoreMore));
+        assertNotNull(TypesModelIndex.read(new StringReader(writer.toString()), configuration, null, ignoreImplementingInterface));
+    }
+
+    @Test
+    public void missingClassTest() throws Exception {
+        TypesModel typesModel = TypesModelIndex.loadOrScan(Files.createTempFile("types", ".idx"), null, PACKAGES, null, null, null, null);
+        StringWriter writer = new StringWriter();
+        TypesModelIndex.write(typesModel, "configuration", "classpath", writer);
+
+        assertNotNull(TypesModelIndex.read(new StringReader(writer.toString()), "configuration", "classpath", null));
+        assertNotNull(TypesModelIndex.read(new StringReader(writer.toString()), "configuration", null, null));
+        assertNull(TypesModelIndex.read(new StringReader(writer.toString()), "other configuration", null, null));
+        assertNull(TypesModelIndex.read(new StringReader(writer.toString()), "configuration", "other classpath", null));
+        assertNull(TypesModelIndex.read(new StringReader(writer + "class\tde.bild.codec.DoesNotExist\n"), "configuration", "classpath", null));
+        // a class that is not covered by the content fingerprint
+        assertNull(TypesModelIndex.read(new StringReader(writer + "class\t" + TypesModelIndexTest.class.getName() + "\n"), "configuration", "classpath", null));
+    }
+
+    @Test
+    public void fingerprintTest() {
+        String fingerprint = TypesModelIndex.configurationFingerprint(null, PACKAGES, null, null, null);
+        assertEquals(fingerprint, TypesModelIndex.configurationFingerprint(null, PACKAGES, null, null, null));
+        assertNotEquals(fingerprint, TypesModelIndex.configurationFingerprint(Collections.singleton(TypesModelTest.class), PACKAGES, null, null, null));
+        assertNotEquals(fingerprint, TypesModelIndex.configurationFingerprint(null, Collections.singleton("de.bild.codec.classresolvertestmodel"), null, null, null));
+
+        String content = TypesModelIndex.contentFingerprint(Collections.singleton(AnInterface.class));
+        assertEquals(content, TypesModelIndex.contentFingerprint(Collections.singleton(AnInterface.class)));
+        assertNotEquals(content, TypesModelIndex.contentFingerprint(Collections.singleton(ImplementingInterface.class)));
+    }
+}
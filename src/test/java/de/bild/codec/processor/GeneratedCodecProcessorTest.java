@@ -0,0 +1,278 @@
+package de.bild.codec.processor;
+
+import com.mongodb.MongoClientSettings;
+import de.bild.codec.AbstractGeneratedCodec;
+import de.bild.codec.PojoCodecProvider;
+import de.bild.codec.annotations.GeneratedCodec;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratedCodecProcessorTest {
+    private static final String PACKAGE = "de.bild.codec.generated";
+
+    /**
+     * Pojo is annotated, PlainPojo is not but maps the very same fields, so both need to be encoded identically.
+     */
+    private static final String POJO_FIELDS =
+            "    @Id public ObjectId id;\n" +
+            "    @LockingVersion public int version;\n" +
+            "    public byte aByte;\n" +
+            "    public boolean aBoolean;\n" +
+            "    public char aChar;\n" +
+            "    public short aShort;\n" +
+            "    int anInt;\n" +
+            "    protected long aLong;\n" +
+            "    public float aFloat;\n" +
+            "    public double aDouble;\n" +
+            "    public String aString;\n" +
+            "    @EncodeNulls public String aNullString;\n" +
+            "    public List<String> aList;\n" +
+            "    private String aPrivateString;\n" +
+            "    public final String aFinalString = \"final\";\n" +
+            "    public transient int aTransientInt;\n";
+
+    private static final String IMPORTS =
+            "package " + PACKAGE + ";\n" +
+            "import de.bild.codec.annotations.*;\n" +
+            "import org.bson.types.ObjectId;\n" +
+            "import java.util.List;\n";
+
+    private static final String[][] SOURCES = {
+            {"Pojo", IMPORTS + "@GeneratedCodec public class Pojo {\n" + POJO_FIELDS +
+                    "    @GeneratedCodec public static class Nested { public String name; }\n" +
+                    "    @GeneratedCodec public class NonStatic { public String name; }\n" +
+                    "}\n"},
+            {"PlainPojo", IMPORTS + "public class PlainPojo {\n" + POJO_FIELDS + "}\n"},
+            {"Base", IMPORTS + "@GeneratedCodec public abstract class Base { public String baseField; }\n"},
+            {"SubPojo", IMPORTS + "public class SubPojo extends Base { public int subField; }\n"},
+            {"GenericBase", IMPORTS + "@GeneratedCodec public abstract class GenericBase<T> { public T value; public List<T> values; }\n"},
+            {"StringPojo", IMPORTS + "public class StringPojo extends GenericBase<String> { }\n"}
+    };
+
+    @TempDir
+    static Path outputDirectory;
+    private static URLClassLoader classLoader;
+    private static String compilerOutput;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        Path sourceDirectory = Files.createDirectories(outputDirectory.resolve("src").resolve(PACKAGE.replace('.', '/')));
+        Path classesDirectory = Files.createDirectories(outputDirectory.resolve("classes"));
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-processor", GeneratedCodecProcessor.class.getName(),
+                "-d", classesDirectory.toString(),
+                "-s", classesDirectory.toString()));
+        for (String[] source : SOURCES) {
+            Path sourceFile = sourceDirectory.resolve(source[0] + ".java");
+            Files.write(sourceFile, source[1].getBytes(StandardCharsets.UTF_8));
+            arguments.add(sourceFile.toString());
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, arguments.toArray(new String[0]));
+        compilerOutput = errors.toString();
+        assertEquals(0, result, compilerOutput);
+
+        classLoader = new URLClassLoader(new URL[]{classesDirectory.toUri().toURL()}, GeneratedCodecProcessorTest.class.getClassLoader());
+    }
+
+    private static Class<?> loadClass(String simpleName) throws ClassNotFoundException {
+        return classLoader.loadClass(PACKAGE + "." + simpleName);
+    }
+
+    private static CodecRegistry codecRegistry(Class<?>... classes) {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(PojoCodecProvider.builder().register(classes).build()),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] encode(Codec<?> codec, Object value) {
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+        ((Codec<Object>) codec).encode(new BsonBinaryWriter(outputBuffer), value, EncoderContext.builder().build());
+        return outputBuffer.toByteArray();
+    }
+
+    private static Object decode(Codec<?> codec, byte[] bytes) {
+        return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+    }
+
+    private static Object createPojo(Class<?> clazz, ObjectId id) throws Exception {
+        Object pojo = clazz.getDeclaredConstructor().newInstance();
+        set(pojo, "id", id);
+        set(pojo, "version", 3);
+        set(pojo, "aByte", (byte) 1);
+        set(pojo, "aBoolean", true);
+        set(pojo, "aChar", 'c');
+        set(pojo, "aShort", (short) 2);
+        set(pojo, "anInt", 3);
+        set(pojo, "aLong", 4L);
+        set(pojo, "aFloat", 5.5f);
+        set(pojo, "aDouble", 6.25d);
+        set(pojo, "aString", "string");
+        set(pojo, "aList", Arrays.asList("a", "b"));
+        set(pojo, "aPrivateString", "private");
+        set(pojo, "aTransientInt", 7);
+        return pojo;
+    }
+
+    private static void set(Object pojo, String fieldName, Object value) throws Exception {
+        Field field = pojo.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(pojo, value);
+    }
+
+    private static Object get(Object pojo, String fieldName) throws Exception {
+        Field field = pojo.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(pojo);
+    }
+
+    @Test
+    public void generatedSourcesTest() throws Exception {
+        assertTrue(AbstractGeneratedCodec.class.isAssignableFrom(loadClass("Pojo" + GeneratedCodec.CODEC_CLASS_SUFFIX)));
+        assertTrue(AbstractGeneratedCodec.class.isAssignableFrom(loadClass("Pojo_Nested" + GeneratedCodec.CODEC_CLASS_SUFFIX)));
+        assertTrue(AbstractGeneratedCodec.class.isAssignableFrom(loadClass("SubPojo" + GeneratedCodec.CODEC_CLASS_SUFFIX)));
+        assertThrows(ClassNotFoundException.class, () -> loadClass("Pojo_NonStatic" + GeneratedCodec.CODEC_CLASS_SUFFIX));
+        assertThrows(ClassNotFoundException.class, () -> loadClass("Base" + GeneratedCodec.CODEC_CLASS_SUFFIX));
+        assertThrows(ClassNotFoundException.class, () -> loadClass("PlainPojo" + GeneratedCodec.CODEC_CLASS_SUFFIX));
+
+        String source = new String(Files.readAllBytes(outputDirectory.resolve("classes").resolve(PACKAGE.replace('.', '/')).resolve("Pojo" + GeneratedCodec.CODEC_CLASS_SUFFIX + ".java")), StandardCharsets.UTF_8);
+        assertTrue(source.contains("instance.anInt"));
+        assertTrue(source.contains("instance.aLong"));
+        assertFalse(source.contains("aPrivateString"));
+        assertFalse(source.contains("aFinalString"));
+        assertFalse(source.contains("aTransientInt"));
+
+        List<String> index = Files.readAllLines(outputDirectory.resolve("classes").resolve(GeneratedCodec.INDEX_RESOURCE), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(PACKAGE + ".Pojo", PACKAGE + ".Pojo$Nested", PACKAGE + ".StringPojo", PACKAGE + ".SubPojo"), index);
+    }
+
+    @Test
+    public void genericBaseClassTest() throws Exception {
+        String source = new String(Files.readAllBytes(outputDirectory.resolve("classes").resolve(PACKAGE.replace('.', '/')).resolve("StringPojo" + GeneratedCodec.CODEC_CLASS_SUFFIX + ".java")), StandardCharsets.UTF_8);
+        assertTrue(source.contains("instance.value = (java.lang.String) value;"), source);
+        assertTrue(source.contains("instance.values = (java.util.List) value;"), source);
+
+        Class<?> stringPojoClass = loadClass("StringPojo");
+        Codec<?> codec = codecRegistry(stringPojoClass).get(stringPojoClass);
+        assertTrue(codec instanceof AbstractGeneratedCodec, codec.getClass().getName());
+
+        Object stringPojo = stringPojoClass.getDeclaredConstructor().newInstance();
+        Field valueField = loadClass("GenericBase").getDeclaredField("value");
+        Field valuesField = loadClass("GenericBase").getDeclaredField("values");
+        valueField.set(stringPojo, "value");
+        valuesField.set(stringPojo, Arrays.asList("a", "b"));
+        Object decoded = decode(codec, encode(codec, stringPojo));
+        assertEquals("value", valueField.get(decoded));
+        assertEquals(Arrays.asList("a", "b"), valuesField.get(decoded));
+    }
+
+    @Test
+    public void sameEncodingAsReflectionCodecTest() throws Exception {
+        Class<?> pojoClass = loadClass("Pojo");
+        Class<?> plainPojoClass = loadClass("PlainPojo");
+        CodecRegistry codecRegistry = codecRegistry(pojoClass, plainPojoClass);
+        Codec<?> codec = codecRegistry.get(pojoClass);
+        assertTrue(codec instanceof AbstractGeneratedCodec, codec.getClass().getName());
+        assertFalse(codecRegistry.get(plainPojoClass) instanceof AbstractGeneratedCodec);
+
+        ObjectId id = new ObjectId();
+        byte[] generated = encode(codec, createPojo(pojoClass, id));
+        byte[] reflection = encode(codecRegistry.get(plainPojoClass), createPojo(plainPojoClass, id));
+        assertArrayEquals(reflection, generated);
+
+        BsonDocument document = new RawBsonDocument(generated);
+        assertEquals(4, document.getInt32("version").getValue());
+        assertTrue(document.isNull("aNullString"));
+        assertEquals("private", document.getString("aPrivateString").getValue());
+        assertFalse(document.containsKey("aTransientInt"));
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        Class<?> pojoClass = loadClass("Pojo");
+        Codec<?> codec = codecRegistry(pojoClass).get(pojoClass);
+        Object pojo = createPojo(pojoClass, new ObjectId());
+        Object decoded = decode(codec, encode(codec, pojo));
+
+        for (String fieldName : Arrays.asList("id", "aByte", "aBoolean", "aChar", "aShort", "anInt", "aLong", "aFloat", "aDouble", "aString", "aList", "aPrivateString")) {
+            assertEquals(get(pojo, fieldName), get(decoded, fieldName), fieldName);
+        }
+        assertEquals(4, get(decoded, "version"));
+        assertNull(get(decoded, "aNullString"));
+        assertEquals(0, get(decoded, "aTransientInt"));
+    }
+
+    @Test
+    public void skipMismatchingValuesTest() throws Exception {
+        Class<?> pojoClass = loadClass("Pojo");
+        CodecRegistry codecRegistry = codecRegistry(pojoClass);
+        byte[] bytes = encode(codecRegistry.get(BsonDocument.class), BsonDocument.parse("{anInt: 'not a number', aLong: null, aString: 'decoded', aList: null}"));
+        Object decoded = decode(codecRegistry.get(pojoClass), bytes);
+        assertEquals(0, get(decoded, "anInt"));
+        assertEquals(0L, get(decoded, "aLong"));
+        assertEquals("decoded", get(decoded, "aString"));
+        assertNull(get(decoded, "aList"));
+    }
+
+    @Test
+    public void registerGeneratedCodecsTest() throws Exception {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        try {
+            CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                    CodecRegistries.fromProviders(PojoCodecProvider.builder().registerGeneratedCodecs().build()),
+                    MongoClientSettings.getDefaultCodecRegistry());
+            Class<?> subPojoClass = loadClass("SubPojo");
+            Object subPojo = subPojoClass.getDeclaredConstructor().newInstance();
+            set(subPojo, "subField", 42);
+            Field baseField = loadClass("Base").getDeclaredField("baseField");
+            baseField.set(subPojo, "base");
+
+            Codec<?> codec = codecRegistry.get(subPojoClass);
+            assertTrue(codec instanceof AbstractGeneratedCodec, codec.getClass().getName());
+            Object decoded = decode(codec, encode(codec, subPojo));
+            assertEquals(42, get(decoded, "subField"));
+            assertEquals("base", baseField.get(decoded));
+            assertNotNull(codecRegistry.get(loadClass("Pojo$Nested")));
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    @Test
+    public void unsupportedClassesAreReportedTest() {
+        assertTrue(compilerOutput.contains("only static inner classes are supported"), compilerOutput);
+    }
+}